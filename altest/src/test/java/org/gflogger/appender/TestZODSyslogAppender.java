@@ -0,0 +1,163 @@
+package org.gflogger.appender;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.monitoring.runtime.instrumentation.AllocationRecorder;
+import com.google.monitoring.runtime.instrumentation.Sampler;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TestZODSyslogAppender
+ *
+ * have to run with jvm option -javaagent:libs/allocation.jar
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestZODSyslogAppender {
+	static final AtomicBoolean detailedAllocation = new AtomicBoolean(false);
+
+	static final AtomicBoolean objectCounting = new AtomicBoolean(false);
+	static final AtomicInteger objectCount = new AtomicInteger();
+	static final AtomicLong objectSize = new AtomicLong();
+
+	private static final int WARMUP_COUNT = 50;
+	private static final int TEST_COUNT = 1000;
+
+	static void resetObjectCounting(){
+		detailedAllocation.set(false);
+		objectCounting.set(false);
+		objectCount.set(0);
+		objectSize.set(0);
+	}
+
+	@BeforeClass
+	public static void init(){
+
+		final ThreadLocal<StringBuilder> local = new ThreadLocal<StringBuilder>(){
+			@Override
+			public StringBuilder get() {
+				return new StringBuilder(1 << 10);
+			}
+		};
+
+		final ThreadLocal<String> threadName = new ThreadLocal<String>(){
+			@Override
+			protected String initialValue() {
+				return Thread.currentThread().getName();
+			}
+		};
+
+		// pre init
+		local.get();
+		threadName.get();
+
+		AllocationRecorder.addSampler(new Sampler() {
+
+			@Override
+			public void sampleAllocation(int count, String desc, Object newObj, long size) {
+			  if (!objectCounting.get()
+					  ||
+					  // bypass for gradle workers thread
+					  threadName.get().contains("0.0.0.0:")
+				  ) return;
+
+			  objectCount.incrementAndGet();
+			  objectSize.addAndGet(size);
+
+			  final StringBuilder builder = local.get();
+			  builder.setLength(0);
+			  if (count != -1) {
+				  builder.append("an array of ").
+					append(newObj.getClass().getComponentType().getName()).
+					append("[").append(count).append("]");
+			  } else {
+				  if (newObj instanceof String){
+					  builder.append("just allocated the string '").append(newObj).
+						  append('\'');
+					} else {
+						builder.append("I just allocated the object ").append(newObj).
+						append(" of type ").append(desc).append(" whose size is ").append(size);
+					}
+			  }
+			  builder.append('[').append(threadName.get()).append(']');
+
+			  if (!detailedAllocation.get()) return;
+			  System.err.println(builder);
+			}
+		  });
+	}
+
+	@AfterClass
+	public static void shutdown(){
+		resetObjectCounting();
+	}
+
+	@Before
+	public void setUp(){
+		resetObjectCounting();
+	}
+
+	@Test
+	public void testSyslogAppender() throws Exception {
+		resetObjectCounting();
+		objectCounting.set(true);
+
+		final DatagramChannel receiver = DatagramChannel.open();
+		receiver.socket().bind(new InetSocketAddress("localhost", 0));
+
+		final SyslogAppenderFactory factory = new SyslogAppenderFactory();
+		factory.setPort(receiver.socket().getLocalPort());
+		factory.setAppName("altest");
+		factory.setBufferSize(1 << 10);
+		factory.setLogLevel(LogLevel.INFO);
+		final SyslogAppender appender = factory.createAppender(null);
+		appender.start();
+
+		final String message = "value:1234567890";
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.getBuffer().put(message.getBytes("ascii"));
+
+		for(long i = 0; i < WARMUP_COUNT; i++) {
+			entry.setTimestamp(System.currentTimeMillis());
+			appender.process(entry);
+		}
+
+		Assume.assumeTrue( "have to run with jvm option -javaagent:libs/allocation.jar",
+		                   objectCount.get() > 0 );
+
+		resetObjectCounting();
+		objectCounting.set(true);
+		detailedAllocation.set(true);
+
+		// every entry is of another minute and day
+		for(long i = 0; i < TEST_COUNT; i++) {
+			entry.setTimestamp(i * 24 * 3600 * 1000L + i * 60 * 1000L);
+			appender.process(entry);
+		}
+
+		objectCounting.set(false);
+		detailedAllocation.set(false);
+
+		assertEquals(0, objectCount.get());
+		assertEquals(0, appender.getFailedMessages());
+		printState("syslog");
+
+		appender.stop();
+		receiver.close();
+	}
+
+	private void printState(final String name){
+		System.out.println(name + " count:" + objectCount.get() + " size:" + objectSize.get());
+	}
+
+}
@@ -25,9 +25,10 @@ import static org.gflogger.helpers.OptionConverter.getStringProperty;
  *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
-abstract class AbstractBufferLocalLogEntry extends AbstractLocalLogEntry {
+abstract class AbstractBufferLocalLogEntry extends AbstractLocalLogEntry implements AttachableLogEntry {
 
-	protected final ByteBuffer byteBuffer;
+	// could be attached to a slot of the ring
+	protected ByteBuffer byteBuffer;
 
 	public AbstractBufferLocalLogEntry(
 		final Thread owner,
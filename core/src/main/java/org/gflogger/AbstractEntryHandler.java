@@ -14,10 +14,17 @@
 
 package org.gflogger;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
+import org.gflogger.appender.AbstractAsyncAppender;
 import org.gflogger.helpers.LogLog;
 
+import static org.gflogger.formatter.BufferFormatter.append;
+
 /**
  * AbstractEntryHandler
  *
@@ -31,9 +38,48 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 
 	protected final Appender[] appenders;
 
+	// appenders the handler is responsible for, the others are handled by other consumers
+	protected final long appenderMask;
+
+	// "N messages dropped" marker is reported not often than once per interval
+	protected long dropReportInterval = 1000L;
+
+	private final LogEntryItemImpl dropMarker;
+	private long reportedDropped;
+	private long lastDropReport;
+
+	// commit timestamp of the oldest entry appenders have not flushed yet, 0 if there is none
+	private long unflushedSince;
+
+	// the latest sync request observed before the consumer has looked for available entries
+	private long syncObserved;
+	// the latest sync request handled
+	private volatile long synced;
+	private volatile boolean stopped;
+
 	public AbstractEntryHandler(T service, Appender[] appenders) {
+		this(service, appenders, -1L);
+	}
+
+	public AbstractEntryHandler(T service, Appender[] appenders, long appenderMask) {
 		this.service = service;
 		this.appenders = appenders;
+		this.appenderMask = appenderMask;
+		this.dropMarker = service.initEnties(1, 64)[0];
+		this.dropMarker.setCategoryName(AbstractEntryHandler.class.getPackage().getName());
+		this.dropMarker.setLogLevel(LogLevel.WARN);
+		this.dropMarker.setThreadName(service.name());
+		this.dropMarker.setAppenderMask(appenderMask
+			& (appenders.length >= Long.SIZE ? -1L : (1L << appenders.length) - 1));
+		// sync requests could be issued before the consumer thread has started the handler
+		service.syncHandlers.add(this);
+	}
+
+	/**
+	 * @return whether the appender is handled by this handler
+	 */
+	protected final boolean handles(final int idx) {
+		return (appenderMask & (1L << idx)) != 0L;
 	}
 
 	protected final void flushBuffer() {
@@ -42,14 +88,88 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 
 	protected void flushBuffer(boolean force) {
 		for (int i = 0; i < appenders.length; i++) {
-			appenders[i].flush(force);
+			if (handles(i)) {
+				appenders[i].flush(force);
+			}
+		}
+		if (force && unflushedSince != 0L) {
+			service.flushStatistics.record(Math.max(0L, System.currentTimeMillis() - unflushedSince));
+			unflushedSince = 0L;
+		}
+	}
+
+	/**
+	 * flushes appenders according to the flush policy of the service: at the end of
+	 * a batch of entries or once the oldest unflushed entry is too old
+	 *
+	 * @param endOfBatch whether there are no more entries available at the moment
+	 */
+	protected final void flushIfDue(boolean endOfBatch) {
+		if (endOfBatch) {
+			syncIfRequested();
+		}
+		if (unflushedSince == 0L) return;
+		final long maxAge = service.flushMaxAge;
+		if ((endOfBatch && service.flushOnEndOfBatch)
+			|| (maxAge > 0L && System.currentTimeMillis() - unflushedSince >= maxAge)) {
+			flushBuffer(true);
+		}
+	}
+
+	/**
+	 * takes the latest sync request, it has to be called before the consumer looks
+	 * for available entries: all entries committed before the request are handled then
+	 */
+	protected final void observeSyncRequest() {
+		syncObserved = service.syncRequested();
+	}
+
+	/**
+	 * flushes appenders and forces them to the storage device if there is a sync request
+	 * observed, it has to be called once all entries available at the moment are handled
+	 */
+	protected final void syncIfRequested() {
+		final long requested = syncObserved;
+		if (requested <= synced) return;
+		flushBuffer(true);
+		for (int i = 0; i < appenders.length; i++) {
+			if (handles(i) && appenders[i] instanceof AbstractAsyncAppender) {
+				((AbstractAsyncAppender) appenders[i]).sync();
+			}
 		}
+		synced = requested;
+	}
+
+	/**
+	 * waits till the sync request is handled or the handler (or the service) is stopped
+	 */
+	final void awaitSynced(final long request) {
+		while (synced < request && !stopped && service.state != State.STOPPED) {
+			LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100L));
+		}
+	}
+
+	/**
+	 * @return how long (in millis) the consumer could wait for entries keeping
+	 *			the max age of unflushed entries
+	 */
+	protected final long flushAwaitTimeout(long awaitTimeout) {
+		final long maxAge = service.flushMaxAge;
+		return maxAge > 0L && maxAge < awaitTimeout ? maxAge : awaitTimeout;
 	}
 
 	protected final void process(LogEntryItemImpl entry) {
 		//if (!running.get()) return;
 
-		long mask = entry.getAppenderMask();
+		long mask = entry.getAppenderMask() & appenderMask;
+		if (mask == 0L) return;
+		if (unflushedSince == 0L) {
+			// entry timestamp could be 0 if it is not set by a formatter
+			final long timestamp = entry.getTimestamp();
+			unflushedSince = timestamp != 0L ? timestamp : System.currentTimeMillis();
+		}
+		final LogLevel flushLevel = service.flushLevel;
+		final boolean flush = flushLevel != null && !flushLevel.greaterThan(entry.getLogLevel());
 		int idx = 0;
 		while (mask != 0L) {
 			if ((mask & 1L) != 0L) {
@@ -62,6 +182,40 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 			idx++;
 			mask >>= 1;
 		}
+		if (flush) {
+			flushBuffer(true);
+		}
+	}
+
+	/**
+	 * passes <i>"N messages dropped"</i> marker to appenders if any entries have been
+	 * dropped since the last report
+	 */
+	protected final void reportDropped() {
+		reportDropped(false);
+	}
+
+	private void reportDropped(boolean force) {
+		final long dropped = service.getDroppedCount();
+		if (dropped == reportedDropped) return;
+
+		final long now = System.currentTimeMillis();
+		if (!force && now - lastDropReport < dropReportInterval) return;
+
+		dropMarker.setTimestamp(now);
+		if (service.multibyte) {
+			final CharBuffer buffer = dropMarker.getCharBuffer();
+			buffer.clear();
+			append(append(buffer, dropped - reportedDropped), " messages dropped");
+		} else {
+			final ByteBuffer buffer = dropMarker.getBuffer();
+			buffer.clear();
+			append(append(buffer, dropped - reportedDropped), " messages dropped");
+		}
+		process(dropMarker);
+
+		reportedDropped = dropped;
+		lastDropReport = now;
 	}
 
 	public void start() {
@@ -69,6 +223,7 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 
 
 		for (int i = 0; i < appenders.length; i++) {
+			if (!handles(i)) continue;
 			LogLog.debug("going to start appender " + appenders[i].getName());
 			appenders[i].start();
 		}
@@ -77,10 +232,15 @@ public abstract class AbstractEntryHandler<T extends AbstractLoggerServiceImpl>
 	public void stop() {
 		if (!running.getAndSet(false)) return;
 
+		reportDropped(true);
 
 		service.state = State.STOPPED;
 
+		stopped = true;
+		service.syncHandlers.remove(this);
+
 		for (int i = 0; i < appenders.length; i++) {
+			if (!handles(i)) continue;
 			LogLog.debug("going to stop appender " + appenders[i].getName());
 			appenders[i].stop();
 		}
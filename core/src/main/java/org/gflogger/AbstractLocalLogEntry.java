@@ -14,8 +14,12 @@
 
 package org.gflogger;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.util.Iterator;
 
+import org.gflogger.formatter.BufferFormatter;
 import org.gflogger.helpers.LogLog;
 
 import static com.sun.corba.se.impl.util.JDKBridge.loadClass;
@@ -31,6 +35,8 @@ import static org.gflogger.util.StackTraceUtils.getImplementationVersion;
 abstract class AbstractLocalLogEntry implements LocalLogEntry {
 
 	protected String threadName;
+	protected Thread owner;
+	protected LocalLogEntryPool pool;
 	protected final LoggerService loggerService;
 	protected final ObjectFormatterFactory	formatterFactory;
 	protected final String logErrorsMessage;
@@ -41,11 +47,15 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 	protected long appenderMask;
 
 	protected boolean commited = true;
+	protected boolean nonBlocking;
+	protected long slot = -1L;
 	protected Throwable error;
 
 	protected String pattern;
 	protected int pPos;
 
+	protected final BatchRange batch = new BatchRange();
+
 	AbstractLocalLogEntry(
 		final ObjectFormatterFactory formatterFactory,
 		final LoggerService loggerService,
@@ -80,6 +90,7 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 		 * It have to be cached thread name at thread local variable cause
 		 * thread.getName() generates new String(char[])
 		 */
+		this.owner = owner;
 		this.threadName = owner.getName();
 		this.formatterFactory = formatterFactory;
 		this.loggerService = loggerService;
@@ -109,9 +120,31 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 
 	@Override
 	public String getThreadName() {
+		// the name is taken lazily: a pooled entry changes its owner on each lease
+		if (threadName == null) {
+			threadName = owner.getName();
+		}
 		return threadName;
 	}
 
+	@Override
+	public Thread getOwner() {
+		return owner;
+	}
+
+	@Override
+	public void setOwner(final Thread owner) {
+		if (this.owner != owner) {
+			this.owner = owner;
+			this.threadName = null;
+		}
+	}
+
+	@Override
+	public void setPool(final LocalLogEntryPool pool) {
+		this.pool = pool;
+	}
+
 	@Override
 	public boolean isCommited() {
 		return this.commited;
@@ -127,6 +160,26 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 		this.commited = commited;
 	}
 
+	@Override
+	public long getSlot() {
+		return this.slot;
+	}
+
+	@Override
+	public void setSlot(long slot) {
+		this.slot = slot;
+	}
+
+	@Override
+	public boolean isNonBlocking() {
+		return this.nonBlocking;
+	}
+
+	@Override
+	public void setNonBlocking(boolean nonBlocking) {
+		this.nonBlocking = nonBlocking;
+	}
+
 	@Override
 	public long getAppenderMask() {
 		return appenderMask;
@@ -137,6 +190,11 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 		this.appenderMask = appenderMask;
 	}
 
+	@Override
+	public BatchRange getBatch() {
+		return batch;
+	}
+
 	@Override
 	public Throwable getError() {
 		return this.error;
@@ -152,21 +210,36 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 	}
 
 	protected void appendNextPatternChunk() {
+		try {
+			pPos = appendPatternChunk(strategy, pattern, pPos, this);
+		} catch (IOException e) {
+			// entry does not throw it
+		}
+		if (this.pPos == pattern.length() && strategy.autocommitEnabled()) {
+			commit();
+		}
+	}
+
+	/**
+	 * appends the pattern from the given position up to the next placeholder
+	 *
+	 * @return position of the placeholder or the pattern length
+	 */
+	static int appendPatternChunk(final FormattingStrategy strategy, final String pattern,
+			int pos, final Appendable out) throws IOException {
 		final int len = pattern.length();
-		for (; pPos < len; pPos++) {
-			final char ch = pattern.charAt(pPos);
-			if (strategy.isEscape(pattern, pPos)) {
-				append(pattern.charAt(pPos + 1));
-				pPos++;
-			} else if (strategy.isPlaceholder(pattern, pPos)) {
+		for (; pos < len; pos++) {
+			final char ch = pattern.charAt(pos);
+			if (strategy.isEscape(pattern, pos)) {
+				out.append(pattern.charAt(pos + 1));
+				pos++;
+			} else if (strategy.isPlaceholder(pattern, pos)) {
 				break;
 			} else {
-				append(ch);
+				out.append(ch);
 			}
 		}
-		if (this.pPos == len && strategy.autocommitEnabled()) {
-			commit();
-		}
+		return pos;
 	}
 
 	protected void checkIfCommitted() {
@@ -212,6 +285,38 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 
 	protected abstract void moveAndAppendSilent(String message);
 
+	/**
+	 * appends the message, overwriting the tail of the buffer if there is no space for it
+	 */
+	static void moveAndAppendSilent(final ByteBuffer buffer, final String message) {
+		final int length = message.length();
+		final int remaining = buffer.remaining();
+		if (remaining < length) {
+			buffer.position(buffer.position() - (length - remaining));
+		}
+		try {
+			BufferFormatter.append(buffer, message);
+		} catch (Throwable e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * appends the message, overwriting the tail of the buffer if there is no space for it
+	 */
+	static void moveAndAppendSilent(final CharBuffer buffer, final String message) {
+		final int length = message.length();
+		final int remaining = buffer.remaining();
+		if (remaining < length) {
+			buffer.position(buffer.position() - (length - remaining));
+		}
+		try {
+			BufferFormatter.append(buffer, message);
+		} catch (Throwable e) {
+			// ignore
+		}
+	}
+
 	@Override
 	public GFLogEntry append(Loggable loggable) {
 		checkIfCommitted();
@@ -804,6 +909,9 @@ abstract class AbstractLocalLogEntry implements LocalLogEntry {
 		commited = true;
 		pattern = null;
 		error = null;
+		if (pool != null) {
+			pool.release(this);
+		}
 	}
 
 	protected abstract void commit0();
@@ -22,10 +22,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.gflogger.appender.AbstractAppender;
+import org.gflogger.appender.AbstractAppenderFactory;
+import org.gflogger.appender.AbstractAsyncAppender;
 import org.gflogger.appender.AppenderFactory;
 import org.gflogger.disruptor.LoggerServiceImpl;
 import org.gflogger.helpers.LogLog;
+import org.gflogger.util.NameRegistry;
 import org.gflogger.util.NamedThreadFactory;
 
 import static org.gflogger.formatter.BufferFormatter.allocate;
@@ -44,12 +52,42 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 
 	protected final ThreadLocal<LocalLogEntry>			logEntryThreadLocal;
 
+	// entries are leased from the pool rather than taken from the thread local
+	protected volatile LocalLogEntryPool				entryPool;
+
 	protected final ExecutorService						executorService;
 
 	protected final boolean								multibyte;
 
+	// message size of a local entry (in bytes)
+	private final int									maxMessageSize0;
+	private final ObjectFormatterFactory				formatterFactory;
+	private final boolean								typeOfByteBuffer;
+
+	// patterns of binary entries
+	protected final NameRegistry						patterns = new NameRegistry();
+
 	protected volatile State 							state = State.NOT_STARTED;
 
+	protected volatile OverflowPolicy					overflowPolicy = OverflowPolicy.BLOCK;
+	protected volatile LogLevel							overflowLevel = LogLevel.WARN;
+	protected volatile long								overflowTimeout = TimeUnit.MILLISECONDS.toNanos(10L);
+
+	private final AtomicLong							droppedCount = new AtomicLong();
+	private final AtomicLongArray						droppedCounts = new AtomicLongArray(LogLevel.values.length);
+
+	// flush policy: 0 / null turns the trigger off
+	protected volatile long								flushMaxAge;
+	protected volatile boolean							flushOnEndOfBatch;
+	protected volatile LogLevel							flushLevel;
+	protected volatile double							flushFillRatio;
+
+	protected final FlushStatistics						flushStatistics = new FlushStatistics();
+
+	// flushAndSync requests and running consumers which handle them
+	private final AtomicLong							syncRequested = new AtomicLong();
+	final List<AbstractEntryHandler<?>>				syncHandlers = new CopyOnWriteArrayList<>();
+
 	/**
 	 * @param count a number of items in the ring, could be rounded up to the next power of 2
 	 * @param maxMessageSize max message size in the ring (in chars)
@@ -71,52 +109,74 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 		this.multibyte = multibyte(appenders);
 
 		// unicode char has 2 bytes
-		final int maxMessageSize0 = multibyte ? maxMessageSize << 1 : maxMessageSize;
+		this.maxMessageSize0 = multibyte ? maxMessageSize << 1 : maxMessageSize;
 
-		final ObjectFormatterFactory formatterFactory =
+		this.formatterFactory =
 			objectFormatterFactory != null
 				? objectFormatterFactory
 				: new DefaultObjectFormatterFactory();
 
 		this.level = initLogLevel(loggers);
 
-		final AbstractLoggerServiceImpl service = this;
-
-		final boolean typeOfByteBuffer = getBooleanProperty("gflogger.bytebuffer", true);
+		this.typeOfByteBuffer = getBooleanProperty("gflogger.bytebuffer", true);
 
 		this.logEntryThreadLocal = new ThreadLocal<LocalLogEntry>() {
 			@Override
 			protected LocalLogEntry initialValue() {
-				final LocalLogEntry logEntry =
-					multibyte
-					? new CharBufferLocalLogEntry(Thread.currentThread(),
-						maxMessageSize0,
-						formatterFactory,
-						service,
-						getFormattingStrategy())
-					: typeOfByteBuffer
-						? new ByteBufferLocalLogEntry(Thread.currentThread(),
-							maxMessageSize0,
-							formatterFactory,
-							service,
-							getFormattingStrategy())
-						: new ByteLocalLogEntry(Thread.currentThread(),
-							maxMessageSize0,
-							formatterFactory,
-							service,
-							getFormattingStrategy());
-				return logEntry;
+				return newEntry();
 			}
 		};
 
 		executorService = initExecutorService();
 	}
 
+	/**
+	 * @return a new entry owned by the current thread
+	 */
+	private LocalLogEntry newEntry() {
+		// zero-copy entries are attached to ring slots, there is no need in own buffer
+		final boolean zeroCopy = zeroCopy();
+		if (binary()) {
+			return new BinaryLocalLogEntry(Thread.currentThread(),
+				zeroCopy ? 0 : binaryMessageSize(maxMessageSize0),
+				formatterFactory,
+				this,
+				getFormattingStrategy(),
+				patterns,
+				multibyte);
+		}
+		final int localMessageSize = zeroCopy ? 0 : maxMessageSize0;
+		final LocalLogEntry logEntry =
+			multibyte
+			? new CharBufferLocalLogEntry(Thread.currentThread(),
+				localMessageSize,
+				formatterFactory,
+				this,
+				getFormattingStrategy())
+			: typeOfByteBuffer || zeroCopy
+				? new ByteBufferLocalLogEntry(Thread.currentThread(),
+					localMessageSize,
+					formatterFactory,
+					this,
+					getFormattingStrategy())
+				: new ByteLocalLogEntry(Thread.currentThread(),
+					maxMessageSize0,
+					formatterFactory,
+					this,
+					getFormattingStrategy());
+		return logEntry;
+	}
+
 	protected static Appender[] createAppenders(AppenderFactory[] appenderFactories) {
 		final Appender[] appenders = new Appender[appenderFactories.length];
 		for (int i = 0; i < appenders.length; i++) {
 			appenderFactories[i].setIndex(i);
 			appenders[i] = appenderFactories[i].createAppender(LoggerServiceImpl.class);
+			if (appenderFactories[i] instanceof AbstractAppenderFactory
+				&& appenders[i] instanceof AbstractAppender) {
+				((AbstractAppender) appenders[i]).setConsumerGroup(
+					((AbstractAppenderFactory) appenderFactories[i]).getConsumerGroup());
+			}
 		}
 		return appenders;
 	}
@@ -158,7 +218,8 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 	protected abstract FormattingStrategy getFormattingStrategy();
 
 	protected ExecutorService initExecutorService() {
-		return Executors.newFixedThreadPool(1, new NamedThreadFactory(name()));
+		// a thread per consumer
+		return Executors.newCachedThreadPool(new NamedThreadFactory(name()));
 	}
 
 	protected LogEntryItemImpl[] initEnties(int count, final int maxMessageSize) {
@@ -188,44 +249,314 @@ public abstract class AbstractLoggerServiceImpl implements LoggerService {
 
 	@Override
 	public GFLogEntry log(final LogLevel level, final String categoryName, final long appenderMask) {
+		final LocalLogEntry entry = entry(level, categoryName, appenderMask, false);
+		return entry != null ? entry : NullLogEntry.INSTANCE;
+	}
+
+	@Override
+	public GFLogEntry tryLog(final LogLevel level, final String categoryName, final long appenderMask) {
+		final LocalLogEntry entry = entry(level, categoryName, appenderMask, true);
+		return entry != null ? entry : NullLogEntry.INSTANCE;
+	}
+
+	@Override
+	public FormattedGFLogEntry formattedLog(LogLevel level, String categoryName,
+			String pattern, final long appenderMask) {
+		final LocalLogEntry entry = entry(level, categoryName, appenderMask, false);
+		if (entry == null) return NullLogEntry.INSTANCE;
+		entry.setPattern(pattern);
+		return entry;
+	}
+
+	@Override
+	public FormattedGFLogEntry tryFormattedLog(LogLevel level, String categoryName,
+			String pattern, final long appenderMask) {
+		final LocalLogEntry entry = entry(level, categoryName, appenderMask, true);
+		if (entry == null) return NullLogEntry.INSTANCE;
+		entry.setPattern(pattern);
+		return entry;
+	}
+
+	/**
+	 * @return entry or <code>null</code> if it has been dropped
+	 */
+	private LocalLogEntry entry(final LogLevel level, final String categoryName,
+			final long appenderMask, final boolean nonBlocking) {
 		if (state == State.STOPPED) throw new IllegalStateException("Logger was stopped.");
 
-		final LocalLogEntry entry = logEntryThreadLocal.get();
+		final LocalLogEntryPool pool = entryPool;
+		final LocalLogEntry entry = pool != null ? pool.lease() : logEntryThreadLocal.get();
 
 		if (!entry.isCommited()) {
 			LogLog.error("ERROR! log message '" + entry.stringValue()
 					+ "' at thread '" + entry.getThreadName() + "' has not been commited properly.");
 			entry.commit();
+			// the pooled entry has been returned on commit
+			if (pool != null) return entry(level, categoryName, appenderMask, nonBlocking);
 		}
 
 		entry.setCommited(false);
+		entry.setNonBlocking(nonBlocking);
 		entry.setLogLevel(level);
 		entry.setCategoryName(categoryName);
 		entry.setAppenderMask(appenderMask);
+		// committed message could be still in the attached slot, it has not to be cleared
+		if (!entryStarted(entry)) {
+			if (pool != null) {
+				entry.setCommited(true);
+				pool.release(entry);
+			}
+			return null;
+		}
 		entry.clear();
 		return entry;
 	}
 
+	/**
+	 * @return <code>true</code> if entries are written directly into ring slots
+	 * claimed by {@link #entryStarted(LocalLogEntry)}
+	 */
+	protected boolean zeroCopy() {
+		return false;
+	}
+
+	/**
+	 * @return <code>true</code> if values are passed to the consumer in the binary
+	 * form and formatted there, see {@link BinaryLocalLogEntry}
+	 */
+	protected boolean binary() {
+		return false;
+	}
+
+	/**
+	 * @return size of binary record (in bytes) for the message of the given size,
+	 * it has a room for tags of values
+	 */
+	protected static int binaryMessageSize(final int maxMessageSize) {
+		return maxMessageSize << 1;
+	}
+
+	/**
+	 * is called when a new entry is started, zero-copy service claims
+	 * a ring slot for it up front
+	 *
+	 * @return <code>false</code> if the entry has been dropped
+	 */
+	protected boolean entryStarted(final LocalLogEntry entry) {
+		return true;
+	}
+
+	/**
+	 * ends the batch of the current thread if any and waits till running consumers
+	 * have written all entries committed so far and forced them to the storage device
+	 */
 	@Override
-	public FormattedGFLogEntry formattedLog(LogLevel level, String categoryName,
-			String pattern, final long appenderMask) {
-		if (state == State.STOPPED) throw new IllegalStateException("Logger was stopped.");
+	public void flushAndSync() {
+		endBatch();
+		final long request = syncRequested.incrementAndGet();
+		wakeUpConsumers();
+		for (final AbstractEntryHandler<?> handler : syncHandlers) {
+			handler.awaitSynced(request);
+		}
+	}
+
+	/**
+	 * wakes up consumers which could wait for new entries without a timeout,
+	 * so they handle a sync request
+	 */
+	protected void wakeUpConsumers() {
+		// nothing, consumers wait for entries with timeout
+	}
+
+	long syncRequested() {
+		return syncRequested.get();
+	}
 
+	/**
+	 * @return batch of the current thread, not ended batch is ended at first;
+	 * <code>null</code> if entries are pooled - there are no batches in this case
+	 */
+	protected final BatchRange newBatch() {
+		if (entryPool != null) return null;
 		final LocalLogEntry entry = logEntryThreadLocal.get();
+		final BatchRange batch = entry.getBatch();
+		if (batch.isActive()) {
+			LogLog.error("ERROR! batch at thread '" + entry.getThreadName()
+					+ "' has not been ended properly.");
+			endBatch();
+		}
+		return batch;
+	}
 
-		if (!entry.isCommited()) {
-			LogLog.error("ERROR! log message '" + entry.stringValue()
-					+ "' at thread '" + entry.getThreadName() + "' has not been commited properly.");
-			entry.commit();
+	/**
+	 * @return batch of the current thread, <code>null</code> if entries are pooled
+	 */
+	protected final BatchRange currentBatch() {
+		return entryPool != null ? null : logEntryThreadLocal.get().getBatch();
+	}
+
+	/**
+	 * makes {@link #log(LogLevel, String, long)} and
+	 * {@link #formattedLog(LogLevel, String, String, long)} lease entries from
+	 * a bounded pool of the given size instead of a thread local entry per thread,
+	 * e.g. for virtual threads. Batches are not supported in this mode,
+	 * an entry which has not been committed is committed on the next message
+	 * of the thread as usual. It has to be set up before the service is in use.
+	 *
+	 * @param size max number of entries, a thread waits for an entry if all of them are in use;
+	 * <code>0</code> turns the pool off
+	 */
+	public void setEntryPoolSize(final int size) {
+		if (size < 0) throw new IllegalArgumentException("expected not negative pool size.");
+		this.entryPool = size == 0 ? null : new LocalLogEntryPool(size) {
+			@Override
+			protected LocalLogEntry initialValue() {
+				return newEntry();
+			}
+		};
+	}
+
+	public int getEntryPoolSize() {
+		final LocalLogEntryPool pool = entryPool;
+		return pool != null ? pool.size() : 0;
+	}
+
+	/**
+	 * sets what producers do when the ring is full,
+	 * it has to be set up before the service is in use
+	 */
+	public void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+		if (overflowPolicy == null) throw new IllegalArgumentException("expected not null overflow policy.");
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * @param overflowLevel entries below the level are dropped by {@link OverflowPolicy#DROP_BELOW_LEVEL}
+	 */
+	public void setOverflowLevel(final LogLevel overflowLevel) {
+		if (overflowLevel == null) throw new IllegalArgumentException("expected not null overflow level.");
+		this.overflowLevel = overflowLevel;
+	}
+
+	public LogLevel getOverflowLevel() {
+		return overflowLevel;
+	}
+
+	/**
+	 * @param timeout how long {@link OverflowPolicy#BLOCK_TIMEOUT} waits for a free entry
+	 */
+	public void setOverflowTimeout(final long timeout, final TimeUnit unit) {
+		this.overflowTimeout = unit.toNanos(timeout);
+	}
+
+	/**
+	 * @param maxAge appenders are flushed once the oldest unflushed entry has been
+	 *			committed the given time ago, <code>0</code> turns it off
+	 */
+	public void setFlushMaxAge(final long maxAge, final TimeUnit unit) {
+		this.flushMaxAge = unit.toMillis(maxAge);
+	}
+
+	/**
+	 * @return max age of unflushed entries (in millis), <code>0</code> if it is off
+	 */
+	public long getFlushMaxAge() {
+		return flushMaxAge;
+	}
+
+	/**
+	 * @param flushOnEndOfBatch flush appenders each time the consumer has handled
+	 *			all entries available at the moment
+	 */
+	public void setFlushOnEndOfBatch(final boolean flushOnEndOfBatch) {
+		this.flushOnEndOfBatch = flushOnEndOfBatch;
+	}
+
+	public boolean isFlushOnEndOfBatch() {
+		return flushOnEndOfBatch;
+	}
+
+	/**
+	 * @param flushLevel appenders are flushed right after an entry of the level or above,
+	 *			<code>null</code> turns it off
+	 */
+	public void setFlushLevel(final LogLevel flushLevel) {
+		this.flushLevel = flushLevel;
+	}
+
+	public LogLevel getFlushLevel() {
+		return flushLevel;
+	}
+
+	/**
+	 * @param flushFillRatio an appender is flushed once its buffer is filled by the ratio
+	 *			(e.g. <code>0.5</code>), <code>0</code> turns it off
+	 */
+	public void setFlushFillRatio(final double flushFillRatio) {
+		if (flushFillRatio < 0.0 || flushFillRatio > 1.0) {
+			throw new IllegalArgumentException("expected flush fill ratio in [0, 1].");
+		}
+		this.flushFillRatio = flushFillRatio;
+		for (final Appender appender : appenders) {
+			if (appender instanceof AbstractAsyncAppender) {
+				((AbstractAsyncAppender) appender).setFlushFillRatio(flushFillRatio);
+			}
 		}
+	}
 
-		entry.setCommited(false);
-		entry.setLogLevel(level);
-		entry.setCategoryName(categoryName);
-		entry.setAppenderMask(appenderMask);
-		entry.clear();
-		entry.setPattern(pattern);
-		return entry;
+	public double getFlushFillRatio() {
+		return flushFillRatio;
+	}
+
+	/**
+	 * @return how long entries have waited between commit and flush
+	 */
+	public FlushStatistics getFlushStatistics() {
+		return flushStatistics;
+	}
+
+	/**
+	 * @return how long (in nanos) the entry could wait for a free slot in the full ring:
+	 * negative value means to wait till the slot is available, <code>0</code> - not to wait at all
+	 */
+	protected final long claimTimeout(final LocalLogEntry entry) {
+		if (entry.isNonBlocking()) return 0L;
+		switch (overflowPolicy) {
+			case DROP:
+				return 0L;
+			case DROP_BELOW_LEVEL:
+				return overflowLevel.greaterThan(entry.getLogLevel()) ? 0L : -1L;
+			case BLOCK_TIMEOUT:
+				return overflowTimeout;
+			default:
+				return -1L;
+		}
+	}
+
+	/**
+	 * counts the entry which has not been put into the full ring by its level
+	 */
+	protected final void entryDropped(final LocalLogEntry entry) {
+		droppedCounts.incrementAndGet(entry.getLogLevel().ordinal());
+		droppedCount.incrementAndGet();
+	}
+
+	/**
+	 * @return a total number of entries dropped due to the full ring
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * @return a number of entries of the level dropped due to the full ring
+	 */
+	public long getDroppedCount(final LogLevel level) {
+		return droppedCounts.get(level.ordinal());
 	}
 
 	@Override
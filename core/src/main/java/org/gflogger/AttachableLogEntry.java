@@ -0,0 +1,33 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.nio.Buffer;
+
+/**
+ * AttachableLogEntry is a buffer based entry which could format its message
+ * right into a slot of the ring, it is used by zero-copy services.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public interface AttachableLogEntry extends LocalLogEntry {
+
+	/**
+	 * makes the entry write directly into the buffer (a slot of the ring)
+	 * instead of its own one, the buffer is cleared
+	 */
+	<T extends Buffer> void attach(T buffer);
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+/**
+ * BatchRange keeps a range of ring sequences claimed by a thread with
+ * {@link LoggerService#beginBatch(int)}, it is owned by the thread's
+ * {@link LocalLogEntry}.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class BatchRange {
+
+	private boolean active;
+	private long lo;
+	private long hi;
+	private long next;
+
+	/**
+	 * starts the batch of range <code>[lo, hi]</code>
+	 */
+	public void begin(final long lo, final long hi) {
+		if (active) throw new IllegalStateException("Batch has been started already.");
+		this.active = true;
+		this.lo = lo;
+		this.hi = hi;
+		this.next = lo;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * @return <code>true</code> if batch is active and has not used sequences
+	 */
+	public boolean hasNext() {
+		return active && next <= hi;
+	}
+
+	/**
+	 * @return the next not used sequence of the batch
+	 */
+	public long next() {
+		return next++;
+	}
+
+	public long getLo() {
+		return lo;
+	}
+
+	public long getHi() {
+		return hi;
+	}
+
+	/**
+	 * @return the first not used sequence of the batch
+	 */
+	public long getNext() {
+		return next;
+	}
+
+	public void end() {
+		active = false;
+	}
+
+}
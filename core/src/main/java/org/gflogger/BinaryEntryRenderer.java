@@ -0,0 +1,230 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import org.gflogger.formatter.BufferFormatter;
+import org.gflogger.helpers.LogLog;
+import org.gflogger.util.NameRegistry;
+
+import static org.gflogger.AbstractLocalLogEntry.appendPatternChunk;
+import static org.gflogger.BinaryLocalLogEntry.*;
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+
+/**
+ * BinaryEntryRenderer renders records of {@link BinaryLocalLogEntry} to text
+ * on the consumer thread.
+ *
+ * <p>
+ * Values are appended by the same {@link BufferFormatter} routines and the
+ * pattern is expanded with the same {@link FormattingStrategy} as the logging thread
+ * does in the regular mode, so is the output.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class BinaryEntryRenderer {
+
+	private final NameRegistry patterns;
+	private final FormattingStrategy strategy;
+	private final LogEntryItemImpl entry;
+	private final boolean multibyte;
+	private final String logErrorsMessage;
+	// pattern chunks are appended the same way as to a local entry
+	private final Appendable chunks = new Appendable() {
+		@Override
+		public Appendable append(final CharSequence csq) {
+			return csq != null ? append(csq, 0, csq.length()) : append("null");
+		}
+
+		@Override
+		public Appendable append(final CharSequence csq, final int start, final int end) {
+			if (csq == null) return append("null", start, end);
+			for (int i = start; i < end; i++) {
+				appendChar(csq.charAt(i));
+			}
+			return this;
+		}
+
+		@Override
+		public Appendable append(final char c) {
+			appendChar(c);
+			return this;
+		}
+	};
+
+	private String pattern;
+	private int pPos;
+
+	/**
+	 * @param entry text entry records are rendered to
+	 */
+	public BinaryEntryRenderer(
+		final NameRegistry patterns,
+		final FormattingStrategy strategy,
+		final LogEntryItemImpl entry,
+		final boolean multibyte
+	) {
+		this.patterns = patterns;
+		this.strategy = strategy;
+		this.entry = entry;
+		this.multibyte = multibyte;
+		this.logErrorsMessage = getStringProperty("gflogger.errorMessage", ">>TRNCTD>>");
+	}
+
+	/**
+	 * @return text entry of the binary record
+	 */
+	public LogEntryItemImpl render(final LogEntryItemImpl record) {
+		entry.setCategoryName(record.getCategoryName());
+		entry.setLogLevel(record.getLogLevel());
+		entry.setThreadName(record.getThreadName());
+		entry.setTimestamp(record.getTimestamp());
+		entry.setAppenderMask(record.getAppenderMask());
+
+		if (multibyte) {
+			entry.getCharBuffer().clear();
+		} else {
+			entry.getBuffer().clear();
+		}
+
+		final ByteBuffer in = record.getBuffer();
+		final int end = in.position();
+		int pos = record.getOffset();
+		pattern = null;
+		while (pos < end) {
+			final byte tag = in.get(pos++);
+			try {
+				switch (tag) {
+				case TEXT: {
+					// position is moved ahead as appending could fail
+					final int length = in.getInt(pos);
+					final int from = pos + 4;
+					pos = from + (multibyte ? length << 1 : length);
+					text(in, from, length);
+					break;
+				}
+				case BOOLEAN:
+					pos++;
+					appendBoolean(in.get(pos - 1) != 0);
+					break;
+				case INT:
+					pos += 4;
+					appendInt(in.getInt(pos - 4));
+					break;
+				case LONG:
+					pos += 8;
+					appendLong(in.getLong(pos - 8));
+					break;
+				case DOUBLE:
+					pos += 12;
+					appendDouble(in.getDouble(pos - 12), in.getInt(pos - 4));
+					break;
+				case PATTERN:
+					pattern = patterns.nameOf(in.getInt(pos));
+					pos += 4;
+					pPos = 0;
+					appendNextPatternChunk();
+					break;
+				case CHUNK:
+					// skip placeholder
+					pPos += 2;
+					appendNextPatternChunk();
+					break;
+				case TRUNCATED:
+					moveAndAppendSilent();
+					break;
+				default:
+					LogLog.error("unknown tag " + tag + " of binary record at " + (pos - 1));
+					pos = end;
+				}
+			} catch (Throwable e) {
+				// there is insufficient space in the text entry
+				moveAndAppendSilent();
+			}
+		}
+		return entry;
+	}
+
+	private void text(final ByteBuffer in, int pos, final int length) {
+		if (multibyte) {
+			final CharBuffer out = entry.getCharBuffer();
+			for (int i = 0; i < length; i++, pos += 2) {
+				out.put(in.getChar(pos));
+			}
+		} else {
+			final ByteBuffer out = entry.getBuffer();
+			for (int i = 0; i < length; i++, pos++) {
+				out.put(in.get(pos));
+			}
+		}
+	}
+
+	private void appendNextPatternChunk() throws IOException {
+		if (pattern == null) return;
+		pPos = appendPatternChunk(strategy, pattern, pPos, chunks);
+	}
+
+	private void appendChar(final char c) {
+		if (multibyte) {
+			entry.getCharBuffer().put(c);
+		} else {
+			BufferFormatter.append(entry.getBuffer(), c);
+		}
+	}
+
+	private void appendBoolean(final boolean b) {
+		if (multibyte) {
+			BufferFormatter.append(entry.getCharBuffer(), b);
+		} else {
+			BufferFormatter.append(entry.getBuffer(), b);
+		}
+	}
+
+	private void appendInt(final int i) {
+		if (multibyte) {
+			BufferFormatter.append(entry.getCharBuffer(), i);
+		} else {
+			BufferFormatter.append(entry.getBuffer(), i);
+		}
+	}
+
+	private void appendLong(final long i) {
+		if (multibyte) {
+			BufferFormatter.append(entry.getCharBuffer(), i);
+		} else {
+			BufferFormatter.append(entry.getBuffer(), i);
+		}
+	}
+
+	private void appendDouble(final double d, final int precision) {
+		if (multibyte) {
+			BufferFormatter.append(entry.getCharBuffer(), d, precision);
+		} else {
+			BufferFormatter.append(entry.getBuffer(), d, precision);
+		}
+	}
+
+	private void moveAndAppendSilent() {
+		if (logErrorsMessage == null) return;
+		if (multibyte) {
+			AbstractLocalLogEntry.moveAndAppendSilent(entry.getCharBuffer(), logErrorsMessage);
+		} else {
+			AbstractLocalLogEntry.moveAndAppendSilent(entry.getBuffer(), logErrorsMessage);
+		}
+	}
+}
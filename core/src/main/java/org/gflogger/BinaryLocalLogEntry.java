@@ -0,0 +1,318 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.gflogger.formatter.BytesOverflow;
+import org.gflogger.util.NameRegistry;
+
+import static org.gflogger.formatter.BufferFormatter.allocate;
+import static org.gflogger.formatter.BufferFormatter.numberOfDigits;
+
+/**
+ * BinaryLocalLogEntry does not format values on the logging thread: it writes
+ * a compact binary record of them, which is rendered to text by
+ * {@link BinaryEntryRenderer} on the consumer thread.
+ *
+ * <p>
+ * Record is a sequence of tagged values in the big-endian order:
+ * text runs (adjacent chars and strings are merged into one run), raw
+ * <code>boolean</code>, <code>int</code>, <code>long</code> and <code>double</code>
+ * values, the pattern as an interned id and pattern chunk marks. Objects are
+ * passed through their {@link ObjectFormatter}s, i.e. end up as text runs and
+ * raw values as well.
+ *
+ * <p>
+ * The size of the rendered text is estimated on the way to report an overflow
+ * of the message the same way as text entries do, the text itself is truncated
+ * by the consumer.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class BinaryLocalLogEntry extends AbstractBufferLocalLogEntry {
+
+	static final byte TEXT		= 1;
+	static final byte BOOLEAN	= 2;
+	static final byte INT		= 3;
+	static final byte LONG		= 4;
+	static final byte DOUBLE	= 5;
+	static final byte PATTERN	= 6;
+	static final byte CHUNK		= 7;
+	static final byte TRUNCATED	= 8;
+
+	// the last byte is reserved for truncated mark
+	private static final int RESERVED = 1;
+
+	private final NameRegistry patterns;
+	private final boolean multibyte;
+
+	// position of the length of the last text run, -1 if the last value is not a text
+	private int textLength = -1;
+	private boolean truncated;
+
+	// estimated size of the rendered message and its limit (in chars)
+	private int textSize;
+	private int textLimit;
+
+	public BinaryLocalLogEntry(
+		final Thread owner,
+		final int maxMessageSize,
+		final ObjectFormatterFactory formatterFactory,
+		final LoggerService loggerService,
+		final FormattingStrategy strategy,
+		final NameRegistry patterns,
+		final boolean multibyte
+	) {
+		super(owner, formatterFactory, loggerService, allocate(maxMessageSize), strategy);
+		this.patterns = patterns;
+		this.multibyte = multibyte;
+		this.byteBuffer.order(ByteOrder.BIG_ENDIAN);
+	}
+
+	@Override
+	public void clear() {
+		byteBuffer.clear();
+		byteBuffer.limit(Math.max(0, byteBuffer.capacity() - RESERVED));
+		textLength = -1;
+		truncated = false;
+		textSize = 0;
+		// binary record has a twice bigger room than a message in the text form
+		textLimit = byteBuffer.capacity() >> (multibyte ? 2 : 1);
+	}
+
+	private void rendered(final int size) {
+		textSize += size;
+		if (textSize > textLimit && error == null) {
+			error = BytesOverflow.BYTES_OVERFLOW;
+		}
+	}
+
+	@Override
+	public <T extends java.nio.Buffer> void copyTo(T buffer) {
+		buffer.clear();
+		((ByteBuffer)buffer).put(this.byteBuffer);
+	}
+
+	@Override
+	public <T extends java.nio.Buffer> void writeTo(T buffer) {
+		((ByteBuffer)buffer).put(this.byteBuffer);
+	}
+
+	@Override
+	public <T extends java.nio.Buffer> void attach(T buffer) {
+		this.byteBuffer = ((ByteBuffer) buffer).order(ByteOrder.BIG_ENDIAN);
+		clear();
+	}
+
+	@Override
+	public int getMessageSize() {
+		return byteBuffer.remaining();
+	}
+
+	@Override
+	public void setPattern(String pattern) {
+		if (pattern == null) throw new IllegalArgumentException("expected not null pattern.");
+
+		this.pattern = pattern;
+		this.pPos = 0;
+		if (tag(PATTERN, 4)) {
+			byteBuffer.putInt(patterns.idOf(pattern));
+		}
+		skipPatternChunk();
+	}
+
+	@Override
+	protected void appendNextPatternChunk() {
+		tag(CHUNK, 0);
+		skipPatternChunk();
+	}
+
+	/**
+	 * pattern chunks are rendered by the consumer, just skip them up to the next placeholder
+	 */
+	private void skipPatternChunk() {
+		final int len = pattern.length();
+		int size = 0;
+		for (; pPos < len; pPos++, size++) {
+			if (strategy.isEscape(pattern, pPos)) {
+				pPos++;
+			} else if (strategy.isPlaceholder(pattern, pPos)) {
+				break;
+			}
+		}
+		rendered(size);
+		if (this.pPos == len && strategy.autocommitEnabled()) {
+			commit();
+		}
+	}
+
+	/**
+	 * writes the tag if there is a room for the tag and its value of the given size
+	 */
+	private boolean tag(final byte tag, final int size) {
+		if (truncated) return false;
+		if (byteBuffer.remaining() < size + 1) {
+			truncate();
+			return false;
+		}
+		byteBuffer.put(tag);
+		textLength = -1;
+		return true;
+	}
+
+	private void truncate() {
+		truncated = true;
+		if (error == null) {
+			error = BytesOverflow.BYTES_OVERFLOW;
+		}
+		byteBuffer.limit(byteBuffer.capacity());
+		if (byteBuffer.hasRemaining()) {
+			byteBuffer.put(TRUNCATED);
+		}
+	}
+
+	/**
+	 * @return a number of chars could be appended to the current text run
+	 */
+	private int text(final int length) {
+		if (truncated) return 0;
+		if (textLength < 0) {
+			if (byteBuffer.remaining() < 5) {
+				truncate();
+				return 0;
+			}
+			byteBuffer.put(TEXT);
+			textLength = byteBuffer.position();
+			byteBuffer.putInt(0);
+		}
+		final int n = Math.min(length, byteBuffer.remaining() / (multibyte ? 2 : 1));
+		byteBuffer.putInt(textLength, byteBuffer.getInt(textLength) + n);
+		return n;
+	}
+
+	private void putChar(final char c) {
+		if (multibyte) {
+			byteBuffer.putChar(c);
+		} else {
+			byteBuffer.put((byte) c);
+		}
+	}
+
+	@Override
+	protected void moveAndAppendSilent(String message) {
+		// the consumer puts error message instead of truncated mark
+		if (!truncated) truncate();
+	}
+
+	@Override
+	public GFLogEntry append(final char c) {
+		checkIfCommitted();
+		rendered(1);
+		if (text(1) == 1) {
+			putChar(c);
+		} else if (!truncated) {
+			truncate();
+		}
+		return this;
+	}
+
+	@Override
+	public GFLogEntry append(final CharSequence csq) {
+		return csq != null ? append(csq, 0, csq.length()) : append(csq, 0, 0);
+	}
+
+	@Override
+	public GFLogEntry append(final CharSequence csq, final int start, final int end) {
+		checkIfCommitted();
+		if (csq == null) {
+			return append('n').append('u').append('l').append('l');
+		}
+		final int length = end - start;
+		rendered(length);
+		final int n = text(length);
+		for (int i = 0; i < n; i++) {
+			putChar(csq.charAt(start + i));
+		}
+		if (n < length && !truncated) {
+			truncate();
+		}
+		return this;
+	}
+
+	@Override
+	public GFLogEntry append(final boolean b) {
+		checkIfCommitted();
+		rendered(b ? 4 : 5);
+		if (tag(BOOLEAN, 1)) {
+			byteBuffer.put((byte) (b ? 1 : 0));
+		}
+		return this;
+	}
+
+	@Override
+	public GFLogEntry append(final int i) {
+		checkIfCommitted();
+		rendered(numberOfDigits(i));
+		if (tag(INT, 4)) {
+			byteBuffer.putInt(i);
+		}
+		return this;
+	}
+
+	@Override
+	public GFLogEntry append(final long i) {
+		checkIfCommitted();
+		rendered(numberOfDigits(i));
+		if (tag(LONG, 8)) {
+			byteBuffer.putLong(i);
+		}
+		return this;
+	}
+
+	@Override
+	public GFLogEntry append(final double i, final int precision) {
+		checkIfCommitted();
+		// integral part, point and fraction digits
+		rendered(numberOfDigits((long) i) + 1 + (precision < 0 ? 8 : precision));
+		if (tag(DOUBLE, 12)) {
+			byteBuffer.putDouble(i);
+			byteBuffer.putInt(precision);
+		}
+		return this;
+	}
+
+	@Override
+	protected void commit0() {
+		byteBuffer.flip();
+	}
+
+	@Override
+	public String stringValue() {
+		return "binary entry of " + byteBuffer.position() + " bytes";
+	}
+
+	@Override
+	public String toString() {
+		return "[binary local of " + getThreadName()
+			+ " " + logLevel
+			+ " pos:" + byteBuffer.position()
+			+ " limit:" + byteBuffer.limit()
+			+ " capacity:" + byteBuffer.capacity()
+			+ "]";
+	}
+
+}
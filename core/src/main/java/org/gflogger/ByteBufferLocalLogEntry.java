@@ -78,17 +78,25 @@ public final class ByteBufferLocalLogEntry extends AbstractBufferLocalLogEntry {
 		((ByteBuffer)buffer).put(this.byteBuffer);
 	}
 
+	@Override
+	public <T extends java.nio.Buffer> void writeTo(T buffer) {
+		((ByteBuffer)buffer).put(this.byteBuffer);
+	}
+
+	@Override
+	public <T extends java.nio.Buffer> void attach(T buffer) {
+		this.byteBuffer = (ByteBuffer) buffer;
+		this.byteBuffer.clear();
+	}
+
+	@Override
+	public int getMessageSize() {
+		return byteBuffer.remaining();
+	}
+
 	@Override
 	protected void moveAndAppendSilent(String message) {
-		final int length = message.length();
-		final int remaining = byteBuffer.remaining();
-		if (remaining < length) {
-			byteBuffer.position(byteBuffer.position() - (length - remaining));
-		}
-		try {
-			BufferFormatter.append(byteBuffer, message);
-		} catch (Throwable e) {
-		}
+		moveAndAppendSilent(byteBuffer, message);
 	}
 
 	@Override
@@ -187,7 +195,7 @@ public final class ByteBufferLocalLogEntry extends AbstractBufferLocalLogEntry {
 
 	@Override
 	public String toString() {
-		return "[local of " + threadName
+		return "[local of " + getThreadName()
 			+ " " + logLevel
 			+ " pos:" + byteBuffer.position()
 			+ " limit:" + byteBuffer.limit()
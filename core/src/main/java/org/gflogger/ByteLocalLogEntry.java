@@ -64,6 +64,16 @@ public final class ByteLocalLogEntry extends AbstractLocalLogEntry {
 		bytes.copyTo((ByteBuffer) buffer);
 	}
 
+	@Override
+	public <T extends Buffer> void writeTo(T buffer) {
+		bytes.copyTo((ByteBuffer) buffer);
+	}
+
+	@Override
+	public int getMessageSize() {
+		return bytes.position();
+	}
+
 	@Override
 	public void clear() {
 		bytes.clear();
@@ -28,7 +28,8 @@ import static org.gflogger.formatter.BufferFormatter.allocate;
  */
 public final class CharBufferLocalLogEntry extends AbstractBufferLocalLogEntry {
 
-	private final CharBuffer buffer;
+	// could be attached to a slot of the ring
+	private CharBuffer buffer;
 
 	public CharBufferLocalLogEntry(
 		final int maxMessageSize,
@@ -71,18 +72,25 @@ public final class CharBufferLocalLogEntry extends AbstractBufferLocalLogEntry {
 		((CharBuffer)buffer).put(this.buffer);
 	}
 
+	@Override
+	public <T extends java.nio.Buffer> void writeTo(T buffer) {
+		((CharBuffer)buffer).put(this.buffer);
+	}
+
+	@Override
+	public <T extends java.nio.Buffer> void attach(T buffer) {
+		this.buffer = (CharBuffer) buffer;
+		this.buffer.clear();
+	}
+
+	@Override
+	public int getMessageSize() {
+		return buffer.remaining();
+	}
+
 	@Override
 	protected void moveAndAppendSilent(String message) {
-		final int length = message.length();
-		final int remaining = buffer.remaining();
-		if (remaining < length) {
-			buffer.position(buffer.position() - (length - remaining));
-		}
-		try {
-			BufferFormatter.append(buffer, message);
-		} catch (Throwable e) {
-			// ignore
-		}
+		moveAndAppendSilent(buffer, message);
 	}
 
 	@Override
@@ -181,7 +189,7 @@ public final class CharBufferLocalLogEntry extends AbstractBufferLocalLogEntry {
 
 	@Override
 	public String toString() {
-		return "[local of " + threadName
+		return "[local of " + getThreadName()
 			+ " " + logLevel
 			+ " pos:" + byteBuffer.position()
 			+ " limit:" + byteBuffer.limit()
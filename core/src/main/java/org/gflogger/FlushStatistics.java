@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FlushStatistics collects how long buffered data has waited between commit of
+ * the oldest entry and the flush which has written it, in millis.
+ *
+ * <p>
+ * It is updated by consumer threads once per flush of unflushed entries and
+ * could be read by any thread.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class FlushStatistics {
+
+	private final AtomicLong flushCount = new AtomicLong();
+	private final AtomicLong totalWait = new AtomicLong();
+	private final AtomicLong maxWait = new AtomicLong();
+
+	void record(final long wait) {
+		flushCount.incrementAndGet();
+		totalWait.addAndGet(wait);
+		long max;
+		while (wait > (max = maxWait.get()) && !maxWait.compareAndSet(max, wait)) {
+			// retry
+		}
+	}
+
+	/**
+	 * @return a number of flushes of unflushed entries
+	 */
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	/**
+	 * @return the longest time the oldest entry of a flush has waited (in millis)
+	 */
+	public long getMaxWait() {
+		return maxWait.get();
+	}
+
+	/**
+	 * @return average time the oldest entry of a flush has waited (in millis)
+	 */
+	public double getAverageWait() {
+		final long count = flushCount.get();
+		return count != 0 ? (double) totalWait.get() / count : 0.0;
+	}
+
+	public void reset() {
+		flushCount.set(0L);
+		totalWait.set(0L);
+		maxWait.set(0L);
+	}
+
+	@Override
+	public String toString() {
+		return "flushes: " + getFlushCount() + ", avg wait: " + getAverageWait()
+			+ " ms, max wait: " + getMaxWait() + " ms";
+	}
+}
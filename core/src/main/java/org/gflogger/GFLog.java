@@ -56,4 +56,79 @@ public interface GFLog {
 	GFLogEntry fatal();
 
 	FormattedGFLogEntry fatal(final String pattern);
+
+	/**
+	 * non-blocking log entry of the given level: on commit it is dropped
+	 * (and counted) if the ring is full instead of waiting for a free entry,
+	 * the same as the blocking one by default
+	 *
+	 * @see LoggerService#tryLog(LogLevel, String, long)
+	 */
+	default GFLogEntry tryLog(final LogLevel level) {
+		switch (level) {
+			case TRACE: return trace();
+			case DEBUG: return debug();
+			case INFO: return info();
+			case WARN: return warn();
+			case ERROR: return error();
+			default: return fatal();
+		}
+	}
+
+	default FormattedGFLogEntry tryLog(final LogLevel level, final String pattern) {
+		switch (level) {
+			case TRACE: return trace(pattern);
+			case DEBUG: return debug(pattern);
+			case INFO: return info(pattern);
+			case WARN: return warn(pattern);
+			case ERROR: return error(pattern);
+			default: return fatal(pattern);
+		}
+	}
+
+	/**
+	 * starts a batch of up to <code>size</code> entries of the current thread
+	 * which are published at once on {@link #endBatch()}, does nothing by default.
+	 * A batch which is not ended holds entries of other threads back, prefer {@link #batch(int)}.
+	 *
+	 * @see LoggerService#beginBatch(int)
+	 */
+	default void beginBatch(final int size) {
+		// nothing
+	}
+
+	default void endBatch() {
+		// nothing
+	}
+
+	/**
+	 * starts a batch as {@link #beginBatch(int)} does and returns the handle
+	 * which ends it on close, so the batch is ended whatever happens in between:
+	 *
+	 * <pre>
+	 * try (Batch batch = log.batch(16)) {
+	 *     log.info().append(...).commit();
+	 *     ...
+	 * }
+	 * </pre>
+	 */
+	default Batch batch(final int size) {
+		beginBatch(size);
+		return new Batch() {
+			@Override
+			public void close() {
+				endBatch();
+			}
+		};
+	}
+
+	/**
+	 * returns once entries committed by the current thread so far are on
+	 * the storage device, it does not need any per entry sync; does nothing by default
+	 *
+	 * @see LoggerService#flushAndSync()
+	 */
+	default void flushAndSync() {
+		// nothing
+	}
 }
@@ -28,6 +28,14 @@ public class GFLogView implements GFLog {
 
 	private final NullLogEntry mockLogEntry;
 
+	// batches are per thread, so the handle is shared by all of them
+	private final Batch batch = new Batch() {
+		@Override
+		public void close() {
+			endBatch();
+		}
+	};
+
 	private final String name;
 
 	public GFLogView(final String name) {
@@ -97,6 +105,20 @@ public class GFLogView implements GFLog {
 			: mockLogEntry;
 	}
 
+	@Override
+	public GFLogEntry tryLog(final LogLevel logLevel) {
+		return hasNecessaryLevel(logLevel)
+			? loggerService.tryLog(logLevel, name, appenderMask[logLevel.ordinal()])
+			: mockLogEntry;
+	}
+
+	@Override
+	public FormattedGFLogEntry tryLog(final LogLevel logLevel, String pattern) {
+		return hasNecessaryLevel(logLevel)
+			? loggerService.tryFormattedLog(logLevel, name, pattern,  appenderMask[logLevel.ordinal()])
+			: mockLogEntry;
+	}
+
 	@Override
 	public boolean isTraceEnabled() {
 		return hasNecessaryLevel(LogLevel.TRACE);
@@ -186,4 +208,34 @@ public class GFLogView implements GFLog {
 	public FormattedGFLogEntry fatal(String pattern) {
 		return formattedLogEntry(LogLevel.FATAL, pattern);
 	}
+
+	@Override
+	public void beginBatch(int size) {
+		final LoggerService service = loggerService();
+		if (service != null) {
+			service.beginBatch(size);
+		}
+	}
+
+	@Override
+	public void endBatch() {
+		final LoggerService service = loggerService();
+		if (service != null) {
+			service.endBatch();
+		}
+	}
+
+	@Override
+	public Batch batch(int size) {
+		beginBatch(size);
+		return batch;
+	}
+
+	@Override
+	public void flushAndSync() {
+		final LoggerService service = loggerService();
+		if (service != null) {
+			service.flushAndSync();
+		}
+	}
 }
@@ -37,18 +37,58 @@ public interface LocalLogEntry extends GFLogEntry, FormattedGFLogEntry {
 
 	String getThreadName();
 
+	Thread getOwner();
+
+	/**
+	 * makes the entry belong to the thread, thread name is taken from it
+	 */
+	void setOwner(Thread owner);
+
+	/**
+	 * @param pool the entry is returned into on commit
+	 */
+	void setPool(LocalLogEntryPool pool);
+
 	long getAppenderMask();
 
 	<T extends Buffer> void copyTo(T buffer);
 
+	/**
+	 * writes committed message to the buffer starting from its current position
+	 */
+	<T extends Buffer> void writeTo(T buffer);
+
+	/**
+	 * @return size of committed message (in bytes, in chars for multibyte entry)
+	 */
+	int getMessageSize();
+
+	/**
+	 * @return sequence of the ring slot claimed up front for the entry,
+	 * <code>-1</code> if there is no such slot
+	 */
+	long getSlot();
+
+	void setSlot(long slot);
+
 	void clear();
 
 	boolean isCommited();
 
 	void setCommited(boolean commited);
 
+	/**
+	 * @return <code>true</code> if the entry has to be dropped on commit
+	 * rather than wait for a free entry in the full ring
+	 */
+	boolean isNonBlocking();
+
+	void setNonBlocking(boolean nonBlocking);
+
 	Throwable getError();
 
+	BatchRange getBatch();
+
 	String stringValue();
 
 }
@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
+
+/**
+ * LocalLogEntryPool is a bounded lock-free pool of {@link LocalLogEntry}s:
+ * an entry is leased when a message is started and comes back on commit, so
+ * the number of entries (and their buffers) is limited by the pool size rather
+ * than by the number of threads which have ever logged, e.g. virtual threads.
+ *
+ * <p>
+ * A lease takes any idle entry starting from the slot picked by the thread id.
+ * Entries are created on demand up to the pool size, after that a lease waits
+ * (yielding) for an entry to be returned. An entry not committed by a thread
+ * which has died is taken back on the way.
+ *
+ * <p>
+ * An entry which has not been committed is leased again by its owner, so the
+ * caller commits it rather than the pool runs out of entries: the entry is kept
+ * in the slot picked by the thread id (if it is free) as long as it is leased,
+ * otherwise it is looked up once all entries are in use.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public abstract class LocalLogEntryPool {
+
+	private final AtomicReferenceArray<LocalLogEntry> entries;
+
+	// leased entries by the slot picked by the thread id of the owner
+	private final AtomicReferenceArray<LocalLogEntry> leased;
+
+	// provides quick mod, mask is like 000111111
+	private final int mask;
+
+	// all created entries, guarded by this
+	private final LocalLogEntry[] created;
+	private final AtomicInteger createdCount = new AtomicInteger();
+
+	/**
+	 * @param size max number of entries, could be rounded up to the next power of 2
+	 */
+	public LocalLogEntryPool(final int size) {
+		if (size <= 0) throw new IllegalArgumentException("expected positive pool size.");
+		final int s = (size & (size - 1)) != 0 ? roundUpNextPower2(size) : size;
+		this.entries = new AtomicReferenceArray<LocalLogEntry>(s);
+		this.leased = new AtomicReferenceArray<LocalLogEntry>(s);
+		this.mask = s - 1;
+		this.created = new LocalLogEntry[s];
+	}
+
+	/**
+	 * @return a new entry owned by the current thread
+	 */
+	protected abstract LocalLogEntry initialValue();
+
+	public LocalLogEntry lease() {
+		final Thread thread = Thread.currentThread();
+		final int start = (int) thread.getId();
+		final int home = start & mask;
+		final LocalLogEntry own = leased.get(home);
+		if (own != null && own.getOwner() == thread && !own.isCommited()) {
+			return own;
+		}
+		while (true) {
+			for (int i = 0; i <= mask; i++) {
+				final int idx = (start + i) & mask;
+				final LocalLogEntry entry = entries.get(idx);
+				if (entry != null && entries.compareAndSet(idx, entry, null)) {
+					entry.setOwner(thread);
+					leased.compareAndSet(home, null, entry);
+					return entry;
+				}
+			}
+
+			final int count = createdCount.get();
+			if (count <= mask) {
+				if (createdCount.compareAndSet(count, count + 1)) {
+					final LocalLogEntry entry = initialValue();
+					entry.setPool(this);
+					synchronized (this) {
+						created[count] = entry;
+					}
+					leased.compareAndSet(home, null, entry);
+					return entry;
+				}
+			} else {
+				final LocalLogEntry uncommited = uncommited(thread);
+				if (uncommited != null) {
+					return uncommited;
+				}
+				if (!releaseAbandoned()) {
+					Thread.yield();
+				}
+			}
+		}
+	}
+
+	public void release(final LocalLogEntry entry) {
+		leased.compareAndSet((int) entry.getOwner().getId() & mask, entry, null);
+		final int start = (int) Thread.currentThread().getId();
+		// there is always a free slot: no more entries than slots are created
+		for (int i = 0; ; i++) {
+			final int idx = (start + i) & mask;
+			if (entries.get(idx) == null && entries.compareAndSet(idx, null, entry)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return an entry which has not been committed by the given thread
+	 */
+	private synchronized LocalLogEntry uncommited(final Thread thread) {
+		for (int i = 0; i < created.length; i++) {
+			final LocalLogEntry entry = created[i];
+			if (entry != null && !entry.isCommited() && entry.getOwner() == thread) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * returns into the pool an entry which has not been committed by a died thread
+	 */
+	private synchronized boolean releaseAbandoned() {
+		for (int i = 0; i < created.length; i++) {
+			final LocalLogEntry entry = created[i];
+			if (entry != null && !entry.isCommited() && !entry.getOwner().isAlive()) {
+				entry.setCommited(true);
+				release(entry);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int size() {
+		return entries.length();
+	}
+
+}
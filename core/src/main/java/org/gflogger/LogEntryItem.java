@@ -37,4 +37,10 @@ public interface LogEntryItem {
 	ByteBuffer getBuffer();
 
 	CharBuffer getCharBuffer();
+
+	/**
+	 * @return offset of the message in the buffer (in bytes),
+	 * the message ends at the current position of the buffer
+	 */
+	int getOffset();
 }
@@ -40,6 +40,7 @@ public final class LogEntryItemImpl extends AbstractLocalLogEntry implements Log
 	private String threadName;
 	private long appenderMask;
 	private long	sequence;
+	private int offset;
 
 	public LogEntryItemImpl(final int size, final FormattingStrategy strategy) {
 		this(size, false, strategy);
@@ -96,6 +97,15 @@ public final class LogEntryItemImpl extends AbstractLocalLogEntry implements Log
 		return charBuffer;
 	}
 
+	@Override
+	public int getOffset() {
+		return offset;
+	}
+
+	public void setOffset(int offset) {
+		this.offset = offset;
+	}
+
 	@Override
 	public void setCategoryName(String name) {
 		this.categoryName = name;
@@ -140,17 +150,19 @@ public final class LogEntryItemImpl extends AbstractLocalLogEntry implements Log
 		((ByteBuffer)buffer).put(this.buffer);
 	}
 
+	@Override
+	public <T extends java.nio.Buffer> void writeTo(T buffer) {
+		((ByteBuffer)buffer).put(this.buffer);
+	}
+
+	@Override
+	public int getMessageSize() {
+		return buffer.remaining();
+	}
+
 	@Override
 	protected void moveAndAppendSilent(String message) {
-		final int length = message.length();
-		final int remaining = buffer.remaining();
-		if (remaining < length) {
-			buffer.position(buffer.position() - (length - remaining));
-		}
-		try {
-			BufferFormatter.append(buffer, message);
-		} catch (Throwable e) {
-		}
+		moveAndAppendSilent(buffer, message);
 	}
 
 	@Override
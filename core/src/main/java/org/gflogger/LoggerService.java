@@ -28,8 +28,61 @@ public interface LoggerService {
 	FormattedGFLogEntry formattedLog(final LogLevel level, final String categoryName,
 		final String pattern, final long appenderMask);
 
+	/**
+	 * non-blocking version of {@link #log(LogLevel, String, long)}: the entry
+	 * is dropped on commit if the ring is full regardless of the overflow policy;
+	 * the same as {@link #log(LogLevel, String, long)} by default
+	 */
+	default GFLogEntry tryLog(final LogLevel level, final String categoryName, final long appenderMask) {
+		return log(level, categoryName, appenderMask);
+	}
+
+	/**
+	 * non-blocking version of {@link #formattedLog(LogLevel, String, String, long)}
+	 *
+	 * @see #tryLog(LogLevel, String, long)
+	 */
+	default FormattedGFLogEntry tryFormattedLog(final LogLevel level, final String categoryName,
+		final String pattern, final long appenderMask) {
+		return formattedLog(level, categoryName, pattern, appenderMask);
+	}
+
 	void entryFlushed(final LocalLogEntry localEntry);
 
+	/**
+	 * claims <code>size</code> entries at once for the following commits of
+	 * the current thread, they are published altogether on {@link #endBatch()}.
+	 *
+	 * <p>
+	 * A full batch is published right away and entries committed above
+	 * <code>size</code> are published one by one, not used entries are
+	 * skipped by appenders. Other threads' entries
+	 * are not seen by appenders till the batch is ended, so keep batches short
+	 * and end them in <code>finally</code> (see {@link GFLog#batch(int)}).
+	 * There is no batching by default.
+	 *
+	 * @param size a number of entries in the batch, could be limited by
+	 * the ring size
+	 */
+	default void beginBatch(final int size) {
+		// nothing
+	}
+
+	/**
+	 * publishes entries claimed by {@link #beginBatch(int)}
+	 */
+	default void endBatch() {
+		// nothing
+	}
+
+	/**
+	 * waits till entries committed by the current thread so far are written
+	 * by appenders and forced to the storage device, does nothing by default
+	 */
+	default void flushAndSync() {
+		// nothing
+	}
+
 	void stop();
 
 	GFLogger[] lookupLoggers(String name);
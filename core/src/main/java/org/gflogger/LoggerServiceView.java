@@ -31,11 +31,41 @@ public class LoggerServiceView implements LoggerService {
 		return service.formattedLog(level, categoryName, pattern, appenderMask);
 	}
 
+	@Override
+	public GFLogEntry tryLog(LogLevel level, String categoryName, final long appenderMask) {
+		return service.tryLog(level, categoryName, appenderMask);
+	}
+
+	@Override
+	public FormattedGFLogEntry tryFormattedLog(
+		final LogLevel level,
+		final String categoryName,
+		final String pattern,
+		final long appenderMask
+	) {
+		return service.tryFormattedLog(level, categoryName, pattern, appenderMask);
+	}
+
 	@Override
 	public void entryFlushed(LocalLogEntry localEntry) {
 		service.entryFlushed(localEntry);
 	}
 
+	@Override
+	public void beginBatch(int size) {
+		service.beginBatch(size);
+	}
+
+	@Override
+	public void endBatch() {
+		service.endBatch();
+	}
+
+	@Override
+	public void flushAndSync() {
+		service.flushAndSync();
+	}
+
 	@Override
 	public GFLogger[] lookupLoggers(String name) {
 		return service.lookupLoggers(name);
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger;
+
+/**
+ * OverflowPolicy defines what a producer thread does when the ring of
+ * the logger service is full, e.g. <code>&lt;service overflowPolicy="DROP" .../&gt;</code>
+ *
+ * <p>
+ * Dropped entries are counted, appenders get a periodic
+ * <i>"N messages dropped"</i> marker.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * producer waits till a free entry is available
+	 */
+	BLOCK,
+
+	/**
+	 * a new entry is dropped
+	 */
+	DROP,
+
+	/**
+	 * entries below the overflow level are dropped, the rest waits as {@link #BLOCK}
+	 */
+	DROP_BELOW_LEVEL,
+
+	/**
+	 * producer waits for a free entry not longer than the overflow timeout,
+	 * and then the entry is dropped
+	 */
+	BLOCK_TIMEOUT
+}
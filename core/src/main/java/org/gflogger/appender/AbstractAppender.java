@@ -19,6 +19,9 @@ public abstract class AbstractAppender implements Appender<LogEntryItemImpl> {
 
 	protected final String name;
 
+	// appenders of the same group are handled by the same consumer thread
+	protected String consumerGroup;
+
 	protected AbstractAppender(
 		final String name,
 		final boolean multibyte,
@@ -51,6 +54,14 @@ public abstract class AbstractAppender implements Appender<LogEntryItemImpl> {
 		return enabled;
 	}
 
+	public String getConsumerGroup() {
+		return consumerGroup;
+	}
+
+	public void setConsumerGroup(final String consumerGroup) {
+		this.consumerGroup = consumerGroup;
+	}
+
 	@Override
 	public void onUncatchException(final Throwable e) {
 		LogLog.error("Unhandled exception in " + Thread.currentThread().getName() + " :" + e.getMessage(), e);
@@ -46,6 +46,7 @@ public abstract class AbstractAppenderFactory<A extends Appender> implements App
 	protected long awaitTimeout;
 	protected boolean enabled;
 	protected int index;
+	protected String consumerGroup;
 
 	public AbstractAppenderFactory() {
 		// 1M
@@ -169,6 +170,18 @@ public abstract class AbstractAppenderFactory<A extends Appender> implements App
 		this.enabled = enabled;
 	}
 
+	public String getConsumerGroup() {
+		return consumerGroup;
+	}
+
+	/**
+	 * appenders of different groups are handled by independent consumers of the ring,
+	 * so a slow appender does not delay the others
+	 */
+	public void setConsumerGroup(String consumerGroup) {
+		this.consumerGroup = consumerGroup;
+	}
+
 	@Override
 	public int getIndex() {
 		return index;
@@ -37,7 +37,8 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 
 	// inner thread buffer
 	protected final CharBuffer	charBuffer;
-	protected final ByteBuffer	byteBuffer;
+	// could be swapped by a double-buffered appender on store
+	protected ByteBuffer		byteBuffer;
 
 	protected Layout			layout;
 	protected boolean			immediateFlush		= false;
@@ -46,6 +47,9 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 
 	// runtime changing properties
 
+	// buffered bytes the buffer is flushed at, see setFlushFillRatio
+	protected volatile int		flushThreshold		= Integer.MAX_VALUE;
+
 	protected volatile boolean	running				= false;
 
 	protected AbstractAsyncAppender(
@@ -97,6 +101,16 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 		this.awaitTimeout = awaitTimeout;
 	}
 
+	/**
+	 * @param flushFillRatio the buffer is flushed once it is filled by the ratio,
+	 *			<code>0</code> turns it off
+	 */
+	public void setFlushFillRatio(final double flushFillRatio) {
+		this.flushThreshold = flushFillRatio > 0.0
+			? Math.max(1, (int) (byteBuffer.capacity() * flushFillRatio))
+			: Integer.MAX_VALUE;
+	}
+
 	@Override
 	public void process(LogEntryItemImpl entry) {
 		if (!enabled || logLevel.greaterThan(entry.getLogLevel())) return;
@@ -114,13 +128,17 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 				charBuffer.clear();
 			}
 
-			buffer.flip();
+			buffer.limit(buffer.position()).position(entry.getOffset() >> 1);
 
 			layout.format(charBuffer, entry);
 
 			buffer.limit(limit0).position(position0);
 
 			processCharBuffer();
+
+			if (byteBuffer.position() + (charBuffer.position() << 1) >= flushThreshold) {
+				flush();
+			}
 		} else {
 			final ByteBuffer buffer = entry.getBuffer();
 
@@ -135,11 +153,15 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 				byteBuffer.clear();
 			}
 
-			buffer.flip();
+			buffer.limit(buffer.position()).position(entry.getOffset());
 
 			layout.format(byteBuffer, entry);
 
 			buffer.limit(limit0).position(position0);
+
+			if (byteBuffer.position() >= flushThreshold) {
+				flush();
+			}
 		}
 	}
 
@@ -147,6 +169,14 @@ public abstract class AbstractAsyncAppender extends AbstractAppender {
 		// empty
 	}
 
+	/**
+	 * forces flushed content to the storage device if the appender has any,
+	 * it is called by the consumer thread right after the flush
+	 */
+	public void sync() {
+		// empty
+	}
+
 	@Override
 	public void flush() {
 		flush(true);
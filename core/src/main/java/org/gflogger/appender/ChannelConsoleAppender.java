@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+import org.gflogger.LogLevel;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * ChannelConsoleAppender
+ *
+ * <p>
+ * Unlike {@link ConsoleAppender} which appends char by char to a synchronized
+ * <code>PrintStream</code>, entries are encoded into the buffer the same way
+ * {@link FileAppender} does and the buffer is written in bulk to the channel
+ * of the standard stream (or to a given channel). The channel of the standard
+ * stream is not closed when the appender stops.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class ChannelConsoleAppender extends AbstractAsyncAppender {
+
+	private static final String NAME = "console";
+
+	protected String codepage = "UTF-8";
+
+	protected CharsetEncoder encoder;
+
+	protected int maxBytesPerChar;
+
+	protected ConsoleTarget target = ConsoleTarget.STDOUT;
+
+	// the channel of the target if it is not set
+	protected WritableByteChannel channel;
+
+	public ChannelConsoleAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(NAME, multibyte, logLevel, enabled);
+	}
+
+	public ChannelConsoleAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(NAME, bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public void setCodepage(final String codepage) {
+		this.codepage = codepage;
+	}
+
+	public void setTarget(final ConsoleTarget target) {
+		this.target = target;
+	}
+
+	public void setChannel(final WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public void start() {
+		encoder = multibyte ? Charset.forName(codepage).newEncoder() : null;
+		maxBytesPerChar = multibyte ? (int) Math.floor(encoder.maxBytesPerChar()) : 1;
+		if (channel == null) {
+			channel = target.openChannel();
+		}
+		super.start();
+	}
+
+	@Override
+	protected void processCharBuffer() {
+		final int remaining = byteBuffer.remaining();
+		final int sizeOfBuffer = maxBytesPerChar * charBuffer.position();
+
+		// store buffer if there it could be no enough space for message
+		if (remaining < sizeOfBuffer) {
+			store();
+		}
+
+		charBuffer.flip();
+		encoder.encode(charBuffer, byteBuffer, true);
+		// there is no reason to check encoding result
+		// as it has been already checked that buffer has enough space
+		charBuffer.clear();
+	}
+
+	@Override
+	public void flush(boolean force) {
+		if (!(force || immediateFlush)) return;
+		store();
+	}
+
+	protected void store() {
+		if (byteBuffer.position() == 0) return;
+		byteBuffer.flip();
+		try {
+			write(byteBuffer);
+		} catch (final IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		} finally {
+			byteBuffer.clear();
+		}
+	}
+
+	protected void write(final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return NAME + ":" + target.name().toLowerCase();
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.nio.channels.WritableByteChannel;
+
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+
+
+/**
+ * ChannelConsoleAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class ChannelConsoleAppenderFactory extends AbstractAppenderFactory<ChannelConsoleAppender> {
+
+	protected String codepage = getStringProperty("gflogger.codepage", "UTF-8");
+	protected ConsoleTarget target = ConsoleTarget.STDOUT;
+	// the channel of the target if it is not set
+	protected WritableByteChannel channel;
+
+	@Override
+	public ChannelConsoleAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		preinit(loggerServiceClass);
+		final ChannelConsoleAppender appender = createAppender();
+
+		appender.setLayout(layout);
+		appender.setImmediateFlush(immediateFlush);
+		appender.setBufferedIOThreshold(bufferedIOThreshold);
+		appender.setAwaitTimeout(awaitTimeout);
+
+		appender.setCodepage(codepage);
+		appender.setTarget(target);
+		appender.setChannel(channel);
+
+		return appender;
+	}
+
+	protected ChannelConsoleAppender createAppender() {
+		return new ChannelConsoleAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public String getCodepage() {
+		return this.codepage;
+	}
+
+	public void setCodepage(String codepage) {
+		this.codepage = codepage;
+	}
+
+	public ConsoleTarget getTarget() {
+		return this.target;
+	}
+
+	public void setTarget(ConsoleTarget target) {
+		this.target = target;
+	}
+
+	public WritableByteChannel getChannel() {
+		return this.channel;
+	}
+
+	public void setChannel(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * ConsoleTarget defines which standard stream a console appender writes to,
+ * e.g. <code>&lt;appender target="STDERR" logLevel="ERROR" .../&gt;</code>
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public enum ConsoleTarget {
+
+	STDOUT(FileDescriptor.out),
+
+	STDERR(FileDescriptor.err);
+
+	private final FileDescriptor fd;
+
+	private ConsoleTarget(final FileDescriptor fd) {
+		this.fd = fd;
+	}
+
+	/**
+	 * @return a channel of the stream, it must not be closed
+	 */
+	public WritableByteChannel openChannel() {
+		return new FileOutputStream(fd).getChannel();
+	}
+}
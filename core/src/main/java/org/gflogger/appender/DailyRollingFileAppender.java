@@ -14,9 +14,11 @@
 
 package org.gflogger.appender;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
@@ -26,6 +28,8 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.gflogger.Layout;
 import org.gflogger.LogEntryItemImpl;
@@ -131,6 +135,14 @@ import org.gflogger.helpers.LogLog;
  * option. The text before the colon is interpeted as the protocol specificaion
  * of a URL which is probably not what you want.
  *
+ * <p>
+ * A rolling thread opens the file for the next period ahead (as
+ * <code>/foo/bar.log.next</code>) and precomputes its name and the next boundary,
+ * so the consumer thread just swaps channels at the boundary without any garbage.
+ * The rolling thread forces and closes the previous file and renames both files.
+ * The rollover is done by the consumer thread itself only if the file opened
+ * ahead is not ready, e.g. the previous rollover is still in progress.
+ *
  * @author Eirik Lygre
  * @author Ceki G&uuml;lc&uuml;
  * @author Vladimir Dolzhenko
@@ -193,6 +205,29 @@ public class DailyRollingFileAppender extends FileAppender {
 	// The utcTimeZone is used only in computeCheckPeriod() method.
 	static final TimeZone utcTimeZone = TimeZone.getTimeZone("UTC");
 
+	static final String NEXT_SUFFIX = ".next";
+
+	// rolling thread: it opens the next file ahead and closes the previous one
+	private Thread roller;
+	private volatile boolean rolling;
+	// the boundary the consumer needs the next file for, it is published after retired
+	private volatile long prepareFrom;
+
+	// the next file opened ahead, its name and its boundary are published by the channel
+	private volatile FileChannel ahead;
+	private long aheadFrom;
+	private String aheadScheduledFilename;
+	private long aheadCheck;
+
+	// the previous file to be closed and renamed by the rolling thread
+	private volatile FileChannel retired;
+	private String retiredFilename;
+
+	// used by the rolling thread only
+	private final Date aheadDate = new Date();
+	private SimpleDateFormat aheadSdf;
+	private RollingCalendar aheadRc;
+
 	/**
 	 * The default constructor does nothing.
 	 */
@@ -374,20 +409,77 @@ public class DailyRollingFileAppender extends FileAppender {
 	public void process(LogEntryItemImpl entry) {
 		long n = entry.getTimestamp();
 		if (n >= nextCheck) {
-			now.setTime(n);
-			nextCheck = rc.getNextCheckMillis(now);
-			try {
-				rollOver();
-			} catch (IOException ioe) {
-				if (ioe instanceof InterruptedIOException) {
-					Thread.currentThread().interrupt();
+			awaitRetired();
+			if (!swap(n)) {
+				now.setTime(n);
+				nextCheck = rc.getNextCheckMillis(now);
+				try {
+					rollOver();
+				} catch (IOException ioe) {
+					if (ioe instanceof InterruptedIOException) {
+						Thread.currentThread().interrupt();
+					}
+					LogLog.error("rollOver() failed.", ioe);
 				}
-				LogLog.error("rollOver() failed.", ioe);
 			}
+			// the file for the following period is opened ahead
+			prepareFrom = nextCheck;
+			LockSupport.unpark(roller);
 		}
 		super.process(entry);
 	}
 
+	/**
+	 * switches to the file opened ahead, the previous file is closed and renamed
+	 * by the rolling thread
+	 *
+	 * @return false if there is no file opened ahead
+	 */
+	private boolean swap(final long n) {
+		final FileChannel next = ahead;
+		if (next == null) return false;
+
+		final String datedFilename;
+		final long check;
+		if (aheadFrom == nextCheck && n < aheadCheck) {
+			datedFilename = aheadScheduledFilename;
+			check = aheadCheck;
+		} else {
+			// there are skipped periods, the first entry of the day or so
+			now.setTime(n);
+			datedFilename = fileName + sdf.format(now);
+			check = rc.getNextCheckMillis(now);
+		}
+		if (datedFilename.equals(scheduledFilename)) {
+			// still within the bounds of the current interval
+			nextCheck = check;
+			return true;
+		}
+
+		// the rest of the previous period goes to the previous file
+		flush();
+		awaitWritten();
+
+		ahead = null;
+		retiredFilename = scheduledFilename;
+		final FileChannel previous = channel;
+		channel = next;
+		scheduledFilename = datedFilename;
+		nextCheck = check;
+		retired = previous;
+		return true;
+	}
+
+	/**
+	 * waits for the rolling thread to finish the previous rollover
+	 */
+	private void awaitRetired() {
+		while (retired != null && roller != null) {
+			LockSupport.unpark(roller);
+			LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+
 	@Override
 	public void start() {
 		now.setTime(System.currentTimeMillis());
@@ -407,7 +499,126 @@ public class DailyRollingFileAppender extends FileAppender {
 		rc = new RollingCalendar(timeZone);
 		rc.setType(type);
 
+		aheadSdf = (SimpleDateFormat) sdf.clone();
+		aheadRc = new RollingCalendar(timeZone);
+		aheadRc.setType(type);
+
+		nextCheck = rc.getNextCheckMillis(now);
+
+		if (datePattern != null) {
+			startRoller();
+		}
+
 		super.start();
+
+		// the file for the first boundary is opened ahead as well
+		prepareFrom = nextCheck;
+		LockSupport.unpark(roller);
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		stopRoller();
+	}
+
+	/*===================== rolling thread =================================*/
+
+	private void startRoller() {
+		rolling = true;
+		roller = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				roll();
+			}
+		}, "gflogger-rolling-" + getName());
+		roller.setDaemon(true);
+		roller.start();
+	}
+
+	private void stopRoller() {
+		if (roller == null) return;
+		rolling = false;
+		LockSupport.unpark(roller);
+		try {
+			roller.join(TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		roller = null;
+		discard(ahead);
+		ahead = null;
+	}
+
+	private void roll() {
+		while (true) {
+			// read before retired: the file for a new boundary is opened ahead only
+			// once the previous file is retired, i.e. the opened ahead one is renamed
+			final long from = prepareFrom;
+			final FileChannel previous = retired;
+			if (previous != null) {
+				retire(previous, retiredFilename);
+				retired = null;
+			}
+			if (!rolling) break;
+
+			if (ahead == null && from != 0L && from != aheadFrom) {
+				openAhead(from);
+			}
+			LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+		}
+	}
+
+	private void openAhead(final long from) {
+		final File file = new File(fileName + NEXT_SUFFIX);
+		try {
+			final FileChannel next = openChannel(file, true);
+			aheadDate.setTime(from);
+			aheadScheduledFilename = fileName + aheadSdf.format(aheadDate);
+			aheadCheck = aheadRc.getNextCheckMillis(aheadDate);
+			aheadFrom = from;
+			ahead = next;
+		} catch (IOException e) {
+			LogLog.warn("Can't open " + file + " ahead: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * closes the previous file and renames it to its dated name, the file opened
+	 * ahead takes the name of the log file
+	 */
+	private void retire(final FileChannel previous, final String datedFilename) {
+		try {
+			trim(previous);
+			previous.force(true);
+			previous.close();
+		} catch (IOException e) {
+			LogLog.error("Can't close " + fileName + ": " + e.getMessage(), e);
+		}
+		try {
+			Files.move(Paths.get(fileName), Paths.get(datedFilename), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(Paths.get(fileName + NEXT_SUFFIX), Paths.get(fileName), StandardCopyOption.REPLACE_EXISTING);
+			LogLog.info("Renamed [" + fileName + "] to [" + datedFilename + "]");
+		} catch (Exception e) {
+			LogLog.error("Failed to rename [" + fileName + "] to [" + datedFilename + "]: ", e);
+		}
+	}
+
+	/**
+	 * closes the file opened ahead and deletes it unless something has been written into it
+	 */
+	private void discard(final FileChannel next) {
+		if (next == null) return;
+		final File file = new File(fileName + NEXT_SUFFIX);
+		try {
+			trim(next);
+			next.close();
+		} catch (IOException e) {
+			LogLog.error("Can't close " + file + ": " + e.getMessage(), e);
+		}
+		if (file.length() == 0L && !file.delete()) {
+			LogLog.warn("Can't delete " + file);
+		}
 	}
 
 	/**
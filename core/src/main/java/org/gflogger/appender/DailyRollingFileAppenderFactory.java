@@ -44,6 +44,10 @@ public class DailyRollingFileAppenderFactory extends FileAppenderFactory<DailyRo
 		appender.setFileName(fileName);
 		appender.setCodepage(codepage);
 		appender.setAppend(append);
+		appender.setDoubleBuffered(doubleBuffered);
+		appender.setDurability(durability);
+		appender.setSyncInterval(syncInterval);
+		appender.setPreallocationSize(preallocationSize);
 
 		appender.setDatePattern(datePattern);
 
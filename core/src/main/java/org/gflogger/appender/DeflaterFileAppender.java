@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.gflogger.LogLevel;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * DeflaterFileAppender
+ *
+ * <p>
+ * Every stored buffer is deflated into an independent block, i.e. a file is a sequence of
+ * blocks, each of them is a header ({@link #BLOCK_MAGIC}, raw length, compressed length
+ * and CRC32 of raw bytes - 4 ints) followed by raw deflate data. Blocks could be read
+ * and skipped separately, see {@link DeflaterFileReader}. An incomplete block at the end
+ * of the file (e.g. after a crash) is cut off once the file is appended again.
+ *
+ * <p>
+ * Buffers are compressed by the thread which writes them - the writer thread in
+ * double-buffered mode and the consumer thread otherwise, never by logging threads.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class DeflaterFileAppender extends FileAppender {
+
+	public static final int BLOCK_MAGIC = 0x47464c5a; // GFLZ
+	public static final int BLOCK_HEADER_SIZE = 16;
+
+	protected int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	private Deflater deflater;
+	private final CRC32 crc = new CRC32();
+	private byte[] input;
+	private byte[] output;
+	private ByteBuffer data;
+	private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+	private final ByteBuffer[] block = new ByteBuffer[2];
+
+	public DeflaterFileAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(multibyte, logLevel, enabled);
+	}
+
+	public DeflaterFileAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public void setCompressionLevel(final int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+	@Override
+	public void setPreallocationSize(final long preallocationSize) {
+		// a deflate block could end with zero bytes, the written length of
+		// a preallocated file could not be restored
+	}
+
+	@Override
+	public void start() {
+		deflater = new Deflater(compressionLevel, true);
+		final int capacity = byteBuffer.capacity();
+		input = new byte[capacity];
+		// enough for incompressible data
+		output = new byte[capacity + (capacity >> 3) + 64];
+		data = ByteBuffer.wrap(output);
+		super.start();
+	}
+
+	/**
+	 * @return a channel positioned after the last complete block of the file,
+	 *			an incomplete block is truncated
+	 */
+	@Override
+	protected FileChannel openChannel(final File file, final boolean append) throws IOException {
+		final FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+		if (!append) {
+			channel.truncate(0L);
+			return channel;
+		}
+		final long length = channel.size();
+		final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+		long position = 0L;
+		while (position + BLOCK_HEADER_SIZE <= length) {
+			blockHeader.clear();
+			while (blockHeader.hasRemaining()) {
+				if (channel.read(blockHeader, position + blockHeader.position()) < 0) break;
+			}
+			if (blockHeader.hasRemaining()) break;
+			final int magic = blockHeader.getInt(0);
+			if (magic != BLOCK_MAGIC) {
+				if (position == 0L && magic != 0) {
+					channel.close();
+					throw new IOException(file.getAbsolutePath() + " is not written by " + getClass().getSimpleName());
+				}
+				// e.g. zeroed tail after a crash
+				break;
+			}
+			final int compressedLength = blockHeader.getInt(8);
+			final long next = position + BLOCK_HEADER_SIZE + compressedLength;
+			if (compressedLength < 0 || next > length) break;
+			position = next;
+		}
+		if (position < length) {
+			LogLog.warn("Incomplete block of " + (length - position) + " bytes at "
+				+ position + " is truncated at " + file.getAbsolutePath());
+			channel.truncate(position);
+		}
+		channel.position(position);
+		return channel;
+	}
+
+	@Override
+	protected void workerIsAboutToFinish() {
+		super.workerIsAboutToFinish();
+		deflater.end();
+	}
+
+	@Override
+	protected void write(final ByteBuffer buffer) throws IOException {
+		final int length = buffer.remaining();
+		if (length == 0) return;
+
+		buffer.get(input, 0, length);
+		deflater.reset();
+		deflater.setInput(input, 0, length);
+		deflater.finish();
+		int size = 0;
+		while (!deflater.finished()) {
+			if (size == output.length) {
+				output = Arrays.copyOf(output, output.length << 1);
+				data = ByteBuffer.wrap(output);
+			}
+			size += deflater.deflate(output, size, output.length - size);
+		}
+
+		crc.reset();
+		crc.update(input, 0, length);
+
+		header.clear();
+		header.putInt(BLOCK_MAGIC).putInt(length).putInt(size).putInt((int) crc.getValue());
+		header.flip();
+		data.limit(size).position(0);
+
+		block[0] = header;
+		block[1] = data;
+		while (data.hasRemaining()) {
+			channel.write(block);
+		}
+	}
+}
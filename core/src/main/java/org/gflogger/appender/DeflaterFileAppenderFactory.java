@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.util.zip.Deflater;
+
+import org.gflogger.LoggerService;
+
+/**
+ * DeflaterFileAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class DeflaterFileAppenderFactory extends FileAppenderFactory<DeflaterFileAppender> {
+
+	/**
+	 * deflate level 0-9, {@link Deflater#DEFAULT_COMPRESSION} by default
+	 */
+	protected int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	@Override
+	public DeflaterFileAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		final DeflaterFileAppender appender = super.createAppender(loggerServiceClass);
+
+		appender.setCompressionLevel(compressionLevel);
+
+		return appender;
+	}
+
+	@Override
+	protected DeflaterFileAppender createAppender() {
+		return new DeflaterFileAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public int getCompressionLevel() {
+		return this.compressionLevel;
+	}
+
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.gflogger.appender.DeflaterFileAppender.BLOCK_HEADER_SIZE;
+import static org.gflogger.appender.DeflaterFileAppender.BLOCK_MAGIC;
+
+/**
+ * DeflaterFileReader reads a file written by {@link DeflaterFileAppender} block by block.
+ *
+ * <pre>
+ * java -cp gflogger.jar org.gflogger.appender.DeflaterFileReader &lt;file&gt; [first block]
+ * </pre>
+ *
+ * <p>
+ * An incomplete block at the end of the file (e.g. after a crash) is treated as the end of the file.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class DeflaterFileReader implements Closeable {
+
+	private final FileChannel channel;
+	private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+	private final Inflater inflater = new Inflater(true);
+	private final CRC32 crc = new CRC32();
+
+	private int rawLength;
+	private int compressedLength;
+	private int checksum;
+
+	public DeflaterFileReader(final File file) throws IOException {
+		this.channel = new FileInputStream(file).getChannel();
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: " + DeflaterFileReader.class.getName() + " <file> [first block]");
+			System.exit(1);
+		}
+		try (DeflaterFileReader reader = new DeflaterFileReader(new File(args[0]))) {
+			if (args.length > 1) {
+				reader.skip(Integer.parseInt(args[1]));
+			}
+			byte[] block;
+			while ((block = reader.next()) != null) {
+				System.out.write(block);
+			}
+			System.out.flush();
+		}
+	}
+
+	/**
+	 * @return file offset of the next block
+	 */
+	public long position() throws IOException {
+		return channel.position();
+	}
+
+	/**
+	 * @param offset file offset of a block, e.g. obtained by {@link #position()}
+	 */
+	public void position(final long offset) throws IOException {
+		channel.position(offset);
+	}
+
+	/**
+	 * skips blocks reading their headers only
+	 *
+	 * @return number of skipped blocks
+	 */
+	public int skip(final int blocks) throws IOException {
+		int skipped = 0;
+		while (skipped < blocks && readHeader()) {
+			channel.position(channel.position() + compressedLength);
+			skipped++;
+		}
+		return skipped;
+	}
+
+	/**
+	 * @return content of the next block or <code>null</code> if there are no more complete blocks
+	 */
+	public byte[] next() throws IOException {
+		final long start = channel.position();
+		if (!readHeader()) return null;
+
+		// an extra dummy byte is expected by nowrap inflater
+		final ByteBuffer compressed = ByteBuffer.allocate(compressedLength + 1);
+		compressed.limit(compressedLength);
+		while (compressed.hasRemaining()) {
+			if (channel.read(compressed) < 0) {
+				// incomplete block
+				channel.position(start);
+				return null;
+			}
+		}
+
+		final byte[] raw = new byte[rawLength];
+		inflater.reset();
+		inflater.setInput(compressed.array(), 0, compressedLength + 1);
+		try {
+			int size = 0;
+			while (size < rawLength && !inflater.finished()) {
+				final int n = inflater.inflate(raw, size, rawLength - size);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+				size += n;
+			}
+			if (size != rawLength) {
+				throw new IOException("Corrupted block at " + start + ": " + size + " of " + rawLength + " bytes");
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupted block at " + start + ": " + e.getMessage(), e);
+		}
+
+		crc.reset();
+		crc.update(raw, 0, rawLength);
+		if ((int) crc.getValue() != checksum) {
+			throw new IOException("Corrupted block at " + start + ": checksum mismatch");
+		}
+		return raw;
+	}
+
+	private boolean readHeader() throws IOException {
+		final long start = channel.position();
+		header.clear();
+		while (header.hasRemaining()) {
+			if (channel.read(header) < 0) {
+				channel.position(start);
+				return false;
+			}
+		}
+		header.flip();
+		if (header.getInt() != BLOCK_MAGIC) {
+			throw new IOException("Not a block at " + start);
+		}
+		rawLength = header.getInt();
+		compressedLength = header.getInt();
+		checksum = header.getInt();
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		inflater.end();
+		channel.close();
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.gflogger.LogLevel;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * DirectFileAppender
+ *
+ * <p>
+ * The file is opened with <code>O_DIRECT</code> (<code>ExtendedOpenOption.DIRECT</code>,
+ * JDK 10+ on Linux) so writes bypass the page cache, and only whole aligned blocks
+ * are written from an aligned direct buffer. A partial tail block is written padded
+ * with zeros and carried over to be written again along with the next buffer,
+ * the padding is trimmed when the file is closed.
+ *
+ * <p>
+ * If the JDK or the file system does not support direct I/O the file is written
+ * through the page cache the same way.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class DirectFileAppender extends FileAppender {
+
+	private static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	// JDK 10+ API, there is no way to refer to it directly
+	private static final OpenOption DIRECT = loadDirectOption();
+	private static final Method ALIGNED_SLICE = loadMethod(ByteBuffer.class, "alignedSlice", int.class);
+	private static final Method BLOCK_SIZE = loadMethod(FileStore.class, "getBlockSize");
+
+	// in bytes, it is rounded up to the block size of the file store
+	protected int blockSize;
+
+	// aligned part of the allocated memory: the carried over tail and the buffer to write
+	private ByteBuffer block;
+	// file offset of the block
+	private long blockOffset;
+	private boolean direct;
+
+	public DirectFileAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(multibyte, logLevel, enabled);
+	}
+
+	public DirectFileAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public void setBlockSize(final int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	@Override
+	public void setPreallocationSize(final long preallocationSize) {
+		// blocks are written at their own offsets
+	}
+
+	/**
+	 * @return whether the file is written bypassing the page cache
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+
+	@Override
+	protected void createFileChannel() throws FileNotFoundException {
+		final File file = new File(fileName);
+		final File folder = file.getAbsoluteFile().getParentFile();
+		if (!folder.exists()) {
+			if (!folder.mkdirs()) {
+				throw new FileNotFoundException("Can't create folder " + folder.getAbsolutePath());
+			}
+		}
+		final Path path = file.toPath();
+		try {
+			// direct I/O requires multiples of the block size of the file store
+			final int storeBlockSize = blockSize(folder.toPath());
+			blockSize = blockSize <= storeBlockSize ? storeBlockSize :
+				(blockSize + storeBlockSize - 1) / storeBlockSize * storeBlockSize;
+			if (block == null) {
+				allocateBlock();
+			}
+			block.clear();
+
+			// the tail of the existing file is carried over
+			final long length = append && file.exists() ? file.length() : 0L;
+			final int tail = (int) (length % blockSize);
+			blockOffset = length - tail;
+			if (tail > 0) {
+				try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+					block.limit(tail);
+					while (block.hasRemaining()) {
+						if (in.read(block, blockOffset + block.position()) < 0) break;
+					}
+					block.limit(block.capacity());
+				}
+			}
+
+			channel = open(path, append);
+		} catch (final IOException e) {
+			throw new FileNotFoundException("Can't open " + file.getAbsolutePath() + ": " + e.getMessage());
+		}
+	}
+
+	private FileChannel open(final Path path, final boolean append) throws IOException {
+		final OpenOption truncate = append ? StandardOpenOption.WRITE : StandardOpenOption.TRUNCATE_EXISTING;
+		if (DIRECT != null && ALIGNED_SLICE != null) {
+			try {
+				direct = true;
+				return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, truncate, DIRECT);
+			} catch (IOException | UnsupportedOperationException e) {
+				LogLog.warn("Can't open " + path + " for direct I/O, it is written through the page cache: "
+					+ e.getMessage());
+			}
+		}
+		direct = false;
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, truncate);
+	}
+
+	private void allocateBlock() {
+		// the tail block and the whole buffer rounded up to blocks
+		final int capacity = ((byteBuffer.capacity() + blockSize - 1) / blockSize + 1) * blockSize;
+		// it is left to GC, DirectBufferUtils could not reach the cleaner on JDK 9+
+		final ByteBuffer memory = ByteBuffer.allocateDirect(capacity + blockSize);
+		ByteBuffer aligned = memory;
+		if (ALIGNED_SLICE != null) {
+			try {
+				aligned = (ByteBuffer) ALIGNED_SLICE.invoke(memory, blockSize);
+			} catch (Exception e) {
+				LogLog.warn("Can't align buffer: " + e.getMessage());
+			}
+		}
+		aligned.limit(capacity);
+		block = aligned.slice();
+	}
+
+	/**
+	 * writes whole blocks of the carried over tail and the buffer, a partial tail
+	 * block is padded and carried over
+	 */
+	@Override
+	protected void write(final ByteBuffer buffer) throws IOException {
+		block.put(buffer);
+		final int length = block.position();
+		final int aligned = (length + blockSize - 1) / blockSize * blockSize;
+		for (int i = length; i < aligned; i++) {
+			block.put(i, (byte) 0);
+		}
+		block.limit(aligned).position(0);
+		while (block.hasRemaining()) {
+			channel.write(block, blockOffset + block.position());
+		}
+
+		final int full = length - length % blockSize;
+		block.limit(length).position(full);
+		block.compact();
+		blockOffset += full;
+	}
+
+	@Override
+	protected void closeFile() {
+		awaitWritten();
+		try {
+			// trims the padding of the tail block
+			channel.truncate(blockOffset + block.position());
+		} catch (IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		}
+		super.closeFile();
+	}
+
+	private int blockSize(final Path folder) {
+		if (BLOCK_SIZE != null) {
+			try {
+				final FileStore store = Files.getFileStore(folder);
+				return (int) (long) (Long) BLOCK_SIZE.invoke(store);
+			} catch (Exception e) {
+				LogLog.debug("Can't get block size of " + folder + ": " + e.getMessage());
+			}
+		}
+		return DEFAULT_BLOCK_SIZE;
+	}
+
+	private static OpenOption loadDirectOption() {
+		try {
+			final Class<?> clazz = Class.forName("com.sun.nio.file.ExtendedOpenOption");
+			for (final Object option : clazz.getEnumConstants()) {
+				if ("DIRECT".equals(((Enum<?>) option).name())) {
+					return (OpenOption) option;
+				}
+			}
+		} catch (ClassNotFoundException e) {
+			// there is no such option
+		}
+		return null;
+	}
+
+	private static Method loadMethod(final Class<?> clazz, final String name, final Class<?> ... types) {
+		try {
+			return clazz.getMethod(name, types);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "directFile:" + fileName;
+	}
+}
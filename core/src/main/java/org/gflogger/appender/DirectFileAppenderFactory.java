@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+/**
+ * DirectFileAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class DirectFileAppenderFactory extends FileAppenderFactory<DirectFileAppender> {
+
+	// in bytes, the block size of the file store by default
+	protected int blockSize;
+
+	@Override
+	public DirectFileAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		final DirectFileAppender appender = super.createAppender(loggerServiceClass);
+		appender.setBlockSize(blockSize);
+		return appender;
+	}
+
+	@Override
+	protected DirectFileAppender createAppender() {
+		return new DirectFileAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+/**
+ * Durability defines when a file appender forces written content to the storage
+ * device, e.g. <code>&lt;appender durability="GROUP_COMMIT" .../&gt;</code>
+ *
+ * <p>
+ * Regardless of the level the file is forced when it is closed and on
+ * {@link org.gflogger.GFLog#flushAndSync()}.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public enum Durability {
+
+	/**
+	 * content is as durable as the page cache makes it
+	 */
+	NONE,
+
+	/**
+	 * a background thread forces the file every sync interval
+	 */
+	PERIODIC,
+
+	/**
+	 * the file is forced right after an entry of ERROR level or above
+	 */
+	ERROR,
+
+	/**
+	 * the file is forced on each flush, so all entries written by the flush
+	 * share the same force
+	 */
+	GROUP_COMMIT
+}
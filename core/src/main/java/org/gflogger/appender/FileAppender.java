@@ -18,17 +18,42 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.gflogger.Layout;
+import org.gflogger.LogEntryItemImpl;
 import org.gflogger.LogLevel;
 import org.gflogger.helpers.LogLog;
 
+import static org.gflogger.formatter.BufferFormatter.allocate;
+
 /**
  * FileAppender
  *
+ * <p>
+ * In double-buffered mode a filled buffer is handed over to a dedicated writer
+ * thread and the appender goes on with the spare one, so formatting and writes
+ * overlap. The appender waits only if the writer has not finished the previous
+ * buffer yet.
+ *
+ * <p>
+ * Written content is forced to the storage device according to the {@link Durability}
+ * level, e.g. periodically by a background thread or once per flush.
+ *
+ * <p>
+ * If the preallocation size is set the file is extended ahead in chunks of the size
+ * (sparse), so appends do not change the file size each time, and it is trimmed to
+ * the written length on close. The written length of a file which has not been
+ * closed properly is the position after the last non-zero code unit of the encoding,
+ * e.g. the last 2 bytes in UTF-16, so only trailing NUL chars could be lost.
+ *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
 public class FileAppender extends AbstractAsyncAppender {
@@ -40,11 +65,38 @@ public class FileAppender extends AbstractAsyncAppender {
 	protected String codepage = "UTF-8";
 
 	protected CharsetEncoder encoder;
-	protected FileChannel channel;
+	// could be forced by the sync thread
+	protected volatile FileChannel channel;
 
 	protected boolean append = true;
 
+	protected boolean doubleBuffered = false;
+
+	protected Durability durability = Durability.NONE;
+	// in ms
+	protected long syncInterval = 1000L;
+
+	// in bytes, 0 if the file is not preallocated
+	protected long preallocationSize;
+	// preallocated length of the channel
+	private FileChannel allocatedChannel;
+	private long allocated;
+	private final ByteBuffer zero = ByteBuffer.allocate(1);
+
 	protected int maxBytesPerChar;
+	// bytes of a code unit of the encoding the written length is aligned to
+	protected int codeUnitSize = 1;
+
+	// double-buffered mode: a buffer to be written and a buffer to be filled next
+	private Thread writer;
+	private volatile boolean writing;
+	private volatile ByteBuffer pending;
+	private volatile ByteBuffer spare;
+	private volatile Thread waiter;
+
+	// periodic durability: a thread forces the file every sync interval
+	private Thread syncer;
+	private volatile boolean syncing;
 
 	public FileAppender(
 		final boolean multibyte,
@@ -99,6 +151,33 @@ public class FileAppender extends AbstractAsyncAppender {
 		this.append = append;
 	}
 
+	public void setDoubleBuffered(final boolean doubleBuffered) {
+		this.doubleBuffered = doubleBuffered;
+	}
+
+	public void setDurability(final Durability durability) {
+		this.durability = durability;
+	}
+
+	public void setSyncInterval(final long syncInterval) {
+		this.syncInterval = syncInterval;
+	}
+
+	public void setPreallocationSize(final long preallocationSize) {
+		this.preallocationSize = preallocationSize;
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		super.process(entry);
+		if (durability == Durability.ERROR && enabled
+			&& !LogLevel.ERROR.greaterThan(entry.getLogLevel())
+			&& !logLevel.greaterThan(entry.getLogLevel())) {
+			flush();
+			sync();
+		}
+	}
+
 	@Override
 	protected void processCharBuffer() {
 		final int remaining = byteBuffer.remaining();
@@ -119,13 +198,36 @@ public class FileAppender extends AbstractAsyncAppender {
 	@Override
 	public void flush(boolean force) {
 		if (!(force || immediateFlush)) return;
-		store("flushCharBuffer");
+		if (store("flushCharBuffer") && durability == Durability.GROUP_COMMIT) {
+			sync();
+		}
+	}
+
+	/**
+	 * waits for the written content and forces it to the storage device
+	 */
+	@Override
+	public void sync() {
+		awaitWritten();
+		force();
+	}
+
+	private void force() {
+		try {
+			channel.force(false);
+		} catch (ClosedChannelException e) {
+			// a rolled over file is forced on close
+		} catch (IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		}
 	}
 
 	@Override
 	protected void workerIsAboutToFinish() {
 		store("workerIsAboutFinish");
 		closeFile();
+		stopWriter();
 	}
 
 	@Override
@@ -133,14 +235,130 @@ public class FileAppender extends AbstractAsyncAppender {
 		try {
 			encoder = multibyte ? Charset.forName(codepage).newEncoder() : null;
 			maxBytesPerChar = multibyte ? (int) Math.floor(encoder.maxBytesPerChar()) : 1;
+			codeUnitSize = multibyte ? codeUnitSize(encoder.charset()) : 1;
 			createFileChannel();
 		} catch (final FileNotFoundException e) {
 			throw new RuntimeException(e.getMessage(), e);
 		}
 
+		if (doubleBuffered) {
+			startWriter();
+		}
+		if (durability == Durability.PERIODIC) {
+			startSyncer();
+		}
+
 		super.start();
 	}
 
+	@Override
+	public void stop() {
+		stopSyncer();
+		super.stop();
+	}
+
+	private void startSyncer() {
+		syncing = true;
+		syncer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (syncing) {
+					LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(syncInterval));
+					if (syncing) {
+						force();
+					}
+				}
+			}
+		}, "gflogger-sync-" + getName());
+		syncer.setDaemon(true);
+		syncer.start();
+	}
+
+	private void stopSyncer() {
+		if (syncer == null) return;
+		syncing = false;
+		LockSupport.unpark(syncer);
+		try {
+			syncer.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		syncer = null;
+	}
+
+	private void startWriter() {
+		final ByteBuffer buffer = allocate(byteBuffer.capacity());
+		buffer.clear();
+		spare = buffer;
+		writing = true;
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				write();
+			}
+		}, "gflogger-" + getName());
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	private void stopWriter() {
+		if (writer == null) return;
+		writing = false;
+		LockSupport.unpark(writer);
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writer = null;
+	}
+
+	/**
+	 * a loop of the writer thread
+	 */
+	private void write() {
+		while (true) {
+			final ByteBuffer buffer = pending;
+			if (buffer == null) {
+				if (!writing) break;
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(awaitTimeout));
+				continue;
+			}
+			try {
+				preallocate(buffer.remaining());
+				write(buffer);
+			} catch (final IOException e) {
+				LogLog.error("[" + Thread.currentThread().getName()
+					+ "] exception at " + getName() + " - " + e.getMessage(), e);
+			} finally {
+				buffer.clear();
+				pending = null;
+				spare = buffer;
+				final Thread thread = waiter;
+				if (thread != null) {
+					LockSupport.unpark(thread);
+				}
+			}
+		}
+	}
+
+	/**
+	 * waits for the writer to write the pending buffer
+	 *
+	 * @return the spare buffer
+	 */
+	private ByteBuffer awaitSpare() {
+		ByteBuffer buffer;
+		while ((buffer = spare) == null) {
+			waiter = Thread.currentThread();
+			if (spare == null) {
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(awaitTimeout));
+			}
+		}
+		waiter = null;
+		return buffer;
+	}
+
 	protected void createFileChannel() throws FileNotFoundException {
 		final File file = new File(fileName);
 		final File folder = file.getParentFile();
@@ -149,12 +367,111 @@ public class FileAppender extends AbstractAsyncAppender {
 				throw new FileNotFoundException("Can't create folder " + folder.getAbsolutePath());
 			}
 		}
-		final FileOutputStream fout = new FileOutputStream(file, append);
-		channel = fout.getChannel();
+		try {
+			channel = openChannel(file, append);
+		} catch (final IOException e) {
+			throw new FileNotFoundException("Can't open " + file.getAbsolutePath() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return a channel positioned at the written length of the file
+	 */
+	protected FileChannel openChannel(final File file, final boolean append) throws IOException {
+		if (preallocationSize <= 0) {
+			return new FileOutputStream(file, append).getChannel();
+		}
+		final FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+		if (!append) {
+			channel.truncate(0L);
+		}
+		channel.position(writtenLength(channel));
+		return channel;
+	}
+
+	/**
+	 * @return bytes of a code unit of the charset, e.g. 1 for UTF-8, 2 for UTF-16
+	 */
+	private static int codeUnitSize(final Charset charset) {
+		// a byte order mark is excluded
+		return "AA".getBytes(charset).length - "A".getBytes(charset).length;
+	}
+
+	/**
+	 * @return the position after the last non-zero code unit of the file
+	 */
+	protected final long writtenLength(final FileChannel channel) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+		long end = channel.size();
+		while (end > 0) {
+			final int n = (int) Math.min(buffer.capacity(), end);
+			buffer.clear().limit(n);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, end - n + buffer.position()) < 0) break;
+			}
+			for (int i = n - 1; i >= 0; i--) {
+				if (buffer.get(i) != 0) {
+					// zero bytes of the last code unit are a part of it
+					final long length = end - n + i + 1;
+					return (length + codeUnitSize - 1) / codeUnitSize * codeUnitSize;
+				}
+			}
+			end -= n;
+		}
+		return 0L;
+	}
+
+	/**
+	 * extends the file by the preallocation size if the next <code>length</code> bytes
+	 * do not fit into the preallocated part
+	 */
+	protected final void preallocate(final int length) throws IOException {
+		if (preallocationSize <= 0) return;
+		final FileChannel channel = this.channel;
+		if (channel != allocatedChannel) {
+			// the file has been rolled over
+			allocatedChannel = channel;
+			allocated = channel.size();
+		}
+		final long end = channel.position() + length;
+		if (end <= allocated) return;
+		allocated = (end / preallocationSize + 1) * preallocationSize;
+		zero.clear();
+		// the last byte of the chunk, the rest is a hole
+		channel.write(zero, allocated - 1);
+	}
+
+	/**
+	 * trims a preallocated file to the written length
+	 */
+	protected final void trim(final FileChannel channel) throws IOException {
+		if (preallocationSize > 0) {
+			channel.truncate(channel.position());
+		}
+	}
+
+	/**
+	 * writes the buffer to the file, it is called by the writer thread in double-buffered mode
+	 */
+	protected void write(final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * waits for the writer thread to write the pending buffer to the current file
+	 */
+	protected void awaitWritten() {
+		if (writer != null) {
+			awaitSpare();
+		}
 	}
 
 	protected void closeFile() {
+		awaitWritten();
 		try {
+			trim(channel);
 			channel.force(true);
 			channel.close();
 		} catch (IOException e) {
@@ -165,6 +482,15 @@ public class FileAppender extends AbstractAsyncAppender {
 
 	protected boolean store(final String cause) {
 		if (byteBuffer.position() == 0) return false;
+		if (writer != null) {
+			final ByteBuffer buffer = awaitSpare();
+			spare = null;
+			byteBuffer.flip();
+			pending = byteBuffer;
+			LockSupport.unpark(writer);
+			byteBuffer = buffer;
+			return true;
+		}
 		byteBuffer.flip();
 		try {
 			/*/
@@ -178,7 +504,8 @@ public class FileAppender extends AbstractAsyncAppender {
 				((end - start) / 1000 / 1e3) + " ms";
 			LogLog.debug(msg);
 			/*/
-			channel.write(byteBuffer);
+			preallocate(byteBuffer.remaining());
+			write(byteBuffer);
 			//*/
 		} catch (final IOException e) {
 			LogLog.error("[" + Thread.currentThread().getName()
@@ -17,6 +17,7 @@ package org.gflogger.appender;
 import org.gflogger.LoggerService;
 
 import static org.gflogger.helpers.OptionConverter.getBooleanProperty;
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
 import static org.gflogger.helpers.OptionConverter.getStringProperty;
 
 
@@ -30,6 +31,12 @@ public class FileAppenderFactory<A extends FileAppender> extends AbstractAppende
 	protected String fileName = getStringProperty("gflogger.filename", null);
 	protected String codepage = getStringProperty("gflogger.codepage", "UTF-8");
 	protected boolean append = getBooleanProperty("gflogger.append", true);
+	protected boolean doubleBuffered = getBooleanProperty("gflogger.doubleBuffered", false);
+	protected Durability durability = Durability.valueOf(getStringProperty("gflogger.durability", "NONE"));
+	// in ms
+	protected long syncInterval = getIntProperty("gflogger.syncInterval", 1000);
+	// in bytes
+	protected long preallocationSize = getIntProperty("gflogger.preallocationSize", 0);
 
 	@Override
 	public A createAppender(Class<? extends LoggerService> loggerServiceClass) {
@@ -44,6 +51,10 @@ public class FileAppenderFactory<A extends FileAppender> extends AbstractAppende
 		appender.setFileName(fileName);
 		appender.setCodepage(codepage);
 		appender.setAppend(append);
+		appender.setDoubleBuffered(doubleBuffered);
+		appender.setDurability(durability);
+		appender.setSyncInterval(syncInterval);
+		appender.setPreallocationSize(preallocationSize);
 
 		return appender;
 	}
@@ -79,4 +90,36 @@ public class FileAppenderFactory<A extends FileAppender> extends AbstractAppende
 		this.append = append;
 	}
 
+	public boolean isDoubleBuffered() {
+		return this.doubleBuffered;
+	}
+
+	public void setDoubleBuffered(boolean doubleBuffered) {
+		this.doubleBuffered = doubleBuffered;
+	}
+
+	public Durability getDurability() {
+		return this.durability;
+	}
+
+	public void setDurability(Durability durability) {
+		this.durability = durability;
+	}
+
+	public long getSyncInterval() {
+		return this.syncInterval;
+	}
+
+	public void setSyncInterval(long syncInterval) {
+		this.syncInterval = syncInterval;
+	}
+
+	public long getPreallocationSize() {
+		return this.preallocationSize;
+	}
+
+	public void setPreallocationSize(long preallocationSize) {
+		this.preallocationSize = preallocationSize;
+	}
+
 }
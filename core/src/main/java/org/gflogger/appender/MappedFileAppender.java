@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.helpers.LogLog;
+import org.gflogger.util.DirectBufferUtils;
+
+/**
+ * MappedFileAppender
+ *
+ * <p>
+ * Entries are laid out right into a mapped region of the file (of the buffer size)
+ * instead of a buffer to be written, the next region is mapped once the current one
+ * is full. The file is extended by the whole region ahead, it is truncated to
+ * the written length when the file is closed. There is no need to flush:
+ * the written content is in the page cache and visible to readers of the file.
+ * An appender appends to a file which has not been closed properly right after
+ * its last non-zero byte, as {@link FileAppender} does.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class MappedFileAppender extends FileAppender {
+
+	// file offset of the current region
+	private long regionOffset;
+	private int regionSize;
+	// written length of the file which has been forced on the last group commit
+	private long synced;
+
+	public MappedFileAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(multibyte, logLevel, enabled);
+	}
+
+	public MappedFileAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	@Override
+	public void setDoubleBuffered(final boolean doubleBuffered) {
+		// there is nothing to write
+	}
+
+	@Override
+	public void setPreallocationSize(final long preallocationSize) {
+		// the file is extended by regions anyway
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		if (!multibyte && enabled && !logLevel.greaterThan(entry.getLogLevel())
+			&& byteBuffer.remaining() <= layout.size(entry)) {
+			store("region is full");
+		}
+		super.process(entry);
+	}
+
+	@Override
+	public void flush(boolean force) {
+		// the region is a part of the file already, there is only a commit to force
+		if (durability == Durability.GROUP_COMMIT && (force || immediateFlush)) {
+			final long written = regionOffset + byteBuffer.position();
+			if (written != synced) {
+				synced = written;
+				sync();
+			}
+		}
+	}
+
+	@Override
+	public void sync() {
+		((MappedByteBuffer) byteBuffer).force();
+		super.sync();
+	}
+
+	@Override
+	protected void workerIsAboutToFinish() {
+		closeFile();
+	}
+
+	@Override
+	protected void createFileChannel() throws FileNotFoundException {
+		final File file = new File(fileName);
+		final File folder = file.getParentFile();
+		if (!folder.exists()) {
+			if (!folder.mkdirs()) {
+				throw new FileNotFoundException("Can't create folder " + folder.getAbsolutePath());
+			}
+		}
+		if (regionSize == 0) {
+			regionSize = byteBuffer.capacity();
+		}
+		try {
+			channel = new RandomAccessFile(file, "rw").getChannel();
+			if (!append) {
+				channel.truncate(0L);
+			}
+			// a file which has not been closed properly ends with zeros of the last region
+			map(writtenLength(channel));
+		} catch (final IOException e) {
+			throw new FileNotFoundException("Can't map " + file.getAbsolutePath() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * maps a region of the file at the given offset instead of the current buffer
+	 * (the staging buffer at the very beginning)
+	 */
+	private void map(final long offset) throws IOException {
+		final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, offset, regionSize);
+		final ByteBuffer previous = byteBuffer;
+		regionOffset = offset;
+		byteBuffer = region;
+		// it is safe to release a buffer twice
+		DirectBufferUtils.releaseBuffer(previous);
+	}
+
+	@Override
+	protected void closeFile() {
+		final long length = regionOffset + byteBuffer.position();
+		DirectBufferUtils.releaseBuffer(byteBuffer);
+		try {
+			channel.truncate(length);
+		} catch (IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		}
+		super.closeFile();
+	}
+
+	/**
+	 * maps the next region right after the written part of the current one
+	 */
+	@Override
+	protected boolean store(final String cause) {
+		if (byteBuffer.position() == 0) return false;
+		try {
+			map(regionOffset + byteBuffer.position());
+		} catch (final IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at " + getName() + " - " + e.getMessage(), e);
+		}
+		return true;
+	}
+}
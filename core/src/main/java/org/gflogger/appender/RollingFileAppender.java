@@ -0,0 +1,533 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.PatternLayout;
+import org.gflogger.helpers.LogLog;
+import org.gflogger.util.NamedThreadFactory;
+
+/**
+ * RollingFileAppender
+ *
+ * <p>
+ * Rolls the file over once it exceeds <code>maxFileSize</code> and/or on
+ * <code>datePattern</code> period boundaries. Files are written right under their
+ * final names <code>fileName + date + "." + index</code> (the date and the index are
+ * present only if the corresponding trigger is enabled), so there is nothing to rename.
+ *
+ * <p>
+ * The next files are opened ahead by a rolling thread, so a rollover just switches
+ * the channel. The rolling thread closes the previous file, compresses it and
+ * deletes the oldest backups beyond <code>maxBackups</code> or <code>maxTotalSize</code>.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class RollingFileAppender extends FileAppender {
+
+	private static final String GZ = ".gz";
+
+	private static final ChronoUnit[] PERIODS = {
+		ChronoUnit.MINUTES, ChronoUnit.HOURS, ChronoUnit.HALF_DAYS, ChronoUnit.DAYS,
+		ChronoUnit.WEEKS, ChronoUnit.MONTHS, ChronoUnit.YEARS
+	};
+
+	protected String datePattern;
+	protected long maxFileSize;
+	protected int maxBackups;
+	protected long maxTotalSize;
+	protected boolean compress;
+
+	private ZoneId zone;
+	private DateTimeFormatter formatter;
+	private ChronoUnit period;
+	private long nextCheck = Long.MAX_VALUE;
+
+	private volatile Segment segment;
+	private long size;
+
+	// files opened ahead by the rolling thread
+	private final AtomicReference<Segment> nextBySize = new AtomicReference<>();
+	private final AtomicReference<Segment> nextByTime = new AtomicReference<>();
+
+	private ExecutorService executor;
+
+	public RollingFileAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(multibyte, logLevel, enabled);
+	}
+
+	public RollingFileAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public void setDatePattern(final String datePattern) {
+		this.datePattern = datePattern;
+	}
+
+	public void setMaxFileSize(final long maxFileSize) {
+		this.maxFileSize = maxFileSize;
+	}
+
+	public void setMaxBackups(final int maxBackups) {
+		this.maxBackups = maxBackups;
+	}
+
+	public void setMaxTotalSize(final long maxTotalSize) {
+		this.maxTotalSize = maxTotalSize;
+	}
+
+	public void setCompress(final boolean compress) {
+		this.compress = compress;
+	}
+
+	@Override
+	public void start() {
+		TimeZone timeZone = null;
+		if (layout instanceof PatternLayout) {
+			timeZone = ((PatternLayout) layout).getTimeZone();
+		}
+		zone = timeZone != null ? timeZone.toZoneId() : ZoneId.systemDefault();
+
+		if (datePattern != null) {
+			formatter = DateTimeFormatter.ofPattern(datePattern).withZone(zone);
+			period = computePeriod();
+			if (period == null) {
+				LogLog.warn("Date pattern " + datePattern + " does not define a rolling period.");
+				formatter = null;
+			}
+		}
+
+		executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("gflogger-rolling"));
+
+		super.start();
+	}
+
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		if (entry.getTimestamp() >= nextCheck) {
+			// the rest of the previous period goes to the current file
+			flush();
+			rollOver(entry.getTimestamp());
+		}
+		super.process(entry);
+	}
+
+	@Override
+	protected boolean store(final String cause) {
+		final int length = byteBuffer.position();
+		if (length == 0) return false;
+		if (maxFileSize > 0 && size > 0 && size + length > maxFileSize) {
+			final Segment current = segment;
+			rollOver(current.suffix, current.index + 1, nextBySize);
+		}
+		size += length;
+		return super.store(cause);
+	}
+
+	@Override
+	protected void workerIsAboutToFinish() {
+		super.workerIsAboutToFinish();
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				discard(nextBySize.getAndSet(null));
+				discard(nextByTime.getAndSet(null));
+			}
+		});
+		executor.shutdown();
+		try {
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	protected void createFileChannel() throws FileNotFoundException {
+		final long now = System.currentTimeMillis();
+		final String suffix = suffix(now);
+		nextCheck = formatter != null ? nextBoundary(now) : Long.MAX_VALUE;
+
+		int index = 0;
+		if (append && maxFileSize > 0) {
+			// continue the last file of the period if it is not full yet
+			index = lastIndex(suffix);
+			final File last = new File(name(suffix, index));
+			if (new File(last.getPath() + GZ).exists() || last.length() >= maxFileSize) {
+				index++;
+			}
+		}
+
+		final Segment current;
+		try {
+			current = open(suffix, index, append);
+			size = current.channel.position();
+		} catch (final IOException e) {
+			throw new FileNotFoundException(e.getMessage());
+		}
+		segment = current;
+		channel = current.channel;
+		final long boundary = nextCheck;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				openAhead(current, boundary);
+			}
+		});
+	}
+
+	/**
+	 * rolls over on a time boundary
+	 */
+	private void rollOver(final long timestamp) {
+		nextCheck = nextBoundary(timestamp);
+		final String suffix = suffix(timestamp);
+		if (suffix.equals(segment.suffix)) return;
+		// the file opened ahead for the size rollover belongs to the previous period
+		final Segment stale = nextBySize.getAndSet(null);
+		if (stale != null) {
+			executor.execute(new Discard(stale));
+		}
+		rollOver(suffix, 0, nextByTime);
+	}
+
+	private void rollOver(final String suffix, final int index, final AtomicReference<Segment> ahead) {
+		// a pending buffer has to be written to the previous file
+		awaitWritten();
+
+		Segment next = ahead.getAndSet(null);
+		if (next != null && !(next.index == index && next.suffix.equals(suffix))) {
+			executor.execute(new Discard(next));
+			next = null;
+		}
+		if (next == null) {
+			try {
+				next = open(suffix, index, true);
+			} catch (final IOException e) {
+				LogLog.error("[" + Thread.currentThread().getName()
+					+ "] exception at " + getName() + " - " + e.getMessage(), e);
+				// keep on writing to the current file
+				return;
+			}
+		}
+
+		final Segment previous = segment;
+		segment = next;
+		channel = next.channel;
+		try {
+			size = next.channel.position();
+		} catch (final IOException e) {
+			size = 0;
+		}
+
+		final Segment current = next;
+		final long boundary = nextCheck;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				close(previous);
+				openAhead(current, boundary);
+				if (compress) {
+					compress(previous.file);
+				}
+				deleteBackups();
+			}
+		});
+	}
+
+	private Segment open(final String suffix, final int index, final boolean append) throws IOException {
+		final File file = new File(name(suffix, index));
+		final File folder = file.getAbsoluteFile().getParentFile();
+		if (!folder.exists() && !folder.mkdirs()) {
+			throw new FileNotFoundException("Can't create folder " + folder.getAbsolutePath());
+		}
+		final FileChannel channel = openChannel(file, append);
+		return new Segment(suffix, index, file, channel);
+	}
+
+	private String name(final String suffix, final int index) {
+		return maxFileSize > 0 ? fileName + suffix + '.' + index : fileName + suffix;
+	}
+
+	/**
+	 * @return the highest index of the files of the period (there could be gaps,
+	 *			e.g. deleted backups), <code>0</code> if there are none
+	 */
+	private int lastIndex(final String suffix) {
+		final File active = new File(fileName).getAbsoluteFile();
+		final String prefix = active.getName() + suffix + '.';
+		final String[] names = active.getParentFile().list();
+		if (names == null) return 0;
+
+		int last = 0;
+		for (String name : names) {
+			if (!name.startsWith(prefix)) continue;
+			if (name.endsWith(GZ)) {
+				name = name.substring(0, name.length() - GZ.length());
+			}
+			final String index = name.substring(prefix.length());
+			if (index.isEmpty() || index.length() > 9) continue;
+			boolean digits = true;
+			for (int i = 0; i < index.length() && digits; i++) {
+				digits = Character.isDigit(index.charAt(i));
+			}
+			if (digits) {
+				last = Math.max(last, Integer.parseInt(index));
+			}
+		}
+		return last;
+	}
+
+	private String suffix(final long timestamp) {
+		return formatter != null ? formatter.format(Instant.ofEpochMilli(timestamp)) : "";
+	}
+
+	private ChronoUnit computePeriod() {
+		final ZonedDateTime base = ZonedDateTime.of(1970, 1, 1, 0, 0, 0, 0, zone);
+		final String r0 = formatter.format(base);
+		for (final ChronoUnit unit : PERIODS) {
+			if (!r0.equals(formatter.format(base.plus(1, unit)))) {
+				return unit;
+			}
+		}
+		return null;
+	}
+
+	private long nextBoundary(final long timestamp) {
+		ZonedDateTime time = Instant.ofEpochMilli(timestamp).atZone(zone);
+		switch (period) {
+			case WEEKS:
+				time = time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(
+					WeekFields.of(Locale.getDefault()).getFirstDayOfWeek()));
+				break;
+			case MONTHS:
+				time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+				break;
+			case YEARS:
+				time = time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+				break;
+			default:
+				time = time.truncatedTo(period);
+		}
+		return time.plus(1, period).toInstant().toEpochMilli();
+	}
+
+	/*===================== rolling thread =================================*/
+
+	private void openAhead(final Segment current, final long boundary) {
+		if (maxFileSize > 0) {
+			openAhead(nextBySize, current.suffix, current.index + 1);
+		}
+		if (formatter != null) {
+			openAhead(nextByTime, suffix(boundary), 0);
+		}
+	}
+
+	private void openAhead(final AtomicReference<Segment> ahead, final String suffix, final int index) {
+		final Segment segment = ahead.get();
+		if (segment != null && segment.index == index && segment.suffix.equals(suffix)) return;
+		try {
+			discard(ahead.getAndSet(open(suffix, index, true)));
+		} catch (final IOException e) {
+			LogLog.warn("Can't open " + name(suffix, index) + " ahead: " + e.getMessage());
+		}
+	}
+
+	private void close(final Segment segment) {
+		try {
+			trim(segment.channel);
+			segment.channel.force(true);
+			segment.channel.close();
+		} catch (IOException e) {
+			LogLog.error("Can't close " + segment.file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * closes a file opened ahead and deletes it unless something has been written into it
+	 */
+	private void discard(final Segment segment) {
+		if (segment == null) return;
+		close(segment);
+		if (segment.file.length() == 0L && !segment.file.delete()) {
+			LogLog.warn("Can't delete " + segment.file);
+		}
+	}
+
+	private static void compress(final File file) {
+		if (!file.exists() || file.length() == 0L) return;
+		final File gz = new File(file.getPath() + GZ);
+		try (InputStream in = new FileInputStream(file);
+			OutputStream out = new GZIPOutputStream(new FileOutputStream(gz))) {
+			final byte[] buffer = new byte[1 << 16];
+			int n;
+			while ((n = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, n);
+			}
+		} catch (IOException e) {
+			LogLog.error("Can't compress " + file + ": " + e.getMessage(), e);
+			gz.delete();
+			return;
+		}
+		if (!file.delete()) {
+			LogLog.warn("Can't delete " + file);
+		}
+	}
+
+	/**
+	 * deletes the oldest backups beyond the limits, the newest one is kept anyway
+	 */
+	private void deleteBackups() {
+		if (maxBackups <= 0 && maxTotalSize <= 0) return;
+
+		final File active = new File(fileName).getAbsoluteFile();
+		final String prefix = active.getName();
+		final File[] files = active.getParentFile().listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.isFile() && file.getName().startsWith(prefix)
+					&& isBackup(file.getName().substring(prefix.length())) && !isInUse(file);
+			}
+		});
+		if (files == null) return;
+
+		final long[] modified = new long[files.length];
+		for (int i = 0; i < files.length; i++) {
+			modified[i] = files[i].lastModified();
+		}
+		final Integer[] order = new Integer[files.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		// the newest first
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Long.compare(modified[b], modified[a]);
+			}
+		});
+
+		long total = 0;
+		for (int i = 0; i < order.length; i++) {
+			final File file = files[order[i]];
+			total += file.length();
+			if (i > 0 && ((maxBackups > 0 && i >= maxBackups) || (maxTotalSize > 0 && total > maxTotalSize))) {
+				if (file.delete()) {
+					LogLog.debug("Deleted backup " + file);
+				} else {
+					LogLog.warn("Can't delete backup " + file);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param name a name of the file without the file name prefix
+	 * @return whether it is a name of a file written by the appender:
+	 *			<code>date [+ '.' + index] [+ .gz]</code>
+	 */
+	private boolean isBackup(String name) {
+		if (name.endsWith(GZ)) {
+			name = name.substring(0, name.length() - GZ.length());
+		}
+		if (maxFileSize > 0) {
+			final int dot = name.lastIndexOf('.');
+			if (dot < 0 || dot == name.length() - 1) return false;
+			for (int i = dot + 1; i < name.length(); i++) {
+				if (!Character.isDigit(name.charAt(i))) return false;
+			}
+			name = name.substring(0, dot);
+		}
+		if (formatter == null) return name.isEmpty();
+		try {
+			formatter.parse(name);
+			return true;
+		} catch (DateTimeParseException e) {
+			return false;
+		}
+	}
+
+	private boolean isInUse(final File file) {
+		return isFileOf(segment, file) || isFileOf(nextBySize.get(), file) || isFileOf(nextByTime.get(), file);
+	}
+
+	private static boolean isFileOf(final Segment segment, final File file) {
+		return segment != null && segment.file.getAbsoluteFile().equals(file.getAbsoluteFile());
+	}
+
+	private static final class Segment {
+		final String suffix;
+		final int index;
+		final File file;
+		final FileChannel channel;
+
+		Segment(final String suffix, final int index, final File file, final FileChannel channel) {
+			this.suffix = suffix;
+			this.index = index;
+			this.file = file;
+			this.channel = channel;
+		}
+	}
+
+	private final class Discard implements Runnable {
+		private final Segment segment;
+
+		Discard(final Segment segment) {
+			this.segment = segment;
+		}
+
+		@Override
+		public void run() {
+			discard(segment);
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+/**
+ * RollingFileAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class RollingFileAppenderFactory extends FileAppenderFactory<RollingFileAppender> {
+
+	/**
+	 * {@link java.time.format.DateTimeFormatter} pattern of the file suffix,
+	 * e.g. "'.'yyyy-MM-dd" for daily rollover. No time based rollover by default.
+	 */
+	protected String datePattern;
+
+	/**
+	 * max size of a file (in bytes), no size based rollover by default.
+	 */
+	protected long maxFileSize;
+
+	/**
+	 * max number of backups, unlimited by default.
+	 */
+	protected int maxBackups;
+
+	/**
+	 * max total size of backups (in bytes), unlimited by default.
+	 */
+	protected long maxTotalSize;
+
+	/**
+	 * gzip backups
+	 */
+	protected boolean compress;
+
+	@Override
+	public RollingFileAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		final RollingFileAppender appender = super.createAppender(loggerServiceClass);
+
+		appender.setDatePattern(datePattern);
+		appender.setMaxFileSize(maxFileSize);
+		appender.setMaxBackups(maxBackups);
+		appender.setMaxTotalSize(maxTotalSize);
+		appender.setCompress(compress);
+
+		return appender;
+	}
+
+	@Override
+	protected RollingFileAppender createAppender() {
+		return new RollingFileAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public String getDatePattern() {
+		return this.datePattern;
+	}
+
+	public void setDatePattern(String datePattern) {
+		this.datePattern = datePattern;
+	}
+
+	public long getMaxFileSize() {
+		return this.maxFileSize;
+	}
+
+	public void setMaxFileSize(long maxFileSize) {
+		this.maxFileSize = maxFileSize;
+	}
+
+	public int getMaxBackups() {
+		return this.maxBackups;
+	}
+
+	public void setMaxBackups(int maxBackups) {
+		this.maxBackups = maxBackups;
+	}
+
+	public long getMaxTotalSize() {
+		return this.maxTotalSize;
+	}
+
+	public void setMaxTotalSize(long maxTotalSize) {
+		this.maxTotalSize = maxTotalSize;
+	}
+
+	public boolean isCompress() {
+		return this.compress;
+	}
+
+	public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+
+}
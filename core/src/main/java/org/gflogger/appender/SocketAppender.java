@@ -0,0 +1,351 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.gflogger.LogLevel;
+import org.gflogger.helpers.LogLog;
+import org.gflogger.util.NamedThreadFactory;
+
+import static org.gflogger.formatter.BufferFormatter.allocate;
+
+/**
+ * SocketAppender
+ *
+ * <p>
+ * Ships formatted entries to a {@link SocketCollector} over TCP: every stored buffer
+ * is framed by its length (4 bytes, big-endian) into batches of at most the buffer size
+ * in bytes, whatever the encoding is, and put into the bounded spill buffer. Batches are
+ * sent from it by a non-blocking {@link SocketChannel}, so neither connecting nor sending
+ * blocks the consumer thread. The host is resolved by another thread as well: the address
+ * is cached and refreshed on each disconnect. While the collector is not
+ * reachable batches are kept in the spill buffer (new batches are dropped once it is full)
+ * and the appender reconnects on flushes with an exponential backoff. A batch which has
+ * been sent partially is sent whole again over the next connection.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class SocketAppender extends AbstractAsyncAppender {
+
+	private static final String NAME = "socket";
+	private static final int FRAME_HEADER_SIZE = 4;
+
+	protected String codepage = "UTF-8";
+
+	protected CharsetEncoder encoder;
+
+	protected int maxBytesPerChar;
+
+	protected String host = "localhost";
+	protected int port;
+	// in bytes
+	protected int spillSize = 4 << 20;
+	// in ms
+	protected long reconnectDelay = 100L;
+	protected long maxReconnectDelay = 10000L;
+	// how long it sends pending batches on stop, in ms
+	protected long lingerTimeout = 1000L;
+
+	private SocketChannel channel;
+	private boolean connected;
+	private long nextConnectTime;
+	private long backoff;
+
+	// resolves the host not to block the consumer thread
+	private ExecutorService resolver;
+	private volatile InetSocketAddress address;
+	private volatile boolean resolving;
+
+	// in bytes, the buffer size whatever the encoding is
+	private int maxBatchSize;
+	// framed batches to be sent, in write mode
+	private ByteBuffer spill;
+	// read view of the spill buffer
+	private ByteBuffer pending;
+	// bytes of the head of the spill buffer which has been sent over the current connection
+	private int sent;
+	private long droppedBatches;
+	private long droppedReported;
+
+	public SocketAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(NAME, multibyte, logLevel, enabled);
+	}
+
+	public SocketAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(NAME, bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public void setCodepage(final String codepage) {
+		this.codepage = codepage;
+	}
+
+	public void setHost(final String host) {
+		this.host = host;
+	}
+
+	public void setPort(final int port) {
+		this.port = port;
+	}
+
+	public void setSpillSize(final int spillSize) {
+		this.spillSize = spillSize;
+	}
+
+	public void setReconnectDelay(final long reconnectDelay) {
+		this.reconnectDelay = reconnectDelay;
+	}
+
+	public void setMaxReconnectDelay(final long maxReconnectDelay) {
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+
+	public void setLingerTimeout(final long lingerTimeout) {
+		this.lingerTimeout = lingerTimeout;
+	}
+
+	/**
+	 * @return a number of batches dropped as the spill buffer was full
+	 */
+	public long getDroppedBatches() {
+		return droppedBatches;
+	}
+
+	public boolean isConnected() {
+		return connected;
+	}
+
+	@Override
+	public void start() {
+		encoder = multibyte ? Charset.forName(codepage).newEncoder() : null;
+		maxBytesPerChar = multibyte ? (int) Math.floor(encoder.maxBytesPerChar()) : 1;
+		final int capacity = byteBuffer.capacity();
+		maxBatchSize = multibyte ? capacity >> 1 : capacity;
+		// a stored buffer has to fit the spill buffer
+		spill = allocate(Math.max(spillSize, capacity + batches(capacity) * FRAME_HEADER_SIZE));
+		spill.clear();
+		// frame headers are big-endian whatever the native order is
+		spill.order(ByteOrder.BIG_ENDIAN);
+		pending = spill.duplicate();
+		backoff = reconnectDelay;
+		resolver = Executors.newSingleThreadExecutor(new NamedThreadFactory("gflogger-socket-resolver"));
+		address = null;
+		resolve();
+		super.start();
+		send();
+	}
+
+	@Override
+	protected void processCharBuffer() {
+		final int remaining = byteBuffer.remaining();
+		final int sizeOfBuffer = maxBytesPerChar * charBuffer.position();
+
+		// store buffer if there it could be no enough space for message
+		if (remaining < sizeOfBuffer) {
+			store();
+		}
+
+		charBuffer.flip();
+		encoder.encode(charBuffer, byteBuffer, true);
+		// there is no reason to check encoding result
+		// as it has been already checked that buffer has enough space
+		charBuffer.clear();
+	}
+
+	@Override
+	public void flush(boolean force) {
+		if (force || immediateFlush) {
+			store();
+		}
+		if (spill.position() > 0) {
+			send();
+		}
+	}
+
+	/**
+	 * frames the buffer into the spill buffer and sends what it could
+	 */
+	protected void store() {
+		if (byteBuffer.position() == 0) return;
+		byteBuffer.flip();
+		final int length = byteBuffer.remaining();
+		if (spill.remaining() < length + batches(length) * FRAME_HEADER_SIZE) {
+			droppedBatches++;
+		} else {
+			final int limit = byteBuffer.limit();
+			while (byteBuffer.hasRemaining()) {
+				final int size = Math.min(byteBuffer.remaining(), maxBatchSize);
+				spill.putInt(size);
+				byteBuffer.limit(byteBuffer.position() + size);
+				spill.put(byteBuffer);
+				byteBuffer.limit(limit);
+			}
+		}
+		byteBuffer.clear();
+		send();
+	}
+
+	/**
+	 * @return number of batches the given number of bytes is framed into
+	 */
+	private int batches(final int length) {
+		return (length + maxBatchSize - 1) / maxBatchSize;
+	}
+
+	/**
+	 * (re)connects if it is time to and writes as much of the spill buffer as the socket takes
+	 */
+	private void send() {
+		if (!connected && !connect()) return;
+		if (spill.position() == sent) return;
+		try {
+			pending.limit(spill.position()).position(sent);
+			sent += channel.write(pending);
+		} catch (final IOException e) {
+			disconnect(e.getMessage());
+			return;
+		}
+
+		// discard batches which have been sent whole
+		int offset = 0;
+		while (offset + FRAME_HEADER_SIZE <= sent) {
+			final int end = offset + FRAME_HEADER_SIZE + spill.getInt(offset);
+			if (end > sent) break;
+			offset = end;
+		}
+		if (offset > 0) {
+			spill.flip().position(offset);
+			spill.compact();
+			sent -= offset;
+		}
+	}
+
+	private boolean connect() {
+		final long now = System.currentTimeMillis();
+		try {
+			if (channel == null) {
+				if (now < nextConnectTime) return false;
+				final InetSocketAddress resolved = address;
+				if (resolved == null || resolved.isUnresolved()) {
+					disconnect("unresolved host " + host);
+					return false;
+				}
+				channel = SocketChannel.open();
+				channel.configureBlocking(false);
+				channel.connect(resolved);
+			}
+			if (!channel.finishConnect()) return false;
+		} catch (final IOException e) {
+			disconnect(e.getMessage());
+			return false;
+		}
+		connected = true;
+		backoff = reconnectDelay;
+		LogLog.debug(getName() + " is connected");
+		if (droppedBatches != droppedReported) {
+			LogLog.warn(getName() + ": " + (droppedBatches - droppedReported)
+				+ " batches dropped while disconnected");
+			droppedReported = droppedBatches;
+		}
+		return true;
+	}
+
+	private void disconnect(final String reason) {
+		if (connected) {
+			LogLog.warn(getName() + " is disconnected: " + reason);
+		}
+		closeChannel();
+		// the address of the host could have changed
+		resolve();
+		nextConnectTime = System.currentTimeMillis() + backoff;
+		backoff = Math.min(backoff << 1, maxReconnectDelay);
+	}
+
+	/**
+	 * resolves the host by the resolver thread unless it is in progress,
+	 * a resolved address is not replaced by an unresolved one
+	 */
+	private void resolve() {
+		if (resolving || resolver.isShutdown()) return;
+		resolving = true;
+		resolver.execute(new Runnable() {
+			@Override
+			public void run() {
+				final InetSocketAddress resolved = new InetSocketAddress(host, port);
+				if (!resolved.isUnresolved() || address == null) {
+					address = resolved;
+				}
+				resolving = false;
+			}
+		});
+	}
+
+	private void closeChannel() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+		}
+		channel = null;
+		connected = false;
+		// a partially sent batch is sent whole over the next connection
+		sent = 0;
+	}
+
+	@Override
+	public void stop() {
+		if (!running) return;
+		// stores the last batch into the spill buffer
+		super.stop();
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerTimeout);
+		while (spill.position() > 0 && System.nanoTime() < deadline) {
+			send();
+			if (spill.position() > 0) {
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+			}
+		}
+		if (spill.position() > 0) {
+			LogLog.warn(getName() + ": " + spill.position() + " bytes of batches have not been sent");
+		}
+		closeChannel();
+		resolver.shutdownNow();
+	}
+
+	@Override
+	public String getName() {
+		return NAME + ":" + host + ":" + port;
+	}
+}
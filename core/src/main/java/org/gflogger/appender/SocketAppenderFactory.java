@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+import static org.gflogger.helpers.OptionConverter.getStringProperty;
+
+
+/**
+ * SocketAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class SocketAppenderFactory extends AbstractAppenderFactory<SocketAppender> {
+
+	protected String codepage = getStringProperty("gflogger.codepage", "UTF-8");
+	protected String host = getStringProperty("gflogger.socket.host", "localhost");
+	protected int port = getIntProperty("gflogger.socket.port", 0);
+	// in bytes
+	protected int spillSize = getIntProperty("gflogger.socket.spillSize", 4 << 20);
+	// in ms
+	protected long reconnectDelay = 100L;
+	protected long maxReconnectDelay = 10000L;
+	protected long lingerTimeout = 1000L;
+
+	@Override
+	public SocketAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		preinit(loggerServiceClass);
+		final SocketAppender appender = createAppender();
+
+		appender.setLayout(layout);
+		appender.setImmediateFlush(immediateFlush);
+		appender.setBufferedIOThreshold(bufferedIOThreshold);
+		appender.setAwaitTimeout(awaitTimeout);
+
+		appender.setCodepage(codepage);
+		appender.setHost(host);
+		appender.setPort(port);
+		appender.setSpillSize(spillSize);
+		appender.setReconnectDelay(reconnectDelay);
+		appender.setMaxReconnectDelay(maxReconnectDelay);
+		appender.setLingerTimeout(lingerTimeout);
+
+		return appender;
+	}
+
+	protected SocketAppender createAppender() {
+		return new SocketAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public String getCodepage() {
+		return this.codepage;
+	}
+
+	public void setCodepage(String codepage) {
+		this.codepage = codepage;
+	}
+
+	public String getHost() {
+		return this.host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getSpillSize() {
+		return this.spillSize;
+	}
+
+	public void setSpillSize(int spillSize) {
+		this.spillSize = spillSize;
+	}
+
+	public long getReconnectDelay() {
+		return this.reconnectDelay;
+	}
+
+	public void setReconnectDelay(long reconnectDelay) {
+		this.reconnectDelay = reconnectDelay;
+	}
+
+	public long getMaxReconnectDelay() {
+		return this.maxReconnectDelay;
+	}
+
+	public void setMaxReconnectDelay(long maxReconnectDelay) {
+		this.maxReconnectDelay = maxReconnectDelay;
+	}
+
+	public long getLingerTimeout() {
+		return this.lingerTimeout;
+	}
+
+	public void setLingerTimeout(long lingerTimeout) {
+		this.lingerTimeout = lingerTimeout;
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * SocketCollector receives batches sent by {@link SocketAppender}s and writes them
+ * through a {@link FileAppender}.
+ *
+ * <pre>
+ * java -cp gflogger.jar org.gflogger.appender.SocketCollector &lt;port&gt; &lt;file&gt; [max batch size]
+ * </pre>
+ *
+ * <p>
+ * The appender has to be laid out by <code>%m</code> pattern (batches are formatted
+ * already) and its buffer has to be larger than the max batch size, which has to be
+ * at least the buffer size of the socket appenders. Every batch is passed as a FATAL entry,
+ * larger batches are skipped.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class SocketCollector implements Runnable, Closeable {
+
+	private static final int FRAME_HEADER_SIZE = 4;
+	private static final int DEFAULT_MAX_BATCH_SIZE = 1 << 20/*=1M*/;
+
+	private final ServerSocketChannel server;
+	private final Selector selector;
+	private final FileAppender appender;
+	private final int maxBatchSize;
+	private final LogEntryItemImpl entry;
+
+	private volatile boolean running = true;
+
+	public SocketCollector(final InetSocketAddress address, final FileAppender appender,
+		final int maxBatchSize) throws IOException {
+		this.appender = appender;
+		this.maxBatchSize = maxBatchSize;
+		this.entry = new LogEntryItemImpl(maxBatchSize, new StringFormattingStrategy());
+		this.entry.setLogLevel(LogLevel.FATAL);
+		this.selector = Selector.open();
+		this.server = ServerSocketChannel.open();
+		server.bind(address);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: " + SocketCollector.class.getName()
+				+ " <port> <file> [max batch size]");
+			System.exit(1);
+		}
+		final int maxBatchSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_BATCH_SIZE;
+		final FileAppenderFactory<FileAppender> factory = new FileAppenderFactory<FileAppender>();
+		factory.setFileName(args[1]);
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(maxBatchSize << 1);
+		final FileAppender appender = factory.createAppender(null);
+		appender.start();
+
+		final SocketCollector collector =
+			new SocketCollector(new InetSocketAddress(Integer.parseInt(args[0])), appender, maxBatchSize);
+		final Thread thread = Thread.currentThread();
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				collector.close();
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, "gflogger-collector-shutdown"));
+		collector.run();
+		appender.stop();
+	}
+
+	/**
+	 * @return the port the collector listens to, e.g. if it is bound to an ephemeral one
+	 */
+	public int getPort() throws IOException {
+		return ((InetSocketAddress) server.getLocalAddress()).getPort();
+	}
+
+	/**
+	 * accepts connections and writes batches until it is closed
+	 */
+	@Override
+	public void run() {
+		try {
+			while (running) {
+				selector.select(100L);
+				final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					final SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) continue;
+					if (key.isAcceptable()) {
+						accept();
+					} else if (key.isReadable()) {
+						read(key);
+					}
+				}
+				appender.flush();
+			}
+		} catch (IOException e) {
+			LogLog.error("[" + Thread.currentThread().getName()
+				+ "] exception at collector - " + e.getMessage(), e);
+		} finally {
+			for (final SelectionKey key : selector.keys()) {
+				closeQuietly(key);
+			}
+			try {
+				selector.close();
+			} catch (IOException e) {
+				// nothing to do
+			}
+			appender.flush();
+		}
+	}
+
+	private void accept() throws IOException {
+		final SocketChannel channel = server.accept();
+		if (channel == null) return;
+		channel.configureBlocking(false);
+		channel.register(selector, SelectionKey.OP_READ, new Connection(FRAME_HEADER_SIZE + maxBatchSize));
+	}
+
+	private void read(final SelectionKey key) {
+		final SocketChannel channel = (SocketChannel) key.channel();
+		final Connection connection = (Connection) key.attachment();
+		final ByteBuffer buffer = connection.buffer;
+		try {
+			if (channel.read(buffer) < 0) {
+				closeQuietly(key);
+				return;
+			}
+		} catch (IOException e) {
+			LogLog.warn("collector: connection is lost - " + e.getMessage());
+			closeQuietly(key);
+			return;
+		}
+
+		buffer.flip();
+		while (true) {
+			if (connection.skip > 0) {
+				final int skipped = Math.min(connection.skip, buffer.remaining());
+				buffer.position(buffer.position() + skipped);
+				connection.skip -= skipped;
+				if (connection.skip > 0) break;
+			}
+			if (buffer.remaining() < FRAME_HEADER_SIZE) break;
+			final int length = buffer.getInt(buffer.position());
+			if (length < 0) {
+				LogLog.error("collector: corrupted batch header, connection is closed");
+				closeQuietly(key);
+				return;
+			}
+			if (length > maxBatchSize) {
+				LogLog.error("collector: batch of " + length + " bytes exceeds "
+					+ maxBatchSize + " bytes, it is skipped");
+				buffer.position(buffer.position() + FRAME_HEADER_SIZE);
+				connection.skip = length;
+				continue;
+			}
+			if (buffer.remaining() < FRAME_HEADER_SIZE + length) break;
+			buffer.position(buffer.position() + FRAME_HEADER_SIZE);
+			final int limit = buffer.limit();
+			buffer.limit(buffer.position() + length);
+			final ByteBuffer message = entry.getBuffer();
+			message.clear();
+			message.put(buffer);
+			buffer.limit(limit);
+			appender.process(entry);
+		}
+		buffer.compact();
+	}
+
+	private static final class Connection {
+		final ByteBuffer buffer;
+		// bytes of a skipped batch which have not been received yet
+		int skip;
+
+		Connection(final int capacity) {
+			this.buffer = ByteBuffer.allocate(capacity);
+		}
+	}
+
+	private static void closeQuietly(final SelectionKey key) {
+		key.cancel();
+		try {
+			key.channel().close();
+		} catch (IOException e) {
+			// nothing to do
+		}
+	}
+
+	/**
+	 * stops the collector, the thread which runs it closes connections and flushes the appender
+	 */
+	@Override
+	public void close() {
+		running = false;
+		selector.wakeup();
+	}
+}
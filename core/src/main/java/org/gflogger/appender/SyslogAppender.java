@@ -0,0 +1,339 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * SyslogAppender
+ *
+ * <p>
+ * Sends every entry as a RFC 5424 message in a UDP datagram (RFC 5426), e.g. to rsyslog:
+ * <pre>
+ * &lt;14&gt;1 2014-11-29T01:52:00.123Z host app 1234 - - message
+ * </pre>
+ * The priority is derived from the level, the hostname, app-name and procid are
+ * taken on start, the timestamp (UTC) is formatted from the date and time of the
+ * current minute which is cached, so nothing is allocated per entry. A message is
+ * truncated to the max datagram size. Octet counting (RFC 6587) is a framing of TCP
+ * transport, use {@link SocketAppender} to ship batches over TCP.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class SyslogAppender extends AbstractAsyncAppender {
+
+	private static final String NAME = "syslog";
+	private static final String NIL = "-";
+
+	private static final long MINUTE = 60 * 1000L;
+	private static final long DAY = 24 * 60 * MINUTE;
+
+	// "yyyy-MM-ddTHH:mm:"
+	private static final int MINUTE_PREFIX_SIZE = 17;
+
+	protected String codepage = "UTF-8";
+
+	protected CharsetEncoder encoder;
+
+	protected String host = "localhost";
+	protected int port = 514;
+	// user-level messages
+	protected int facility = 1;
+	protected String appName;
+	// in bytes, RFC 5426 recommends to support 2048 at least
+	protected int maxDatagramSize = 2048;
+
+	private DatagramChannel channel;
+
+	// "<PRI>1 " per level
+	private final byte[][] priorities = new byte[LogLevel.values.length][];
+	// " HOSTNAME APP-NAME PROCID MSGID STRUCTURED-DATA "
+	private byte[] headerSuffix;
+	private final byte[] minutePrefix = new byte[MINUTE_PREFIX_SIZE];
+	private long cachedMinute = Long.MIN_VALUE;
+	// the datagram
+	private ByteBuffer datagram;
+
+	private long failedMessages;
+
+	public SyslogAppender(
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(NAME, multibyte, logLevel, enabled);
+	}
+
+	public SyslogAppender(
+		final int bufferSize,
+		final boolean multibyte,
+		final LogLevel logLevel,
+		final boolean enabled
+	) {
+		super(NAME, bufferSize, multibyte, logLevel, enabled);
+	}
+
+	public void setCodepage(final String codepage) {
+		this.codepage = codepage;
+	}
+
+	public void setHost(final String host) {
+		this.host = host;
+	}
+
+	public void setPort(final int port) {
+		this.port = port;
+	}
+
+	/**
+	 * @param facility syslog facility 0-23, 1 (user-level) by default
+	 */
+	public void setFacility(final int facility) {
+		if (facility < 0 || facility > 23) {
+			throw new IllegalArgumentException("facility " + facility + " is not in range 0-23");
+		}
+		this.facility = facility;
+	}
+
+	public void setAppName(final String appName) {
+		this.appName = appName;
+	}
+
+	public void setMaxDatagramSize(final int maxDatagramSize) {
+		this.maxDatagramSize = maxDatagramSize;
+	}
+
+	/**
+	 * @return a number of messages which have not been sent due to I/O errors
+	 */
+	public long getFailedMessages() {
+		return failedMessages;
+	}
+
+	@Override
+	public void start() {
+		encoder = multibyte ? Charset.forName(codepage).newEncoder() : null;
+		for (final LogLevel level : LogLevel.values) {
+			priorities[level.ordinal()] = ascii("<" + (facility * 8 + severity(level)) + ">1 ");
+		}
+		headerSuffix = ascii(" " + field(hostName(), 255) + " " + field(appName, 48)
+			+ " " + field(processId(), 128) + " " + NIL + " " + NIL + " ");
+		datagram = byteBuffer.duplicate();
+		try {
+			channel = DatagramChannel.open();
+			channel.configureBlocking(false);
+			channel.connect(new InetSocketAddress(host, port));
+		} catch (final IOException e) {
+			throw new RuntimeException("Can't open syslog channel to " + host + ":" + port
+				+ ": " + e.getMessage(), e);
+		}
+		super.start();
+	}
+
+	/**
+	 * formats the entry into the buffer and sends it right away
+	 */
+	@Override
+	public void process(LogEntryItemImpl entry) {
+		if (!enabled || logLevel.greaterThan(entry.getLogLevel())) return;
+
+		byteBuffer.clear();
+		byteBuffer.put(priorities[entry.getLogLevel().ordinal()]);
+		putTimestamp(entry.getTimestamp());
+		byteBuffer.put(headerSuffix);
+
+		if (multibyte) {
+			final CharBuffer buffer = entry.getCharBuffer();
+			final int position0 = buffer.position();
+			final int limit0 = buffer.limit();
+
+			charBuffer.clear();
+			buffer.limit(buffer.position()).position(entry.getOffset() >> 1);
+			layout.format(charBuffer, entry);
+			buffer.limit(limit0).position(position0);
+
+			charBuffer.flip();
+			encoder.reset();
+			// overflow truncates the message
+			encoder.encode(charBuffer, byteBuffer, true);
+		} else {
+			final ByteBuffer buffer = entry.getBuffer();
+			final int position0 = buffer.position();
+			final int limit0 = buffer.limit();
+
+			if (layout.size(entry) > byteBuffer.remaining()) {
+				failedMessages++;
+				return;
+			}
+			buffer.limit(buffer.position()).position(entry.getOffset());
+			layout.format(byteBuffer, entry);
+			buffer.limit(limit0).position(position0);
+		}
+
+		send();
+	}
+
+	private void send() {
+		datagram.limit(Math.min(byteBuffer.position(), maxDatagramSize)).position(0);
+		try {
+			if (channel.write(datagram) == 0) {
+				// the socket buffer is full
+				failedMessages++;
+			}
+		} catch (final IOException e) {
+			// e.g. nobody listens to the port
+			failedMessages++;
+		}
+	}
+
+	/**
+	 * puts RFC 3339 timestamp (UTC) with millis
+	 */
+	private void putTimestamp(final long timestamp) {
+		final long minute = Math.floorDiv(timestamp, MINUTE);
+		if (minute != cachedMinute) {
+			cacheMinute(minute);
+		}
+		byteBuffer.put(minutePrefix);
+		final int millis = (int) (timestamp - minute * MINUTE);
+		putDigits(millis / 1000, 2);
+		byteBuffer.put((byte) '.');
+		putDigits(millis % 1000, 3);
+		byteBuffer.put((byte) 'Z');
+	}
+
+	private void putDigits(int value, final int count) {
+		for (int i = count - 1; i >= 0; i--) {
+			byteBuffer.put(byteBuffer.position() + i, (byte) ('0' + value % 10));
+			value /= 10;
+		}
+		byteBuffer.position(byteBuffer.position() + count);
+	}
+
+	/**
+	 * formats "yyyy-MM-ddTHH:mm:" of the minute by the civil from days algorithm
+	 */
+	private void cacheMinute(final long minute) {
+		final long days = Math.floorDiv(minute * MINUTE, DAY);
+		final int minuteOfDay = (int) (minute - days * (DAY / MINUTE));
+
+		final long z = days + 719468;
+		final long era = Math.floorDiv(z, 146097);
+		final long doe = z - era * 146097;
+		final long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		final long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		final long mp = (5 * doy + 2) / 153;
+		final int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+		final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+		final int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+		put(minutePrefix, 0, year, 4);
+		minutePrefix[4] = '-';
+		put(minutePrefix, 5, month, 2);
+		minutePrefix[7] = '-';
+		put(minutePrefix, 8, day, 2);
+		minutePrefix[10] = 'T';
+		put(minutePrefix, 11, minuteOfDay / 60, 2);
+		minutePrefix[13] = ':';
+		put(minutePrefix, 14, minuteOfDay % 60, 2);
+		minutePrefix[16] = ':';
+		cachedMinute = minute;
+	}
+
+	private static void put(final byte[] bytes, final int offset, int value, final int count) {
+		for (int i = count - 1; i >= 0; i--) {
+			bytes[offset + i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	@Override
+	public void flush(boolean force) {
+		// every entry is sent right away
+	}
+
+	@Override
+	public void stop() {
+		if (!running) return;
+		super.stop();
+		if (failedMessages > 0) {
+			LogLog.warn(getName() + ": " + failedMessages + " messages have not been sent");
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// nothing to do
+		}
+	}
+
+	static int severity(final LogLevel level) {
+		switch (level) {
+			case FATAL: return 2; // critical
+			case ERROR: return 3;
+			case WARN: return 4;
+			case INFO: return 6;
+			default: return 7; // debug
+		}
+	}
+
+	private static String hostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	private static String processId() {
+		// pid@host
+		final String name = ManagementFactory.getRuntimeMXBean().getName();
+		final int index = name.indexOf('@');
+		return index > 0 ? name.substring(0, index) : null;
+	}
+
+	/**
+	 * @return printable US-ASCII value of the header field up to the max length
+	 */
+	private static String field(final String value, final int maxLength) {
+		if (value == null || value.isEmpty()) return NIL;
+		final StringBuilder builder = new StringBuilder(Math.min(value.length(), maxLength));
+		for (int i = 0; i < value.length() && builder.length() < maxLength; i++) {
+			final char c = value.charAt(i);
+			builder.append(c > 32 && c < 127 ? c : '_');
+		}
+		return builder.toString();
+	}
+
+	private static byte[] ascii(final String s) {
+		return s.getBytes(Charset.forName("US-ASCII"));
+	}
+
+	@Override
+	public String getName() {
+		return NAME + ":" + host + ":" + port;
+	}
+}
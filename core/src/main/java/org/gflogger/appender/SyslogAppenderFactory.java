@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.appender;
+
+import org.gflogger.LoggerService;
+
+
+/**
+ * SyslogAppenderFactory
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class SyslogAppenderFactory extends AbstractAppenderFactory<SyslogAppender> {
+
+	protected String codepage = "UTF-8";
+	protected String host = "localhost";
+	protected int port = 514;
+	protected int facility = 1;
+	protected String appName;
+	// in bytes
+	protected int maxDatagramSize = 2048;
+
+	public SyslogAppenderFactory() {
+		// a message is a single line already
+		layoutPattern = "%m";
+	}
+
+	@Override
+	public SyslogAppender createAppender(Class<? extends LoggerService> loggerServiceClass) {
+		preinit(loggerServiceClass);
+		final SyslogAppender appender = createAppender();
+
+		appender.setLayout(layout);
+		appender.setImmediateFlush(immediateFlush);
+		appender.setBufferedIOThreshold(bufferedIOThreshold);
+		appender.setAwaitTimeout(awaitTimeout);
+
+		appender.setCodepage(codepage);
+		appender.setHost(host);
+		appender.setPort(port);
+		appender.setFacility(facility);
+		appender.setAppName(appName);
+		appender.setMaxDatagramSize(maxDatagramSize);
+
+		return appender;
+	}
+
+	protected SyslogAppender createAppender() {
+		return new SyslogAppender(bufferSize, multibyte, logLevel, enabled);
+	}
+
+	/*===================== Setters'n'Getters =================================*/
+
+	public String getCodepage() {
+		return this.codepage;
+	}
+
+	public void setCodepage(String codepage) {
+		this.codepage = codepage;
+	}
+
+	public String getHost() {
+		return this.host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getFacility() {
+		return this.facility;
+	}
+
+	public void setFacility(int facility) {
+		this.facility = facility;
+	}
+
+	public String getAppName() {
+		return this.appName;
+	}
+
+	public void setAppName(String appName) {
+		this.appName = appName;
+	}
+
+	public int getMaxDatagramSize() {
+		return this.maxDatagramSize;
+	}
+
+	public void setMaxDatagramSize(int maxDatagramSize) {
+		this.maxDatagramSize = maxDatagramSize;
+	}
+
+}
@@ -18,11 +18,13 @@ import java.util.concurrent.TimeUnit;
 
 import org.gflogger.AbstractEntryHandler;
 import org.gflogger.Appender;
+import org.gflogger.BinaryEntryRenderer;
 import org.gflogger.LogEntryItemImpl;
 import org.gflogger.State;
 import org.gflogger.appender.AbstractAsyncAppender;
 import org.gflogger.helpers.LogLog;
 import org.gflogger.ring.AlertException;
+import org.gflogger.ring.Awaitable;
 import org.gflogger.ring.EntryProcessor;
 import org.gflogger.ring.PaddedAtomicLong;
 import org.gflogger.ring.RingBuffer;
@@ -31,6 +33,11 @@ import org.gflogger.ring.RingBufferAware;
 /**
  * EntryHandler
  *
+ * <p>
+ * There could be several handlers of the same ring, each of them handles its own
+ * appenders (a consumer group) and has its own sequence. Shared entries are not
+ * marked as consumed, the handlers rely on {@link RingBuffer#isPublished(long)}.
+ *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
 public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implements
@@ -42,15 +49,30 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 
 	protected final PaddedAtomicLong cursor = new PaddedAtomicLong(RingBuffer.INITIAL_CURSOR_VALUE);
 
+	// formats binary records, null in a text mode
+	protected final BinaryEntryRenderer renderer;
+
+	// whether there are other handlers of the ring
+	protected final boolean shared;
+	// the next sequence the shared handler waits for
+	protected final NextSequence next;
+
 	protected boolean immediateFlush = false;
 	protected int bufferedIOThreshold = 10000;
 	protected long awaitTimeout = 10L;
 
 	public EntryHandler(LoggerServiceImpl service, Appender[] appenders) {
-		super(service, appenders);
-		for (Appender appender : appenders) {
-			if (appender instanceof AbstractAsyncAppender) {
-				immediateFlush |= ((AbstractAsyncAppender) appender).isImmediateFlush();
+		this(service, appenders, -1L, false);
+	}
+
+	public EntryHandler(LoggerServiceImpl service, Appender[] appenders, long appenderMask, boolean shared) {
+		super(service, appenders, appenderMask);
+		this.renderer = service.createRenderer();
+		this.shared = shared;
+		this.next = shared ? new NextSequence() : null;
+		for (int i = 0; i < appenders.length; i++) {
+			if (handles(i) && appenders[i] instanceof AbstractAsyncAppender) {
+				immediateFlush |= ((AbstractAsyncAppender) appenders[i]).isImmediateFlush();
 			}
 		}
 	}
@@ -60,6 +82,13 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 		return cursor.get();
 	}
 
+	/**
+	 * @return number of entries claimed by producers, but not handled yet
+	 */
+	public long getLag() {
+		return Math.max(0L, ringBuffer.getCursor() - cursor.get() - 1);
+	}
+
 	@Override
 	public void run() {
 		LogLog.debug(Thread.currentThread().getName() + " is started.");
@@ -68,24 +97,35 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 		long loopCounter = 0;
 		while (true) {
 			try {
-				long maxIndex =
+				observeSyncRequest();
+				long maxIndex;
+				if (shared) {
+					next.sequence = idx + 1;
+					maxIndex = ringBuffer.waitFor(next, idx + 1, flushAwaitTimeout(awaitTimeout), TimeUnit.MILLISECONDS);
+				} else {
+					maxIndex =
 					/*/
 					ringBuffer.waitfor (idx + 1);
 					/*/
-						ringBuffer.waitFor(idx + 1, awaitTimeout, TimeUnit.MILLISECONDS);
-				//*/
+						ringBuffer.waitFor(idx + 1, flushAwaitTimeout(awaitTimeout), TimeUnit.MILLISECONDS);
+					//*/
+				}
+
+				if (maxIndex == idx) {
+					service.releaseAbandoned(idx + 1);
+				}
 
 				// handle all available changes in a row
 				while (maxIndex > idx) {
 					final LogEntryItemImpl entry = ringBuffer.get(idx + 1);
 
-					assert entry.isPublished();
-
 					try {
-						process(entry);
+						process(renderer != null ? renderer.render(entry) : entry);
 					} finally {
 						// release entry anyway
-						entry.setPublished(false);
+						if (!shared) {
+							entry.setPublished(false);
+						}
 						cursor.lazySet(idx);
 						idx++;
 					}
@@ -95,8 +135,14 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 						loopCounter = 0;
 					}
 
+					flushIfDue(false);
 				}
 
+				reportDropped();
+
+				// there are no more entries available at the moment
+				flushIfDue(true);
+
 				if (loopCounter > bufferedIOThreshold) {
 					flushBuffer();
 					loopCounter = 0;
@@ -122,4 +168,14 @@ public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implem
 		this.ringBuffer = ringBuffer;
 	}
 
+	protected final class NextSequence implements Awaitable {
+
+		long sequence;
+
+		@Override
+		public boolean isPublished() {
+			return ringBuffer.isPublished(sequence);
+		}
+	}
+
 }
\ No newline at end of file
@@ -14,10 +14,19 @@
 
 package org.gflogger.base;
 
+import java.nio.Buffer;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.gflogger.AbstractLoggerServiceImpl;
 import org.gflogger.Appender;
+import org.gflogger.AttachableLogEntry;
+import org.gflogger.BatchRange;
+import org.gflogger.BinaryEntryRenderer;
 import org.gflogger.FormattingStrategy;
 import org.gflogger.GFLogger;
 import org.gflogger.GFLoggerBuilder;
@@ -26,9 +35,12 @@ import org.gflogger.LogEntryItemImpl;
 import org.gflogger.LogLevel;
 import org.gflogger.ObjectFormatterFactory;
 import org.gflogger.State;
+import org.gflogger.appender.AbstractAppender;
 import org.gflogger.appender.AppenderFactory;
 import org.gflogger.formatting.StringFormattingStrategy;
+import org.gflogger.ring.BlockingWaitStrategy;
 import org.gflogger.ring.RingBuffer;
+import org.gflogger.ring.WaitStrategy;
 
 import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
 
@@ -36,12 +48,41 @@ import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
  * garbage-free logger service implementation on the top of
  * own ring buffer implementation and off-heap buffer.
  *
+ * <p>
+ * In zero-copy mode a slot of the ring is claimed when an entry is started and
+ * the message is formatted right into it, so there is no per-thread buffer and
+ * no copy on commit. The message is truncated at the slot size the same way as
+ * in the regular mode. An entry abandoned without commit is published as is on
+ * the next entry of the same thread. A slot of a thread died before commit is
+ * skipped by the consumer. A slot of a live thread is never taken away from it, as
+ * the thread could still write into it.
+ *
+ * <p>
+ * In binary mode producers write raw values and pattern ids into the ring
+ * and the consumer formats them, see {@link org.gflogger.BinaryLocalLogEntry}.
+ *
+ * <p>
+ * Appenders of different consumer groups are handled by different consumer
+ * threads of the same ring, e.g. a slow console does not stall a file. The ring
+ * slot is reused once the slowest of consumers has handled it.
+ *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
 public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 
+	// claim states of a slot besides the claimed sequence and its complement (committed)
+	private static final long FREE = Long.MIN_VALUE;
+	private static final long BUSY = Long.MIN_VALUE + 1;
+
 	private final RingBuffer<LogEntryItemImpl>		ringBuffer;
-	private final EntryHandler						entryHandler;
+	private final EntryHandler[]					entryHandlers;
+	private final String[]							consumerGroups;
+	private final int								maxMessageSize;
+	private final boolean							zeroCopy;
+	private final boolean							binary;
+	// slots claimed up front and their owners, zero-copy mode only
+	private final AtomicLongArray					claims;
+	private final AtomicReferenceArray<Thread>		owners;
 
 	/**
 	 * @param count a number of items in the ring, could be rounded up to the next power of 2
@@ -54,7 +95,7 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 		final GFLoggerBuilder[] loggerBuilders,
 		final AppenderFactory ... appenderFactories
 	) {
-		this(count, maxMessageSize, null,
+		this(count, maxMessageSize, new BlockingWaitStrategy(), false, false, null,
 			createAppenders(appenderFactories),
 			createLoggers(appenderFactories, loggerBuilders));
 	}
@@ -75,6 +116,65 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 		this(
 			count,
 			maxMessageSize,
+			new BlockingWaitStrategy(),
+			false,
+			false,
+			objectFormatterFactory,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggersBuilders)
+		);
+	}
+
+	/**
+	 * @param count a number of items in the ring, could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int count,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			count,
+			maxMessageSize,
+			waitStrategy,
+			false,
+			false,
+			objectFormatterFactory,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggersBuilders)
+		);
+	}
+
+	/**
+	 * @param count a number of items in the ring, could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param zeroCopy write messages directly into ring slots
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int count,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final boolean zeroCopy,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			count,
+			maxMessageSize,
+			waitStrategy,
+			zeroCopy,
+			false,
 			objectFormatterFactory,
 			createAppenders(appenderFactories),
 			createLoggers(appenderFactories, loggersBuilders)
@@ -84,12 +184,49 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 	/**
 	 * @param count a number of items in the ring, could be rounded up to the next power of 2
 	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param zeroCopy write messages directly into ring slots
+	 * @param binary pass values in the binary form and format them on the consumer side
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int count,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final boolean zeroCopy,
+		final boolean binary,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			count,
+			maxMessageSize,
+			waitStrategy,
+			zeroCopy,
+			binary,
+			objectFormatterFactory,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggersBuilders)
+		);
+	}
+
+	/**
+	 * @param count a number of items in the ring, could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param zeroCopy write messages directly into ring slots
+	 * @param binary pass values in the binary form and format them on the consumer side
 	 * @param objectFormatterFactory
 	 * @param appenders
 	 */
 	private LoggerServiceImpl(
 		final int count,
 		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final boolean zeroCopy,
+		final boolean binary,
 		final ObjectFormatterFactory objectFormatterFactory,
 		final Appender[] appenders,
 		final GFLogger[] loggers
@@ -103,17 +240,136 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 		final int c = (count & (count - 1)) != 0
 			? roundUpNextPower2(count) : count;
 
-		entryHandler = new EntryHandler(this, appenders);
-		this.ringBuffer = new RingBuffer<>(initEnties(c, maxMessageSize0), entryHandler);
-		entryHandler.start();
-		executorService.execute(entryHandler);
+		this.maxMessageSize = maxMessageSize;
+		this.binary = binary;
+		consumerGroups = consumerGroups(appenders);
+		entryHandlers = createEntryHandlers(appenders, consumerGroups);
+		// binary slot has the same size as a binary local entry
+		final int slotSize = binary ? binaryMessageSize(maxMessageSize) : maxMessageSize0;
+		this.ringBuffer = new RingBuffer<>(waitStrategy, initEnties(c, slotSize), entryHandlers);
+		this.zeroCopy = zeroCopy;
+		this.claims = zeroCopy ? new AtomicLongArray(c) : null;
+		this.owners = zeroCopy ? new AtomicReferenceArray<Thread>(c) : null;
+		for (int i = 0; zeroCopy && i < c; i++) {
+			claims.set(i, FREE);
+		}
+		for (final EntryHandler entryHandler : entryHandlers) {
+			entryHandler.start();
+			executorService.execute(entryHandler);
+		}
 
 		//*/
 	}
 
 
+	private static String[] consumerGroups(final Appender[] appenders) {
+		final Set<String> groups = new LinkedHashSet<>();
+		for (final Appender appender : appenders) {
+			groups.add(consumerGroup(appender));
+		}
+		return groups.toArray(new String[groups.size()]);
+	}
+
+	private static String consumerGroup(final Appender appender) {
+		return appender instanceof AbstractAppender
+			? ((AbstractAppender) appender).getConsumerGroup() : null;
+	}
+
+	/**
+	 * creates a handler (and a consumer thread) per consumer group of appenders
+	 */
+	private EntryHandler[] createEntryHandlers(final Appender[] appenders, final String[] groups) {
+		if (groups.length == 1) {
+			return new EntryHandler[]{new EntryHandler(this, appenders)};
+		}
+
+		final EntryHandler[] handlers = new EntryHandler[groups.length];
+		for (int g = 0; g < groups.length; g++) {
+			long mask = 0L;
+			for (int i = 0; i < appenders.length; i++) {
+				if (Objects.equals(groups[g], consumerGroup(appenders[i]))) {
+					mask |= 1L << i;
+				}
+			}
+			handlers[g] = new EntryHandler(this, appenders, mask, true);
+		}
+		return handlers;
+	}
+
+	/**
+	 * @param consumerGroup consumer group of appenders, <code>null</code> for the default one
+	 * @return number of entries not handled yet by the consumer of the given group,
+	 *			or <code>-1</code> if there is no such group
+	 */
+	public long getLag(final String consumerGroup) {
+		for (int g = 0; g < consumerGroups.length; g++) {
+			if (Objects.equals(consumerGroups[g], consumerGroup)) {
+				return entryHandlers[g].getLag();
+			}
+		}
+		return -1L;
+	}
+
+	@Override
+	protected boolean zeroCopy() {
+		return zeroCopy;
+	}
+
+	@Override
+	protected boolean binary() {
+		return binary;
+	}
+
+	/**
+	 * @return renderer of binary records, <code>null</code> if it is not a binary mode
+	 */
+	BinaryEntryRenderer createRenderer() {
+		if (!binary) return null;
+		final int maxMessageSize0 = multibyte ? maxMessageSize << 1 : maxMessageSize;
+		return new BinaryEntryRenderer(patterns, getFormattingStrategy(),
+			initEnties(1, maxMessageSize0)[0], multibyte);
+	}
+
+	/**
+	 * @return buffer of the slot the message is written into
+	 */
+	private Buffer slotBuffer(final LogEntryItemImpl entry) {
+		return multibyte && !binary ? entry.getCharBuffer() : entry.getBuffer();
+	}
+
+	@Override
+	protected boolean entryStarted(final LocalLogEntry localEntry) {
+		if (!zeroCopy) return true;
+
+		final BatchRange batch = localEntry.getBatch();
+		final long next;
+		if (batch.hasNext()) {
+			next = batch.next();
+		} else {
+			final long timeout = claimTimeout(localEntry);
+			next = timeout < 0L ? ringBuffer.next() : ringBuffer.tryNext(timeout);
+			if (next < 0L) {
+				entryDropped(localEntry);
+				localEntry.setCommited(true);
+				return false;
+			}
+			claim(next, Thread.currentThread());
+		}
+
+		final LogEntryItemImpl entry = ringBuffer.get(next);
+		localEntry.setSlot(next);
+		// zero-copy service creates buffer based entries only
+		((AttachableLogEntry) localEntry).attach(slotBuffer(entry));
+		return true;
+	}
+
 	@Override
 	public void entryFlushed(final LocalLogEntry localEntry) {
+		if (zeroCopy) {
+			slotFlushed(localEntry);
+			return;
+		}
+
 		final String categoryName = localEntry.getCategoryName();
 		final LogLevel logLevel = localEntry.getLogLevel();
 		final String threadName = localEntry.getThreadName();
@@ -121,7 +377,20 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 
 		final long now = System.currentTimeMillis();
 
-		final long next = ringBuffer.next();
+		final BatchRange batch = localEntry.getBatch();
+		final boolean batched = batch.hasNext();
+
+		final long next;
+		if (batched) {
+			next = batch.next();
+		} else {
+			final long timeout = claimTimeout(localEntry);
+			next = timeout < 0L ? ringBuffer.next() : ringBuffer.tryNext(timeout);
+			if (next < 0L) {
+				entryDropped(localEntry);
+				return;
+			}
+		}
 		final LogEntryItemImpl entry = ringBuffer.get(next);
 
 		try {
@@ -131,14 +400,168 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 			entry.setTimestamp(now);
 			entry.setAppenderMask(appenderMask);
 
-			if (multibyte) {
+			if (multibyte && !binary) {
 				localEntry.copyTo(entry.getCharBuffer());
 			} else {
 				localEntry.copyTo(entry.getBuffer());
 			}
 		} finally {
-			ringBuffer.publish(next);
+			if (!batched) {
+				ringBuffer.publish(next);
+			} else if (next == batch.getHi()) {
+				// full batch is published at once, the rest goes one by one
+				ringBuffer.publish(batch.getLo(), next);
+				batch.end();
+			}
+		}
+	}
+
+	private void slotFlushed(final LocalLogEntry localEntry) {
+		final long next = localEntry.getSlot();
+		localEntry.setSlot(RingBuffer.INITIAL_CURSOR_VALUE);
+
+		final BatchRange batch = localEntry.getBatch();
+		final boolean batched = batch.isActive() && batch.getLo() <= next && next <= batch.getHi();
+
+		final boolean last = batched && next == batch.getHi();
+
+		final int idx = index(next);
+		if (!claims.compareAndSet(idx, next, BUSY)) {
+			// the consumer has skipped the slot as abandoned
+			entryDropped(localEntry);
+			if (last) {
+				publishClaimed(batch.getLo(), next);
+				batch.end();
+			}
+			return;
+		}
+
+		final LogEntryItemImpl entry = ringBuffer.get(next);
+		try {
+			entry.setCategoryName(localEntry.getCategoryName());
+			entry.setLogLevel(localEntry.getLogLevel());
+			entry.setThreadName(localEntry.getThreadName());
+			entry.setTimestamp(System.currentTimeMillis());
+			entry.setAppenderMask(localEntry.getAppenderMask());
+
+			// message is already in the slot, commit has flipped it
+			final Buffer buffer = slotBuffer(entry);
+			final int size = buffer.limit();
+			buffer.limit(buffer.capacity());
+			buffer.position(size);
+		} finally {
+			// committed, the batch is published once it is complete
+			claims.set(idx, ~next);
+			if (!batched) {
+				publishClaimed(next, next);
+			} else if (last) {
+				publishClaimed(batch.getLo(), next);
+				batch.end();
+			}
+		}
+	}
+
+	private int index(final long sequence) {
+		return (int) (sequence & (claims.length() - 1));
+	}
+
+	private void claim(final long sequence, final Thread owner) {
+		final int idx = index(sequence);
+		owners.lazySet(idx, owner);
+		// the claim is visible after its owner
+		claims.set(idx, sequence);
+	}
+
+	/**
+	 * @return <code>true</code> if the slot is released by its owner,
+	 *			<code>false</code> if the consumer has already skipped it
+	 */
+	private boolean release(final long sequence) {
+		final int idx = index(sequence);
+		if (claims.compareAndSet(idx, ~sequence, FREE)
+			|| claims.compareAndSet(idx, sequence, FREE)) {
+			owners.lazySet(idx, null);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * publishes slots of the range which have not been skipped by the consumer,
+	 * the range is published at once unless some of them have been skipped
+	 */
+	private void publishClaimed(final long lo, final long hi) {
+		long i = lo;
+		while (i <= hi && release(i)) i++;
+		if (i > lo) {
+			ringBuffer.publish(lo, i - 1);
+		}
+		for (i++; i <= hi; i++) {
+			if (release(i)) {
+				ringBuffer.publish(i);
+			}
+		}
+	}
+
+	/**
+	 * skips the slot claimed up front by a thread which has died before commit,
+	 * a live owner could still write into the slot
+	 */
+	void releaseAbandoned(final long sequence) {
+		if (!zeroCopy || ringBuffer.getCursor() < sequence) return;
+
+		final int idx = index(sequence);
+		final long claim = claims.get(idx);
+		final boolean committed = claim == ~sequence;
+		if (claim != sequence && !committed) return;
+
+		final Thread owner = owners.get(idx);
+		if (owner != null && owner.isAlive()) return;
+
+		if (!claims.compareAndSet(idx, claim, FREE)) return;
+
+		owners.lazySet(idx, null);
+		if (!committed) {
+			ringBuffer.get(sequence).setAppenderMask(0L);
+		}
+		ringBuffer.publish(sequence);
+	}
+
+	@Override
+	public void beginBatch(final int size) {
+		final BatchRange batch = newBatch();
+		if (batch == null) return;
+		final int n = Math.min(size, ringBuffer.size());
+		final long hi = ringBuffer.next(n);
+		batch.begin(hi - n + 1, hi);
+		if (zeroCopy) {
+			final Thread owner = Thread.currentThread();
+			for (long i = hi - n + 1; i <= hi; i++) {
+				claim(i, owner);
+			}
+		}
+	}
+
+	@Override
+	public void endBatch() {
+		final BatchRange batch = currentBatch();
+		if (batch == null || !batch.isActive()) return;
+
+		// not used entries have to be skipped by appenders
+		for (long i = batch.getNext(), hi = batch.getHi(); i <= hi; i++) {
+			if (!zeroCopy) {
+				ringBuffer.get(i).setAppenderMask(0L);
+			} else if (claims.compareAndSet(index(i), i, BUSY)) {
+				ringBuffer.get(i).setAppenderMask(0L);
+				claims.set(index(i), ~i);
+			}
+		}
+		if (zeroCopy) {
+			publishClaimed(batch.getLo(), batch.getHi());
+		} else {
+			ringBuffer.publish(batch.getLo(), batch.getHi());
 		}
+		batch.end();
 	}
 
 	@Override
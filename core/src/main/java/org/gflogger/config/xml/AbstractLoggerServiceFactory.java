@@ -16,10 +16,14 @@ package org.gflogger.config.xml;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import org.gflogger.AbstractLoggerServiceImpl;
 import org.gflogger.DefaultObjectFormatterFactory;
 import org.gflogger.GFLoggerBuilder;
+import org.gflogger.LogLevel;
 import org.gflogger.ObjectFormatter;
+import org.gflogger.OverflowPolicy;
 import org.gflogger.appender.AppenderFactory;
 
 /**
@@ -38,6 +42,24 @@ abstract class AbstractLoggerServiceFactory implements LoggerServiceFactory {
 
 	protected int maxMessageSize;
 
+	protected OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+	protected LogLevel overflowLevel = LogLevel.WARN;
+
+	// in ms
+	protected long overflowTimeout = 10L;
+
+	protected int entryPoolSize;
+
+	// in ms
+	protected long flushMaxAge;
+
+	protected boolean flushOnEndOfBatch;
+
+	protected double flushFillRatio;
+
+	protected LogLevel flushLevel;
+
 	public int getCount() {
 		return count;
 	}
@@ -56,6 +78,82 @@ abstract class AbstractLoggerServiceFactory implements LoggerServiceFactory {
 		this.maxMessageSize = maxMessageSize;
 	}
 
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public LogLevel getOverflowLevel() {
+		return overflowLevel;
+	}
+
+	public void setOverflowLevel(LogLevel overflowLevel) {
+		this.overflowLevel = overflowLevel;
+	}
+
+	public long getOverflowTimeout() {
+		return overflowTimeout;
+	}
+
+	public void setOverflowTimeout(long overflowTimeout) {
+		this.overflowTimeout = overflowTimeout;
+	}
+
+	public int getEntryPoolSize() {
+		return entryPoolSize;
+	}
+
+	public void setEntryPoolSize(int entryPoolSize) {
+		this.entryPoolSize = entryPoolSize;
+	}
+
+	public long getFlushMaxAge() {
+		return flushMaxAge;
+	}
+
+	public void setFlushMaxAge(long flushMaxAge) {
+		this.flushMaxAge = flushMaxAge;
+	}
+
+	public boolean isFlushOnEndOfBatch() {
+		return flushOnEndOfBatch;
+	}
+
+	public void setFlushOnEndOfBatch(boolean flushOnEndOfBatch) {
+		this.flushOnEndOfBatch = flushOnEndOfBatch;
+	}
+
+	public double getFlushFillRatio() {
+		return flushFillRatio;
+	}
+
+	public void setFlushFillRatio(double flushFillRatio) {
+		this.flushFillRatio = flushFillRatio;
+	}
+
+	public LogLevel getFlushLevel() {
+		return flushLevel;
+	}
+
+	public void setFlushLevel(LogLevel flushLevel) {
+		this.flushLevel = flushLevel;
+	}
+
+	protected <T extends AbstractLoggerServiceImpl> T configure(final T service) {
+		service.setOverflowPolicy(overflowPolicy);
+		service.setOverflowLevel(overflowLevel);
+		service.setOverflowTimeout(overflowTimeout, TimeUnit.MILLISECONDS);
+		service.setEntryPoolSize(entryPoolSize);
+		service.setFlushMaxAge(flushMaxAge, TimeUnit.MILLISECONDS);
+		service.setFlushOnEndOfBatch(flushOnEndOfBatch);
+		service.setFlushFillRatio(flushFillRatio);
+		service.setFlushLevel(flushLevel);
+		return service;
+	}
+
 	@Override
 	public void addAppenderFactory(AppenderFactory factory) {
 		appenderFactories.add(factory);
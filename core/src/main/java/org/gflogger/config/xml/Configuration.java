@@ -53,6 +53,8 @@ public class Configuration extends DefaultHandler {
 
 	private LoggerServiceFactory				loggerServiceFactory;
 
+	private boolean								loggerServiceFactoryConfigured;
+
 	private LoggerService						loggerService;
 
 	public Map<String, AppenderFactory> getAppenderFactories() {
@@ -61,6 +63,17 @@ public class Configuration extends DefaultHandler {
 
 	public LoggerService getLoggerService() {
 		if (loggerService == null) {
+			loggerService = getLoggerServiceFactory().createService();
+			debug("Created LoggerService.");
+		}
+		return loggerService;
+	}
+
+	/**
+	 * @return service factory with all appenders, loggers and object formatters
+	 */
+	public LoggerServiceFactory getLoggerServiceFactory() {
+		if (!loggerServiceFactoryConfigured) {
 			for (final AppenderFactory appenderFactory: appenderFactories.values()) {
 				loggerServiceFactory.addAppenderFactory(appenderFactory);
 			}
@@ -71,11 +84,9 @@ public class Configuration extends DefaultHandler {
 			for (final Entry<Class, ObjectFormatter> entry : objectFormatters.entrySet()) {
 				loggerServiceFactory.addObjectFormatter(entry.getKey(), entry.getValue());
 			}
-
-			loggerService = loggerServiceFactory.createService();
-			debug("Created LoggerService.");
+			loggerServiceFactoryConfigured = true;
 		}
-		return loggerService;
+		return loggerServiceFactory;
 	}
 
 	private String getAttribute(Attributes attributes, String name) {
@@ -14,10 +14,12 @@
 
 package org.gflogger.config.xml;
 
+import com.lmax.disruptor.dsl.ProducerType;
 import org.gflogger.GFLoggerBuilder;
 import org.gflogger.LoggerService;
 import org.gflogger.appender.AppenderFactory;
 import org.gflogger.disruptor.LoggerServiceImpl;
+import org.gflogger.disruptor.WaitStrategyType;
 
 
 /**
@@ -27,14 +29,36 @@ import org.gflogger.disruptor.LoggerServiceImpl;
  */
 public class DLoggerServiceFactory extends AbstractLoggerServiceFactory {
 
+	protected WaitStrategyType waitStrategy = WaitStrategyType.BLOCKING;
+
+	protected ProducerType producerType = ProducerType.MULTI;
+
+	public WaitStrategyType getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	public void setWaitStrategy(WaitStrategyType waitStrategy) {
+		this.waitStrategy = waitStrategy;
+	}
+
+	public ProducerType getProducerType() {
+		return producerType;
+	}
+
+	public void setProducerType(ProducerType producerType) {
+		this.producerType = producerType;
+	}
+
 	@Override
 	public LoggerService createService() {
-		return new LoggerServiceImpl(
+		return configure(new LoggerServiceImpl(
 				count,
 				maxMessageSize,
+				waitStrategy.create(),
+				producerType,
 				objectFormatterFactory,
 				loggersBuilders.toArray(new GFLoggerBuilder[loggersBuilders.size()]),
-				appenderFactories.toArray(new AppenderFactory[appenderFactories.size()]));
+				appenderFactories.toArray(new AppenderFactory[appenderFactories.size()])));
 	}
 
 }
\ No newline at end of file
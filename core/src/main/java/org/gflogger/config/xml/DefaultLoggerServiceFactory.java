@@ -18,6 +18,7 @@ import org.gflogger.GFLoggerBuilder;
 import org.gflogger.LoggerService;
 import org.gflogger.appender.AppenderFactory;
 import org.gflogger.base.LoggerServiceImpl;
+import org.gflogger.ring.WaitStrategyType;
 
 
 /**
@@ -27,15 +28,48 @@ import org.gflogger.base.LoggerServiceImpl;
  */
 public class DefaultLoggerServiceFactory extends AbstractLoggerServiceFactory {
 
+	protected WaitStrategyType waitStrategy = WaitStrategyType.BLOCKING;
+
+	protected boolean zeroCopy;
+
+	protected boolean binary;
+
+	public WaitStrategyType getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	public void setWaitStrategy(WaitStrategyType waitStrategy) {
+		this.waitStrategy = waitStrategy;
+	}
+
+	public boolean isZeroCopy() {
+		return zeroCopy;
+	}
+
+	public void setZeroCopy(boolean zeroCopy) {
+		this.zeroCopy = zeroCopy;
+	}
+
+	public boolean isBinary() {
+		return binary;
+	}
+
+	public void setBinary(boolean binary) {
+		this.binary = binary;
+	}
+
 	@Override
 	public LoggerService createService() {
-		return new LoggerServiceImpl(
+		return configure(new LoggerServiceImpl(
 			count,
 			maxMessageSize,
+			waitStrategy.create(),
+			zeroCopy,
+			binary,
 			objectFormatterFactory,
 			loggersBuilders.toArray(new GFLoggerBuilder[loggersBuilders.size()]),
 			appenderFactories.toArray(new AppenderFactory[appenderFactories.size()])
-		);
+		));
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
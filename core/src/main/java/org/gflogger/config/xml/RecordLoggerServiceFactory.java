@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.config.xml;
+
+import java.io.File;
+
+import org.gflogger.GFLoggerBuilder;
+import org.gflogger.LoggerService;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.record.LoggerServiceImpl;
+import org.gflogger.record.RingFileMode;
+import org.gflogger.ring.WaitStrategyType;
+
+
+/**
+ * creates {@link LoggerServiceImpl} with variable length records,
+ * <code>bufferSize</code> is the size of the ring in bytes, if it is not set
+ * the ring takes <code>count</code> records of a typical size (256 bytes),
+ * it is rounded up to fit two records of <code>maxMessageSize</code> at least.
+ * <code>ringFile</code> maps the ring to the file to survive a crash or,
+ * depending on <code>ringFileMode</code>, to share it with another process.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class RecordLoggerServiceFactory extends AbstractLoggerServiceFactory {
+
+	// a typical size of a record (incl. header) in bytes
+	private static final int DEFAULT_RECORD_SIZE = 256;
+
+	protected int bufferSize;
+
+	protected WaitStrategyType waitStrategy = WaitStrategyType.BLOCKING;
+
+	protected String ringFile;
+
+	protected RingFileMode ringFileMode = RingFileMode.PRIVATE;
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	public WaitStrategyType getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	public void setWaitStrategy(WaitStrategyType waitStrategy) {
+		this.waitStrategy = waitStrategy;
+	}
+
+	public String getRingFile() {
+		return ringFile;
+	}
+
+	public void setRingFile(String ringFile) {
+		this.ringFile = ringFile;
+	}
+
+	public RingFileMode getRingFileMode() {
+		return ringFileMode;
+	}
+
+	public void setRingFileMode(RingFileMode ringFileMode) {
+		this.ringFileMode = ringFileMode;
+	}
+
+	@Override
+	public LoggerService createService() {
+		return createService(ringFileMode);
+	}
+
+	/**
+	 * creates the service with the given ring file mode regardless of configured one,
+	 * e.g. the consumer of the shared ring file
+	 */
+	public LoggerService createService(RingFileMode ringFileMode) {
+		return configure(new LoggerServiceImpl(
+			bufferSize > 0 ? bufferSize : count * DEFAULT_RECORD_SIZE,
+			maxMessageSize,
+			waitStrategy.create(),
+			ringFile != null ? new File(ringFile) : null,
+			ringFileMode,
+			objectFormatterFactory,
+			loggersBuilders.toArray(new GFLoggerBuilder[loggersBuilders.size()]),
+			appenderFactories.toArray(new AppenderFactory[appenderFactories.size()])
+		));
+	}
+
+}
@@ -41,6 +41,23 @@ public final class XmlLogFactoryConfigurator {
 	}
 
 	public static void configure(final String xmlFileName) throws Exception {
+		configure(open(xmlFileName));
+	}
+
+	/**
+	 * parses the configuration without initializing {@link GFLogFactory}
+	 */
+	public static Configuration parse(final String xmlFileName) throws Exception {
+		final InputStream in = open(xmlFileName);
+		if (in == null) throw new IllegalArgumentException("Can't find " + xmlFileName);
+		try {
+			return parse(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static InputStream open(final String xmlFileName) throws Exception {
 		if (xmlFileName == null) {
 			throw new IllegalArgumentException("Non null xml file is expected");
 		}
@@ -57,7 +74,7 @@ public final class XmlLogFactoryConfigurator {
 				? xmlFileName.substring(FILE_PREFIX.length()) : xmlFileName;
 			is = XmlLogFactoryConfigurator.class.getClassLoader().getResourceAsStream(f);
 		}
-		configure(is);
+		return is;
 	}
 
 	public static void configure() throws Exception {
@@ -67,30 +84,33 @@ public final class XmlLogFactoryConfigurator {
 	private XmlLogFactoryConfigurator(final InputStream in) throws Exception {
 		if (in == null) throw new IllegalArgumentException("Not a null input stream is expected.");
 		try {
-			final SAXParserFactory factory = SAXParserFactory.newInstance();
-			final SAXParser saxParser;
-
-			final InputStream is = getClass().getClassLoader().getResourceAsStream("gflogger.xsd");
+			GFLogFactory.init(parse(in).getLoggerService());
+		} finally {
+			in.close();
+		}
+	}
 
-			if (is != null) {
-				factory.setNamespaceAware(true);
-				factory.setValidating(true);
+	private static Configuration parse(final InputStream in) throws Exception {
+		final SAXParserFactory factory = SAXParserFactory.newInstance();
+		final SAXParser saxParser;
 
-				saxParser = factory.newSAXParser();
-				saxParser.setProperty( "http://java.sun.com/xml/jaxp/properties/schemaLanguage",
-					"http://www.w3.org/2001/XMLSchema");
-				saxParser.setProperty( "http://java.sun.com/xml/jaxp/properties/schemaSource",
-					is);
-			} else {
-				saxParser = factory.newSAXParser();
-			}
+		final InputStream is = XmlLogFactoryConfigurator.class.getClassLoader().getResourceAsStream("gflogger.xsd");
 
-			final Configuration configuration = new Configuration();
-			saxParser.parse(in, configuration);
+		if (is != null) {
+			factory.setNamespaceAware(true);
+			factory.setValidating(true);
 
-			GFLogFactory.init(configuration.getLoggerService());
-		} finally {
-			in.close();
+			saxParser = factory.newSAXParser();
+			saxParser.setProperty( "http://java.sun.com/xml/jaxp/properties/schemaLanguage",
+				"http://www.w3.org/2001/XMLSchema");
+			saxParser.setProperty( "http://java.sun.com/xml/jaxp/properties/schemaSource",
+				is);
+		} else {
+			saxParser = factory.newSAXParser();
 		}
+
+		final Configuration configuration = new Configuration();
+		saxParser.parse(in, configuration);
+		return configuration;
 	}
 }
@@ -49,5 +49,24 @@ public final class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl>
 	public void onEvent(LogEntryItemImpl event, long sequence, boolean endOfBatch)
 			throws Exception {
 		process(event);
+		if (endOfBatch) {
+			reportDropped();
+		}
+		flushIfDue(endOfBatch);
+	}
+
+	/**
+	 * takes the latest sync request before the consumer waits for entries
+	 */
+	void onWait() {
+		observeSyncRequest();
+	}
+
+	/**
+	 * flushes appenders once the consumer has run out of entries
+	 */
+	void flushOnIdle() {
+		flushBuffer();
+		syncIfRequested();
 	}
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.disruptor;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
+import org.gflogger.State;
+
+/**
+ * FlushOnIdleWaitStrategy flushes appenders each time the consumer has run out
+ * of entries and then waits with the given strategy. It halts the consumer
+ * of the stopped service once the ring is drained: the alert raised by
+ * the service could be lost if the consumer has not been started yet.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+final class FlushOnIdleWaitStrategy implements WaitStrategy {
+
+	private final WaitStrategy delegate;
+	private final LoggerServiceImpl service;
+
+	FlushOnIdleWaitStrategy(final WaitStrategy delegate, final LoggerServiceImpl service) {
+		this.delegate = delegate;
+		this.service = service;
+	}
+
+	@Override
+	public long waitFor(
+		final long sequence,
+		final Sequence cursor,
+		final Sequence dependentSequence,
+		final SequenceBarrier barrier
+	) throws AlertException, InterruptedException, TimeoutException {
+		service.onWait();
+		if (dependentSequence.get() < sequence) {
+			service.flush();
+			// entries could be published while appenders are flushed
+			if (service.getState() == State.STOPPED && dependentSequence.get() < sequence) {
+				service.halt();
+				throw AlertException.INSTANCE;
+			}
+		}
+		return delegate.waitFor(sequence, cursor, dependentSequence, barrier);
+	}
+
+	@Override
+	public void signalAllWhenBlocking() {
+		delegate.signalAllWhenBlocking();
+	}
+
+}
@@ -17,18 +17,18 @@ package org.gflogger.disruptor;
 import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
 
-import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.BlockingWaitStrategy;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
 import com.lmax.disruptor.RingBuffer;
-import com.lmax.disruptor.Sequence;
-import com.lmax.disruptor.SequenceBarrier;
 import com.lmax.disruptor.TimeoutException;
 import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import org.gflogger.AbstractLoggerServiceImpl;
 import org.gflogger.Appender;
+import org.gflogger.BatchRange;
 import org.gflogger.FormattingStrategy;
 import org.gflogger.GFLogger;
 import org.gflogger.GFLoggerBuilder;
@@ -47,6 +47,12 @@ import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
 /**
  * garbage-free logger service implementation on the top of LMAX's disruptor.
  *
+ * <p>
+ * Appenders are flushed each time the consumer runs out of entries regardless
+ * of the wait strategy, see {@link FlushOnIdleWaitStrategy}.
+ * {@link ProducerType#SINGLE} avoids CAS on the claim but it is safe only if
+ * there is the only one thread which logs.
+ *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
 public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
@@ -55,17 +61,35 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 
 	private final RingBuffer<LogEntryItemImpl>	ringBuffer;
 
-	private final WaitStrategyImpl	strategy;
+	private final WaitStrategy	strategy;
+
+	private final EntryHandler	entryHandler;
+
+	/**
+	 * @param count a number of items in the ring
+	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(final int count, final int maxMessageSize,
+		final GFLoggerBuilder[] loggerBuilders,
+		final AppenderFactory ... appenderFactories) {
+		this(count, maxMessageSize, new BlockingWaitStrategy(), ProducerType.MULTI, null,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggerBuilders));
+	}
 
 	/**
 	 * @param count a number of items in the ring
 	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param objectFormatterFactory
 	 * @param appenderFactories
 	 */
 	public LoggerServiceImpl(final int count, final int maxMessageSize,
+		final ObjectFormatterFactory objectFormatterFactory,
 		final GFLoggerBuilder[] loggerBuilders,
 		final AppenderFactory ... appenderFactories) {
-		this(count, maxMessageSize, null,
+		this(count, maxMessageSize, new BlockingWaitStrategy(), ProducerType.MULTI,
+			objectFormatterFactory,
 			createAppenders(appenderFactories),
 			createLoggers(appenderFactories, loggerBuilders));
 	}
@@ -73,14 +97,18 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 	/**
 	 * @param count a number of items in the ring
 	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param producerType {@link ProducerType#SINGLE} if there is the only one thread which logs
 	 * @param objectFormatterFactory
 	 * @param appenderFactories
 	 */
 	public LoggerServiceImpl(final int count, final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final ProducerType producerType,
 		final ObjectFormatterFactory objectFormatterFactory,
 		final GFLoggerBuilder[] loggerBuilders,
 		final AppenderFactory ... appenderFactories) {
-		this(count, maxMessageSize, objectFormatterFactory,
+		this(count, maxMessageSize, waitStrategy, producerType, objectFormatterFactory,
 			createAppenders(appenderFactories),
 			createLoggers(appenderFactories, loggerBuilders));
 	}
@@ -88,10 +116,14 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 	/**
 	 * @param count a number of items in the ring
 	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param producerType
 	 * @param objectFormatterFactory
 	 * @param appenders
 	 */
 	private LoggerServiceImpl(final int count, final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final ProducerType producerType,
 		final ObjectFormatterFactory objectFormatterFactory,
 		final Appender[] appenders,
 		final GFLogger[] loggers) {
@@ -106,7 +138,7 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 		final int bufferSize = multibyte ? maxMessageSize << 1 : maxMessageSize;
 		final ByteBuffer buffer = allocate(c * bufferSize);
 
-		strategy = new WaitStrategyImpl();
+		strategy = new FlushOnIdleWaitStrategy(waitStrategy, this);
 
 		final LoggerServiceImpl service = this;
 
@@ -123,7 +155,7 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 			}
 		},c,
 		executorService,
-		ProducerType.MULTI,
+		producerType,
 		strategy);
 
 		disruptor.handleExceptionsWith(new ExceptionHandler() {
@@ -147,7 +179,7 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 			}
 		});
 
-		final EntryHandler entryHandler = new EntryHandler(this, appenders);
+		entryHandler = new EntryHandler(this, appenders);
 		disruptor.handleEventsWith(entryHandler);
 
 		ringBuffer = disruptor.start();
@@ -163,7 +195,20 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 
 		final long now = System.currentTimeMillis();
 
-		long sequence = ringBuffer.next();
+		final BatchRange batch = localEntry.getBatch();
+		final boolean batched = batch.hasNext();
+
+		final long sequence;
+		if (batched) {
+			sequence = batch.next();
+		} else {
+			final long timeout = claimTimeout(localEntry);
+			sequence = timeout < 0L ? ringBuffer.next() : tryNext(timeout);
+			if (sequence < 0L) {
+				entryDropped(localEntry);
+				return;
+			}
+		}
 		final LogEntryItemImpl entry = ringBuffer.get(sequence);
 		try {
 			entry.setCategoryName(categoryName);
@@ -178,25 +223,73 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 				localEntry.copyTo(entry.getBuffer());
 			}
 		} finally {
-			ringBuffer.publish(sequence);
+			if (!batched) {
+				ringBuffer.publish(sequence);
+			} else if (sequence == batch.getHi()) {
+				// full batch is published at once, the rest goes one by one
+				ringBuffer.publish(batch.getLo(), sequence);
+				batch.end();
+			}
+		}
+	}
+
+	private long tryNext(final long timeoutNanos) {
+		long deadline = 0L;
+		while (true) {
+			try {
+				return ringBuffer.tryNext();
+			} catch (InsufficientCapacityException e) {
+				// exception is a singleton, there is no garbage
+				if (timeoutNanos <= 0L) return -1L;
+				final long now = System.nanoTime();
+				if (deadline == 0L) {
+					deadline = now + timeoutNanos;
+				} else if (now - deadline >= 0L) {
+					return -1L;
+				}
+				Thread.yield();
+			}
+		}
+	}
+
+	@Override
+	public void beginBatch(final int size) {
+		final BatchRange batch = newBatch();
+		if (batch == null) return;
+		final int n = Math.min(size, ringBuffer.getBufferSize());
+		final long hi = ringBuffer.next(n);
+		batch.begin(hi - n + 1, hi);
+	}
+
+	@Override
+	public void endBatch() {
+		final BatchRange batch = currentBatch();
+		if (batch == null || !batch.isActive()) return;
+
+		// not used entries have to be skipped by appenders
+		for (long i = batch.getNext(), hi = batch.getHi(); i <= hi; i++) {
+			ringBuffer.get(i).setAppenderMask(0L);
 		}
+		ringBuffer.publish(batch.getLo(), batch.getHi());
+		batch.end();
 	}
 
 	@Override
 	public void stop() {
 		if (state == State.STOPPED) return;
 		state = State.STOPPED;
-		strategy.signalAllWhenBlocking();
-//		for (int i = 0; i < appenders.length; i++) {
-//			appenders[i].stop();
-//		}
+		try {
+			// let the consumer drain the ring
+			disruptor.shutdown(5, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			disruptor.halt();
+		}
 		executorService.shutdown();
 		try {
 			executorService.awaitTermination(5, TimeUnit.SECONDS);
 		} catch (InterruptedException e) {
 			// ignore
 		}
-		disruptor.halt();
 
 		super.stop();
 	}
@@ -211,65 +304,27 @@ public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
 		return new StringFormattingStrategy();
 	}
 
-	void flush() {
-		for (int i = 0; i < appenders.length; i++) {
-			appenders[i].flush();
-		}
+	void halt() {
+		disruptor.halt();
 	}
 
-	private class WaitStrategyImpl implements WaitStrategy {
-
-		private volatile int numWaiters = 0;
-		private boolean signalled;
-		private final Object lock = new Object();
-
-		public long waitFor(
-			long sequence,
-			Sequence cursor,
-			Sequence dependentSequence,
-			SequenceBarrier barrier
-		) throws AlertException, InterruptedException, TimeoutException {
-			long availableSequence;
-			if ((availableSequence = cursor.get()) < sequence) {
-				flush();
-				synchronized (lock) {
-					++numWaiters;
-					while ((availableSequence = cursor.get()) < sequence) {
-						if (state == State.STOPPED) {
-							disruptor.halt();
-							throw AlertException.INSTANCE;
-						}
-						barrier.checkAlert();
-						//*/
-						lock.wait();
-						/*/
-						Thread.sleep(1);
-						//*/
-					}
-					--numWaiters;
-				}
-			}
-			while ((availableSequence = dependentSequence.get()) < sequence) {
-				barrier.checkAlert();
-			}
-
-			return availableSequence;
-		}
+	void onWait() {
+		entryHandler.onWait();
+	}
 
-		@Override
-		public void signalAllWhenBlocking() {
-			//*/
-			if (0 != numWaiters) {
-				// TODO: remove sync notification
-				synchronized (lock) {
-					signalled = true;
-					lock.notifyAll();
-				}
-			}
-			/*/
-			//*/
-		}
+	void flush() {
+		entryHandler.flushOnIdle();
+	}
 
+	/**
+	 * publishes an entry skipped by appenders to wake up the consumer
+	 */
+	@Override
+	protected void wakeUpConsumers() {
+		if (state != State.RUNNING) return;
+		final long sequence = ringBuffer.next();
+		ringBuffer.get(sequence).setAppenderMask(0L);
+		ringBuffer.publish(sequence);
 	}
 
 }
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.disruptor;
+
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.PhasedBackoffWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+
+/**
+ * WaitStrategyType enumerates disruptor's {@link WaitStrategy}s could be picked up
+ * by a name, e.g. <code>&lt;service waitStrategy="YIELDING" .../&gt;</code>
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public enum WaitStrategyType {
+
+	/**
+	 * consumer waits on a lock, the lowest CPU usage
+	 */
+	BLOCKING {
+		@Override
+		public WaitStrategy create() {
+			return new BlockingWaitStrategy();
+		}
+	},
+
+	/**
+	 * consumer spins in a tight loop, the lowest latency, requires a dedicated core
+	 */
+	BUSY_SPIN {
+		@Override
+		public WaitStrategy create() {
+			return new BusySpinWaitStrategy();
+		}
+	},
+
+	/**
+	 * consumer spins and then yields
+	 */
+	YIELDING {
+		@Override
+		public WaitStrategy create() {
+			return new YieldingWaitStrategy();
+		}
+	},
+
+	/**
+	 * consumer spins, yields and then parks for a short period
+	 */
+	SLEEPING {
+		@Override
+		public WaitStrategy create() {
+			return new SleepingWaitStrategy();
+		}
+	},
+
+	/**
+	 * consumer spins, yields and then falls back to {@link #BLOCKING}
+	 */
+	PHASED_BACKOFF {
+		@Override
+		public WaitStrategy create() {
+			return PhasedBackoffWaitStrategy.withLock(10, 100, TimeUnit.MICROSECONDS);
+		}
+	},
+
+	/**
+	 * consumer waits on a lock up to 10ms, so appenders are flushed periodically
+	 * even if there is no new entries
+	 */
+	TIMEOUT_BLOCKING {
+		@Override
+		public WaitStrategy create() {
+			return new TimeoutBlockingWaitStrategy(10, TimeUnit.MILLISECONDS);
+		}
+	};
+
+	public abstract WaitStrategy create();
+
+}
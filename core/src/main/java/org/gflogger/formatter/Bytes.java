@@ -243,7 +243,7 @@ public final class Bytes {
 			DirectBuffer db = (DirectBuffer) buffer;
 
 			copyFromArray(bs, arrayBaseOffset, 0 << 0,
-				db.address(), pos << 0);
+				db.address() + buffer.position(), pos << 0);
 
 			buffer.position(buffer.position() + pos);
 		} else {
@@ -423,7 +423,7 @@ public class PatternParser {
 //				return event.getNDC();
 			case MESSAGE_CONVERTER: {
 				final ByteBuffer buffer = item.getBuffer();
-				return buffer.position();
+				return buffer.position() - item.getOffset();
 			}
 			default:
 			}
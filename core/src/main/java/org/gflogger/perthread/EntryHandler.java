@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.perthread;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.AbstractEntryHandler;
+import org.gflogger.Appender;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.State;
+import org.gflogger.appender.AbstractAsyncAppender;
+import org.gflogger.helpers.LogLog;
+import org.gflogger.ring.AlertException;
+import org.gflogger.ring.SingleProducerRingBuffer;
+
+/**
+ * EntryHandler drains rings of all producer threads and merges their entries
+ * in the timestamp order.
+ *
+ * <p>
+ * Only entries published at the moment of a drain pass take part in the merge,
+ * so the order is guaranteed within a pass and within every producer thread.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implements Runnable {
+
+	// how often rings of dead producer threads are released, in ms
+	private static final long RELEASE_ORPHANED_INTERVAL = 1000L;
+
+	protected boolean immediateFlush = false;
+	protected int bufferedIOThreshold = 10000;
+	protected long awaitTimeout = 10L;
+
+	// per ring merge state, grows with a number of producer threads
+	private long[] nextSequences = new long[0];
+	private long[] availableSequences = new long[0];
+
+	private long nextOrphanedRelease;
+
+	public EntryHandler(LoggerServiceImpl service, Appender[] appenders) {
+		super(service, appenders);
+		for (Appender appender : appenders) {
+			if (appender instanceof AbstractAsyncAppender) {
+				immediateFlush |= ((AbstractAsyncAppender) appender).isImmediateFlush();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		LogLog.debug(Thread.currentThread().getName() + " is started.");
+
+		long loopCounter = 0;
+		while (true) {
+			try {
+				observeSyncRequest();
+				if (service.waitFor(flushAwaitTimeout(awaitTimeout), TimeUnit.MILLISECONDS)) {
+					// handle all available changes in a row
+					drain(service.getRings());
+				}
+
+				// under steady load as well as on idle
+				final long now = System.currentTimeMillis();
+				if (now >= nextOrphanedRelease) {
+					service.releaseOrphanedRings();
+					nextOrphanedRelease = now + RELEASE_ORPHANED_INTERVAL;
+				}
+
+				reportDropped();
+
+				// there are no more entries available at the moment
+				flushIfDue(true);
+
+				if (loopCounter > bufferedIOThreshold) {
+					flushBuffer();
+					loopCounter = 0;
+				}
+
+				loopCounter++;
+			} catch (InterruptedException e) {
+				//
+			} catch (AlertException e) {
+				if (service.getState() == State.STOPPED) {
+					break;
+				}
+			} catch (Throwable e) {
+				LogLog.error("Unhandled exception " + e.getMessage() + " at " + Thread.currentThread().getName(), e);
+			}
+		}
+		stop();
+		LogLog.debug(Thread.currentThread().getName() + " is finished. ");
+	}
+
+	private void drain(final SingleProducerRingBuffer<LogEntryItemImpl>[] rings) {
+		final int length = rings.length;
+		if (nextSequences.length < length) {
+			nextSequences = new long[length];
+			availableSequences = new long[length];
+		}
+
+		for (int i = 0; i < length; i++) {
+			nextSequences[i] = rings[i].getConsumed() + 1;
+			availableSequences[i] = rings[i].getCursor();
+		}
+
+		while (true) {
+			// pick up the oldest entry among heads of the rings
+			int idx = -1;
+			long minTimestamp = Long.MAX_VALUE;
+			for (int i = 0; i < length; i++) {
+				final long seq = nextSequences[i];
+				if (seq <= availableSequences[i]) {
+					final long timestamp = rings[i].get(seq).getTimestamp();
+					if (timestamp < minTimestamp) {
+						minTimestamp = timestamp;
+						idx = i;
+					}
+				}
+			}
+
+			if (idx < 0) break;
+
+			final SingleProducerRingBuffer<LogEntryItemImpl> ring = rings[idx];
+			final long seq = nextSequences[idx];
+			try {
+				process(ring.get(seq));
+			} finally {
+				// release entry anyway
+				ring.setConsumed(seq);
+				nextSequences[idx] = seq + 1;
+			}
+
+			if (immediateFlush) {
+				flushBuffer(false);
+			}
+
+			flushIfDue(false);
+		}
+	}
+
+}
@@ -0,0 +1,360 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.perthread;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.gflogger.AbstractLoggerServiceImpl;
+import org.gflogger.Appender;
+import org.gflogger.BatchRange;
+import org.gflogger.FormattingStrategy;
+import org.gflogger.GFLogger;
+import org.gflogger.GFLoggerBuilder;
+import org.gflogger.LocalLogEntry;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.ObjectFormatterFactory;
+import org.gflogger.State;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.gflogger.ring.AlertException;
+import org.gflogger.ring.Alertable;
+import org.gflogger.ring.Awaitable;
+import org.gflogger.ring.BlockingWaitStrategy;
+import org.gflogger.ring.SingleProducerRingBuffer;
+import org.gflogger.ring.WaitStrategy;
+
+import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
+import static org.gflogger.ring.AlertException.ALERT_EXCEPTION;
+
+/**
+ * garbage-free logger service implementation where each producer thread
+ * owns its own single producer / single consumer ring, so producers never
+ * contend on a shared sequence.
+ *
+ * <p>
+ * The only consumer ({@link EntryHandler}) drains all the rings and merges
+ * entries in the timestamp order before passing them to appenders. Producers wake
+ * it up through the {@link WaitStrategy}, so with a non-blocking one a commit
+ * costs the same as with a single producer thread.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
+
+	private static final SingleProducerRingBuffer[] EMPTY_RINGS = new SingleProducerRingBuffer[0];
+
+	private final int									count;
+	private final int									maxMessageSize;
+	private final EntryHandler							entryHandler;
+	private final WaitStrategy							waitStrategy;
+	private final ThreadLocal<SingleProducerRingBuffer<LogEntryItemImpl>> ringThreadLocal;
+
+	private final Object								ringsLock = new Object();
+	private volatile SingleProducerRingBuffer<LogEntryItemImpl>[] rings;
+	private Thread[]									owners;
+
+	private final AtomicBoolean							running = new AtomicBoolean();
+
+	private final Awaitable available = new Awaitable() {
+		@Override
+		public boolean isPublished() {
+			return hasAvailable();
+		}
+	};
+
+	private final Alertable alertable = new Alertable() {
+		@Override
+		public void checkAlert() throws AlertException {
+			if (!running.get()) throw ALERT_EXCEPTION;
+		}
+	};
+
+	/**
+	 * @param count a number of items in the ring of each producer thread,
+	 *			could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int count,
+		final int maxMessageSize,
+		final GFLoggerBuilder[] loggerBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(count, maxMessageSize, new BlockingWaitStrategy(), null,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggerBuilders));
+	}
+
+	/**
+	 * @param count a number of items in the ring of each producer thread,
+	 *			could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int count,
+		final int maxMessageSize,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			count,
+			maxMessageSize,
+			new BlockingWaitStrategy(),
+			objectFormatterFactory,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggersBuilders)
+		);
+	}
+
+	/**
+	 * @param count a number of items in the ring of each producer thread,
+	 *			could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size in the ring (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int count,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			count,
+			maxMessageSize,
+			waitStrategy,
+			objectFormatterFactory,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggersBuilders)
+		);
+	}
+
+	@SuppressWarnings("unchecked")
+	private LoggerServiceImpl(
+		final int count,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final Appender[] appenders,
+		final GFLogger[] loggers
+	) {
+		super(count, maxMessageSize, objectFormatterFactory, loggers, appenders);
+
+		this.count = (count & (count - 1)) != 0
+			? roundUpNextPower2(count) : count;
+		this.maxMessageSize = maxMessageSize;
+		this.waitStrategy = waitStrategy;
+
+		this.rings = EMPTY_RINGS;
+		this.owners = new Thread[0];
+
+		this.ringThreadLocal = new ThreadLocal<SingleProducerRingBuffer<LogEntryItemImpl>>() {
+			@Override
+			protected SingleProducerRingBuffer<LogEntryItemImpl> initialValue() {
+				return register(Thread.currentThread());
+			}
+		};
+
+		running.set(true);
+		entryHandler = new EntryHandler(this, appenders);
+		entryHandler.start();
+		executorService.execute(entryHandler);
+	}
+
+	@SuppressWarnings("unchecked")
+	private SingleProducerRingBuffer<LogEntryItemImpl> register(final Thread owner) {
+		final SingleProducerRingBuffer<LogEntryItemImpl> ring =
+			new SingleProducerRingBuffer<>(initEnties(count, maxMessageSize));
+		synchronized (ringsLock) {
+			final int length = rings.length;
+			final SingleProducerRingBuffer<LogEntryItemImpl>[] newRings = Arrays.copyOf(rings, length + 1);
+			final Thread[] newOwners = Arrays.copyOf(owners, length + 1);
+			newRings[length] = ring;
+			newOwners[length] = owner;
+			owners = newOwners;
+			rings = newRings;
+		}
+		return ring;
+	}
+
+	/**
+	 * releases rings of dead producer threads which have been drained completely
+	 */
+	void releaseOrphanedRings() {
+		synchronized (ringsLock) {
+			int alive = 0;
+			for (int i = 0; i < rings.length; i++) {
+				if (owners[i].isAlive() || !rings[i].isDrained()) alive++;
+			}
+			if (alive == rings.length) return;
+
+			@SuppressWarnings("unchecked")
+			final SingleProducerRingBuffer<LogEntryItemImpl>[] newRings = new SingleProducerRingBuffer[alive];
+			final Thread[] newOwners = new Thread[alive];
+			for (int i = 0, j = 0; i < rings.length; i++) {
+				if (owners[i].isAlive() || !rings[i].isDrained()) {
+					newRings[j] = rings[i];
+					newOwners[j] = owners[i];
+					j++;
+				}
+			}
+			owners = newOwners;
+			rings = newRings;
+		}
+	}
+
+	SingleProducerRingBuffer<LogEntryItemImpl>[] getRings() {
+		return rings;
+	}
+
+	@Override
+	public void entryFlushed(final LocalLogEntry localEntry) {
+		final String categoryName = localEntry.getCategoryName();
+		final LogLevel logLevel = localEntry.getLogLevel();
+		final String threadName = localEntry.getThreadName();
+		final long appenderMask = localEntry.getAppenderMask();
+
+		final long now = System.currentTimeMillis();
+
+		final SingleProducerRingBuffer<LogEntryItemImpl> ringBuffer = ringThreadLocal.get();
+
+		final BatchRange batch = localEntry.getBatch();
+		final boolean batched = batch.hasNext();
+
+		final long next;
+		if (batched) {
+			next = batch.next();
+		} else {
+			final long timeout = claimTimeout(localEntry);
+			next = timeout < 0L ? ringBuffer.next() : ringBuffer.tryNext(timeout);
+			if (next < 0L) {
+				entryDropped(localEntry);
+				return;
+			}
+		}
+		final LogEntryItemImpl entry = ringBuffer.get(next);
+
+		try {
+			entry.setCategoryName(categoryName);
+			entry.setLogLevel(logLevel);
+			entry.setThreadName(threadName);
+			entry.setTimestamp(now);
+			entry.setAppenderMask(appenderMask);
+
+			if (multibyte) {
+				localEntry.copyTo(entry.getCharBuffer());
+			} else {
+				localEntry.copyTo(entry.getBuffer());
+			}
+		} finally {
+			if (!batched) {
+				ringBuffer.publish(next);
+				signallAll();
+			} else if (next == batch.getHi()) {
+				// full batch is published at once, the rest goes one by one
+				ringBuffer.publish(next);
+				signallAll();
+				batch.end();
+			}
+		}
+	}
+
+	@Override
+	public void beginBatch(final int size) {
+		final BatchRange batch = newBatch();
+		if (batch == null) return;
+		final SingleProducerRingBuffer<LogEntryItemImpl> ringBuffer = ringThreadLocal.get();
+		final int n = Math.min(size, ringBuffer.size());
+		final long hi = ringBuffer.next(n);
+		batch.begin(hi - n + 1, hi);
+	}
+
+	@Override
+	public void endBatch() {
+		final BatchRange batch = currentBatch();
+		if (batch == null || !batch.isActive()) return;
+
+		final SingleProducerRingBuffer<LogEntryItemImpl> ringBuffer = ringThreadLocal.get();
+		// not used entries have to be skipped by appenders, timestamp keeps the merge order
+		final long now = System.currentTimeMillis();
+		for (long i = batch.getNext(), hi = batch.getHi(); i <= hi; i++) {
+			final LogEntryItemImpl entry = ringBuffer.get(i);
+			entry.setAppenderMask(0L);
+			entry.setTimestamp(now);
+		}
+		// the cursor covers the whole range
+		ringBuffer.publish(batch.getHi());
+		signallAll();
+		batch.end();
+	}
+
+	private void signallAll() {
+		waitStrategy.signallAll();
+	}
+
+	/**
+	 * waits till any of producer rings has published entries
+	 *
+	 * @return <code>true</code> if there are available entries
+	 */
+	boolean waitFor(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return waitStrategy.waitFor(available, alertable, timeout, unit);
+	}
+
+	private boolean hasAvailable() {
+		final SingleProducerRingBuffer<LogEntryItemImpl>[] rings = this.rings;
+		for (int i = 0; i < rings.length; i++) {
+			if (!rings[i].isDrained()) return true;
+		}
+		return false;
+	}
+
+	@Override
+	protected String name() {
+		return "gflogger-perthread";
+	}
+
+	@Override
+	protected FormattingStrategy getFormattingStrategy() {
+		return new StringFormattingStrategy();
+	}
+
+	@Override
+	public void stop() {
+		if (running.getAndSet(false)) {
+			signallAll();
+		}
+		state = State.STOPPED;
+		executorService.shutdown();
+		try {
+			executorService.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			// ignore
+		}
+		super.stop();
+		ringThreadLocal.remove();
+	}
+
+}
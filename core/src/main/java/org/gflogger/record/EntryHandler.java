@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.record;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.AbstractEntryHandler;
+import org.gflogger.Appender;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.State;
+import org.gflogger.appender.AbstractAsyncAppender;
+import org.gflogger.helpers.LogLog;
+import org.gflogger.ring.AlertException;
+import org.gflogger.ring.RecordRingBuffer;
+
+/**
+ * EntryHandler reads records of {@link RecordRingBuffer} in place: the only
+ * entry is a view which is pointed to the current record.
+ *
+ * <p>
+ * In deferred release mode (mapped ring) every batch of records is flushed by
+ * appenders before it is released.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class EntryHandler extends AbstractEntryHandler<LoggerServiceImpl> implements Runnable {
+
+	protected final RecordRingBuffer ringBuffer;
+
+	protected final LogEntryItemImpl entry;
+
+	protected boolean immediateFlush = false;
+	protected int bufferedIOThreshold = 10000;
+	protected long awaitTimeout = 10L;
+
+	protected final boolean deferredRelease;
+
+	public EntryHandler(LoggerServiceImpl service, RecordRingBuffer ringBuffer, Appender[] appenders) {
+		super(service, appenders);
+		this.ringBuffer = ringBuffer;
+		this.entry = service.createEntryView();
+		this.deferredRelease = ringBuffer.isDeferredRelease();
+		for (Appender appender : appenders) {
+			if (appender instanceof AbstractAsyncAppender) {
+				immediateFlush |= ((AbstractAsyncAppender) appender).isImmediateFlush();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		LogLog.debug(Thread.currentThread().getName() + " is started.");
+
+		long loopCounter = 0;
+		while (true) {
+			try {
+				observeSyncRequest();
+				if (ringBuffer.waitFor(flushAwaitTimeout(awaitTimeout), TimeUnit.MILLISECONDS)) {
+					try {
+						// handle all available records in a row
+						int index;
+						while ((index = ringBuffer.nextRecord()) >= 0) {
+							try {
+								service.read(index, entry);
+								process(entry);
+							} finally {
+								// release record anyway
+								ringBuffer.release(index);
+							}
+
+							if (immediateFlush) {
+								flushBuffer(false);
+								loopCounter = 0;
+							}
+
+							flushIfDue(false);
+						}
+					} finally {
+						// a failed record must not keep the consumed ones in the ring forever
+						if (deferredRelease) {
+							flushBuffer();
+							service.releaseConsumed();
+							loopCounter = 0;
+						}
+					}
+				}
+
+				reportDropped();
+
+				// there are no more entries available at the moment
+				flushIfDue(true);
+
+				if (loopCounter > bufferedIOThreshold) {
+					flushBuffer();
+					loopCounter = 0;
+				}
+
+				loopCounter++;
+			} catch (InterruptedException e) {
+				//
+			} catch (AlertException e) {
+				if (service.getState() == State.STOPPED) {
+					break;
+				}
+			} catch (Throwable e) {
+				LogLog.error("Unhandled exception " + e.getMessage() + " at " + Thread.currentThread().getName(), e);
+			}
+		}
+		stop();
+		LogLog.debug(Thread.currentThread().getName() + " is finished. ");
+	}
+
+	@Override
+	public void stop() {
+		super.stop();
+		if (deferredRelease) {
+			// appenders have been stopped, so all consumed records are written
+			service.releaseConsumed();
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.record;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.gflogger.LoggerService;
+import org.gflogger.config.xml.Configuration;
+import org.gflogger.config.xml.LoggerServiceFactory;
+import org.gflogger.config.xml.RecordLoggerServiceFactory;
+import org.gflogger.config.xml.XmlLogFactoryConfigurator;
+import org.gflogger.helpers.LogLog;
+
+/**
+ * LoggerDaemon is a standalone writer process of shared ring files: an
+ * application publishes records with {@link RingFileMode#PRODUCER} service and
+ * the daemon consumes them with the appenders and layouts of the same xml
+ * configuration, so formatting and I/O are out of the application process.
+ *
+ * <pre>
+ * java -cp gflogger.jar org.gflogger.record.LoggerDaemon &lt;gflogger.xml&gt; [&lt;gflogger.xml&gt; ...]
+ * </pre>
+ *
+ * <p>
+ * Each configuration (i.e. each application) has its own ring file.
+ * The daemon could be restarted any time: it continues from the durable head,
+ * so records which have been written, but not released yet, are written twice.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class LoggerDaemon {
+
+	private final List<LoggerService> services = new ArrayList<LoggerService>();
+
+	private final CountDownLatch stopped = new CountDownLatch(1);
+
+	public static void main(final String[] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("usage: " + LoggerDaemon.class.getName()
+				+ " <gflogger.xml> [<gflogger.xml> ...]");
+			System.exit(1);
+		}
+
+		final LoggerDaemon daemon = new LoggerDaemon(args);
+		Runtime.getRuntime().addShutdownHook(new Thread("gflogger-daemon-shutdown") {
+			@Override
+			public void run() {
+				daemon.stop();
+			}
+		});
+		daemon.await();
+	}
+
+	/**
+	 * starts consumers of ring files of the given configurations
+	 */
+	public LoggerDaemon(final String ... xmlFileNames) throws Exception {
+		try {
+			for (final String xmlFileName : xmlFileNames) {
+				final Configuration configuration = XmlLogFactoryConfigurator.parse(xmlFileName);
+				final LoggerServiceFactory factory = configuration.getLoggerServiceFactory();
+				if (!(factory instanceof RecordLoggerServiceFactory)
+					|| ((RecordLoggerServiceFactory) factory).getRingFile() == null) {
+					throw new IllegalArgumentException(xmlFileName + " has no service with a shared ring file");
+				}
+				services.add(((RecordLoggerServiceFactory) factory).createService(RingFileMode.CONSUMER));
+				LogLog.info("gflogger daemon consumes " + ((RecordLoggerServiceFactory) factory).getRingFile());
+			}
+		} catch (Exception e) {
+			stop();
+			throw e;
+		}
+	}
+
+	public void await() throws InterruptedException {
+		stopped.await();
+	}
+
+	/**
+	 * stops consumers, records which have not been written yet are kept in ring files
+	 */
+	public void stop() {
+		for (final LoggerService service : services) {
+			service.stop();
+		}
+		stopped.countDown();
+	}
+}
@@ -0,0 +1,443 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.record;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.AbstractLoggerServiceImpl;
+import org.gflogger.Appender;
+import org.gflogger.FormattingStrategy;
+import org.gflogger.GFLogger;
+import org.gflogger.GFLoggerBuilder;
+import org.gflogger.LocalLogEntry;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.ObjectFormatterFactory;
+import org.gflogger.State;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.gflogger.helpers.LogLog;
+import org.gflogger.ring.BlockingWaitStrategy;
+import org.gflogger.ring.MappedRingFile;
+import org.gflogger.ring.RecordRingBuffer;
+import org.gflogger.ring.WaitStrategy;
+import org.gflogger.util.NameRegistry;
+
+import static org.gflogger.ring.RecordRingBuffer.HEADER_LENGTH;
+
+/**
+ * garbage-free logger service implementation over {@link RecordRingBuffer}:
+ * messages are stored as variable length records in one off-heap region
+ * instead of fixed <code>maxMessageSize</code> slots.
+ *
+ * <p>
+ * Record layout (after the ring header): timestamp, appender mask,
+ * category id, thread id, level, message length and message itself.
+ * Category and thread names are interned with {@link NameRegistry}.
+ *
+ * <p>
+ * If <code>ringFile</code> is set the ring is mapped to that file
+ * ({@link MappedRingFile}): records are released only once appenders have
+ * flushed them, so records which have not been written survive a crash of
+ * the JVM and could be appended to the log by {@link RingRecovery}.
+ * Producers write the mapped region exactly as the direct one.
+ *
+ * <p>
+ * The ring file could be shared by processes as well (see {@link RingFileMode}):
+ * an application only publishes records and {@link LoggerDaemon} formats and
+ * writes them with the same appenders. Producer processes hold leases of the
+ * file, so claims of a live producer are never skipped, and ids of names are
+ * allocated by the file.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class LoggerServiceImpl extends AbstractLoggerServiceImpl {
+
+	static final int TIMESTAMP_OFFSET		= HEADER_LENGTH;
+	static final int APPENDER_MASK_OFFSET	= TIMESTAMP_OFFSET + 8;
+	static final int CATEGORY_OFFSET		= APPENDER_MASK_OFFSET + 8;
+	static final int THREAD_OFFSET			= CATEGORY_OFFSET + 4;
+	static final int LEVEL_OFFSET			= THREAD_OFFSET + 4;
+	static final int MESSAGE_LENGTH_OFFSET	= LEVEL_OFFSET + 4;
+	static final int MESSAGE_OFFSET			= MESSAGE_LENGTH_OFFSET + 4;
+
+	private final RecordRingBuffer					ringBuffer;
+	private final MappedRingFile					ringFile;
+	private final RingFileMode						ringFileMode;
+	private final ByteBuffer						region;
+	private final NameRegistry						names;
+	private final ThreadLocal<Buffer>				writerThreadLocal;
+	private final EntryHandler						entryHandler;
+
+	/**
+	 * @param bufferSize size of the ring in bytes, could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size (in chars)
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int bufferSize,
+		final int maxMessageSize,
+		final GFLoggerBuilder[] loggerBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(bufferSize, maxMessageSize, new BlockingWaitStrategy(), null, RingFileMode.PRIVATE, null,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggerBuilders));
+	}
+
+	/**
+	 * @param bufferSize size of the ring in bytes, could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size (in chars)
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int bufferSize,
+		final int maxMessageSize,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			bufferSize,
+			maxMessageSize,
+			new BlockingWaitStrategy(),
+			null,
+			RingFileMode.PRIVATE,
+			objectFormatterFactory,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggersBuilders)
+		);
+	}
+
+	/**
+	 * @param bufferSize size of the ring in bytes, could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int bufferSize,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			bufferSize,
+			maxMessageSize,
+			waitStrategy,
+			null,
+			RingFileMode.PRIVATE,
+			objectFormatterFactory,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggersBuilders)
+		);
+	}
+
+	/**
+	 * @param bufferSize size of the ring in bytes, could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param ringFile file the ring is mapped to, <code>null</code> means the ring is in memory only
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int bufferSize,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final File ringFile,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			bufferSize,
+			maxMessageSize,
+			waitStrategy,
+			ringFile,
+			RingFileMode.PRIVATE,
+			objectFormatterFactory,
+			loggersBuilders,
+			appenderFactories
+		);
+	}
+
+	/**
+	 * @param bufferSize size of the ring in bytes, could be rounded up to the next power of 2
+	 * @param maxMessageSize max message size (in chars)
+	 * @param waitStrategy strategy the consumer waits for new entries with
+	 * @param ringFile file the ring is mapped to, <code>null</code> means the ring is in memory only
+	 * @param ringFileMode how the ring file is used
+	 * @param objectFormatterFactory
+	 * @param appenderFactories
+	 */
+	public LoggerServiceImpl(
+		final int bufferSize,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final File ringFile,
+		final RingFileMode ringFileMode,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final GFLoggerBuilder[] loggersBuilders,
+		final AppenderFactory ... appenderFactories
+	) {
+		this(
+			bufferSize,
+			maxMessageSize,
+			waitStrategy,
+			ringFile,
+			ringFileMode,
+			objectFormatterFactory,
+			createAppenders(appenderFactories),
+			createLoggers(appenderFactories, loggersBuilders)
+		);
+	}
+
+	private LoggerServiceImpl(
+		final int bufferSize,
+		final int maxMessageSize,
+		final WaitStrategy waitStrategy,
+		final File ringFile,
+		final RingFileMode ringFileMode,
+		final ObjectFormatterFactory objectFormatterFactory,
+		final Appender[] appenders,
+		final GFLogger[] loggers
+	) {
+		super(bufferSize, maxMessageSize, objectFormatterFactory, loggers, appenders);
+
+		// unicode char has 2 bytes
+		final int maxMessageSize0 = multibyte ? maxMessageSize << 1 : maxMessageSize;
+		final int maxRecordLength = MESSAGE_OFFSET + maxMessageSize0;
+
+		if (ringFile == null && ringFileMode != RingFileMode.PRIVATE) {
+			throw new IllegalArgumentException("ring file is expected to be shared");
+		}
+		this.ringFileMode = ringFileMode;
+
+		if (ringFile != null) {
+			final int capacity = RecordRingBuffer.capacity(bufferSize, maxRecordLength);
+			final boolean shared = ringFileMode != RingFileMode.PRIVATE;
+			try {
+				this.ringFile = shared
+					? MappedRingFile.openOrCreate(ringFile, capacity, multibyte)
+					: MappedRingFile.create(ringFile, capacity, multibyte);
+			} catch (IOException e) {
+				throw new IllegalStateException("Can't map ring file " + ringFile.getAbsolutePath(), e);
+			}
+			if (ringFileMode == RingFileMode.CONSUMER) {
+				try {
+					this.ringFile.leaseConsumer();
+				} catch (IOException e) {
+					throw new IllegalStateException("Can't lease consumer of ring file " + ringFile.getAbsolutePath(), e);
+				}
+				this.ringFile.restoreReleasedHead();
+			}
+			final RecordRingBuffer ringBuffer = new RecordRingBuffer(waitStrategy, this.ringFile.getRegion(),
+				maxRecordLength, true, shared ? this.ringFile.getCounters() : null);
+			this.ringBuffer = ringBuffer;
+			if (ringFileMode == RingFileMode.PRODUCER) {
+				try {
+					this.ringFile.leaseProducer(new Runnable() {
+						@Override
+						public void run() {
+							// records claimed by producer processes which have gone are never committed
+							ringBuffer.skipAbandoned();
+						}
+					});
+				} catch (IOException e) {
+					throw new IllegalStateException("Can't lease producer of ring file " + ringFile.getAbsolutePath(), e);
+				}
+			}
+			this.names = new NameRegistry(new NameRegistry.Allocator() {
+				@Override
+				public int allocate(String name) {
+					// ids are shared by processes of the ring file
+					return LoggerServiceImpl.this.ringFile.nextNameId();
+				}
+			}, new NameRegistry.Listener() {
+				private boolean full;
+
+				@Override
+				public void registered(int id, String name) {
+					if (!LoggerServiceImpl.this.ringFile.addName(id, name) && !full) {
+						full = true;
+						LogLog.warn("names area of ring file " + ringFile + " is full, "
+							+ "recovered records could miss category and thread names");
+					}
+				}
+			});
+			if (shared) {
+				// ids of names are kept by the ring file
+				names.load(this.ringFile.readNames());
+			}
+		} else {
+			this.ringFile = null;
+			this.ringBuffer = new RecordRingBuffer(waitStrategy, bufferSize, maxRecordLength);
+			this.names = new NameRegistry();
+		}
+		this.region = ringBuffer.getBuffer();
+
+		this.writerThreadLocal = new ThreadLocal<Buffer>() {
+			@Override
+			protected Buffer initialValue() {
+				final ByteBuffer buffer = region.duplicate();
+				return multibyte ? buffer.asCharBuffer() : buffer;
+			}
+		};
+
+		if (ringFileMode != RingFileMode.PRODUCER) {
+			entryHandler = new EntryHandler(this, ringBuffer, appenders);
+			entryHandler.start();
+			executorService.execute(entryHandler);
+		} else {
+			// records are written by another process
+			entryHandler = null;
+		}
+	}
+
+	@Override
+	public void entryFlushed(final LocalLogEntry localEntry) {
+		final int size = localEntry.getMessageSize();
+		final int messageLength = multibyte ? size << 1 : size;
+		final int length = MESSAGE_OFFSET - HEADER_LENGTH + messageLength;
+
+		final int categoryId = names.idOf(localEntry.getCategoryName());
+		final int threadId = names.idOf(localEntry.getThreadName());
+
+		final long now = System.currentTimeMillis();
+
+		final long timeout = claimTimeout(localEntry);
+		final int index = timeout < 0L
+			? ringBuffer.claim(length)
+			: ringBuffer.tryClaim(length, timeout);
+		if (index < 0) {
+			entryDropped(localEntry);
+			return;
+		}
+		try {
+			region.putLong(index + TIMESTAMP_OFFSET, now);
+			region.putLong(index + APPENDER_MASK_OFFSET, localEntry.getAppenderMask());
+			region.putInt(index + CATEGORY_OFFSET, categoryId);
+			region.putInt(index + THREAD_OFFSET, threadId);
+			region.putInt(index + LEVEL_OFFSET, localEntry.getLogLevel().ordinal());
+			region.putInt(index + MESSAGE_LENGTH_OFFSET, messageLength);
+
+			final Buffer buffer = writerThreadLocal.get();
+			buffer.clear();
+			buffer.position(multibyte ? (index + MESSAGE_OFFSET) >> 1 : index + MESSAGE_OFFSET);
+			localEntry.writeTo(buffer);
+		} finally {
+			ringBuffer.publish(index, length);
+		}
+	}
+
+	/**
+	 * releases records consumed so far, in case of mapped ring the durable
+	 * head is stored before records are zeroed
+	 */
+	void releaseConsumed() {
+		if (ringFile != null) {
+			ringFile.setHead(ringBuffer.getConsumed());
+		}
+		ringBuffer.releaseConsumed();
+	}
+
+	/**
+	 * @return entry which is a view of records in place
+	 */
+	LogEntryItemImpl createEntryView() {
+		return new LogEntryItemImpl(region.duplicate(), multibyte, getFormattingStrategy());
+	}
+
+	/**
+	 * points entry view to the record at the given index
+	 */
+	void read(final int index, final LogEntryItemImpl entry) {
+		entry.setCategoryName(nameOf(region.getInt(index + CATEGORY_OFFSET)));
+		entry.setThreadName(nameOf(region.getInt(index + THREAD_OFFSET)));
+		read(region, multibyte, index, entry);
+	}
+
+	private String nameOf(final int id) {
+		final String name = names.nameOf(id);
+		if (name != null || id == NameRegistry.NULL_ID || ringFileMode != RingFileMode.CONSUMER) return name;
+
+		// the name has been registered by the producer process since the last time
+		names.load(ringFile.readNames());
+		return names.nameOf(id);
+	}
+
+	/**
+	 * points entry view to the record at the given index, names are not set
+	 */
+	static void read(final ByteBuffer region, final boolean multibyte,
+			final int index, final LogEntryItemImpl entry) {
+		entry.setTimestamp(region.getLong(index + TIMESTAMP_OFFSET));
+		entry.setAppenderMask(region.getLong(index + APPENDER_MASK_OFFSET));
+		entry.setLogLevel(LogLevel.values[region.getInt(index + LEVEL_OFFSET)]);
+
+		final int offset = index + MESSAGE_OFFSET;
+		final int end = offset + region.getInt(index + MESSAGE_LENGTH_OFFSET);
+		entry.setOffset(offset);
+
+		final ByteBuffer buffer = entry.getBuffer();
+		buffer.clear();
+		buffer.position(end);
+		if (multibyte) {
+			final CharBuffer charBuffer = entry.getCharBuffer();
+			charBuffer.clear();
+			charBuffer.position(end >> 1);
+		}
+	}
+
+	@Override
+	protected String name() {
+		return "gflogger-record";
+	}
+
+	@Override
+	protected FormattingStrategy getFormattingStrategy() {
+		return new StringFormattingStrategy();
+	}
+
+	@Override
+	public void stop() {
+		ringBuffer.stop();
+		state = State.STOPPED;
+		executorService.shutdown();
+		try {
+			executorService.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			// ignore
+		}
+		if (ringFile != null && ringFileMode == RingFileMode.PRIVATE) {
+			ringFile.deleteIfDrained();
+		}
+		if (ringFileMode != RingFileMode.PRIVATE) {
+			ringFile.releaseLease();
+		}
+		super.stop();
+	}
+
+}
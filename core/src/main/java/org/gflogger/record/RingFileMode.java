@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.record;
+
+/**
+ * RingFileMode defines how {@link LoggerServiceImpl} uses its ring file.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public enum RingFileMode {
+
+	/**
+	 * the ring file is owned by the service: it is recreated on start and records
+	 * survive a crash to be recovered by {@link RingRecovery}
+	 */
+	PRIVATE,
+
+	/**
+	 * the service only publishes records into the shared ring file, they are
+	 * consumed by another process ({@link LoggerDaemon})
+	 */
+	PRODUCER,
+
+	/**
+	 * the service only consumes records of the shared ring file, which are
+	 * published by another process
+	 */
+	CONSUMER
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.record;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+
+import org.gflogger.Layout;
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.PatternLayout;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.gflogger.ring.MappedRingFile;
+
+import static org.gflogger.record.LoggerServiceImpl.CATEGORY_OFFSET;
+import static org.gflogger.record.LoggerServiceImpl.LEVEL_OFFSET;
+import static org.gflogger.record.LoggerServiceImpl.MESSAGE_LENGTH_OFFSET;
+import static org.gflogger.record.LoggerServiceImpl.MESSAGE_OFFSET;
+import static org.gflogger.record.LoggerServiceImpl.THREAD_OFFSET;
+import static org.gflogger.ring.RecordRingBuffer.ALIGNMENT;
+import static org.gflogger.ring.RecordRingBuffer.LENGTH_OFFSET;
+import static org.gflogger.ring.RecordRingBuffer.PADDING_TYPE;
+import static org.gflogger.ring.RecordRingBuffer.RECORD_TYPE;
+import static org.gflogger.ring.RecordRingBuffer.TYPE_OFFSET;
+
+/**
+ * RingRecovery is a post-mortem tool: it reads records which have not been
+ * written from an orphaned ring file ({@link MappedRingFile}) and appends them
+ * to the log file.
+ *
+ * <pre>
+ * java -cp gflogger.jar org.gflogger.record.RingRecovery &lt;ring file&gt; &lt;log file&gt; [pattern [codepage]]
+ * </pre>
+ *
+ * <p>
+ * Records are read from the durable head till the first unclaimed one (records
+ * which have been claimed, but not committed are skipped),
+ * the head is moved forward afterwards, so the file could not be recovered twice.
+ * A record could be already (partially) written by an appender before the crash,
+ * i.e. recovered lines could duplicate the last lines of the log.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class RingRecovery {
+
+	public static final String DEFAULT_PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} %p [%t] %c - %m%n";
+
+	private static final String UNKNOWN_NAME = "?";
+
+	private RingRecovery() {
+		throw new UnsupportedOperationException();
+	}
+
+	public static void main(final String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: " + RingRecovery.class.getName()
+				+ " <ring file> <log file> [pattern [codepage]]");
+			System.exit(1);
+		}
+		final File ringFile = new File(args[0]);
+		final File logFile = new File(args[1]);
+		final Layout layout = new PatternLayout(args.length > 2 ? args[2] : DEFAULT_PATTERN);
+		final String codepage = args.length > 3 ? args[3] : "UTF-8";
+
+		final int count = recover(ringFile, logFile, layout, codepage);
+		System.out.println(count + " record(s) of " + ringFile + " are appended to " + logFile);
+	}
+
+	/**
+	 * appends records which have not been written from the ring file to the log file
+	 *
+	 * @return number of recovered records
+	 */
+	public static int recover(final File ringFile, final File logFile,
+			final Layout layout, final String codepage) throws IOException {
+		final MappedRingFile file = MappedRingFile.open(ringFile);
+		try {
+			final ByteBuffer region = file.getRegion();
+			final boolean multibyte = file.isMultibyte();
+			final String[] names = file.readNames();
+			final int capacity = file.getCapacity();
+			final int mask = capacity - 1;
+
+			final LogEntryItemImpl entry =
+				new LogEntryItemImpl(region.duplicate(), multibyte, new StringFormattingStrategy());
+			final CharsetEncoder encoder = Charset.forName(codepage).newEncoder();
+
+			final FileOutputStream out = new FileOutputStream(logFile, true);
+			try {
+				final FileChannel channel = out.getChannel();
+				int count = 0;
+				long position = file.getHead();
+				// a record could not be read twice
+				final long end = position + capacity;
+				while (position < end) {
+					final int index = (int) (position & mask);
+					final int length = region.getInt(index + LENGTH_OFFSET);
+					if (length == 0) break;
+					if (length < 0 && -length <= capacity - index && -length % ALIGNMENT == 0) {
+						// the record was claimed, but the producer has died before commit
+						position -= length;
+						continue;
+					}
+					if (!isValid(region, index, length, capacity)) {
+						System.err.println("corrupted record at " + position + ", recovery is stopped");
+						break;
+					}
+
+					if (region.getInt(index + TYPE_OFFSET) == RECORD_TYPE) {
+						entry.setCategoryName(nameOf(names, region.getInt(index + CATEGORY_OFFSET)));
+						entry.setThreadName(nameOf(names, region.getInt(index + THREAD_OFFSET)));
+						LoggerServiceImpl.read(region, multibyte, index, entry);
+						append(channel, layout, entry, multibyte, encoder);
+						count++;
+					}
+					position += length;
+				}
+				channel.force(false);
+				file.setHead(position);
+				return count;
+			} finally {
+				out.close();
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	private static boolean isValid(final ByteBuffer region, final int index,
+			final int length, final int capacity) {
+		if (length < 0 || length % ALIGNMENT != 0 || length > capacity - index) return false;
+
+		final int type = region.getInt(index + TYPE_OFFSET);
+		if (type == PADDING_TYPE) return true;
+		if (type != RECORD_TYPE || length < MESSAGE_OFFSET) return false;
+
+		final int level = region.getInt(index + LEVEL_OFFSET);
+		final int messageLength = region.getInt(index + MESSAGE_LENGTH_OFFSET);
+		return level >= 0 && level < LogLevel.values.length
+			&& messageLength >= 0 && messageLength <= length - MESSAGE_OFFSET;
+	}
+
+	private static String nameOf(final String[] names, final int id) {
+		if (id < 0) return null;
+		return id < names.length && names[id] != null ? names[id] : UNKNOWN_NAME;
+	}
+
+	private static void append(final FileChannel channel, final Layout layout,
+			final LogEntryItemImpl entry, final boolean multibyte,
+			final CharsetEncoder encoder) throws IOException {
+		final int size = layout.size(entry) + Layout.LINE_SEP_LEN;
+		final ByteBuffer out;
+		if (multibyte) {
+			final CharBuffer buffer = entry.getCharBuffer();
+			final int position0 = buffer.position();
+			buffer.limit(position0).position(entry.getOffset() >> 1);
+			final CharBuffer chars = CharBuffer.allocate(size);
+			layout.format(chars, entry);
+			buffer.clear();
+			buffer.position(position0);
+			chars.flip();
+			out = encoder.encode(chars);
+		} else {
+			final ByteBuffer buffer = entry.getBuffer();
+			final int position0 = buffer.position();
+			buffer.limit(position0).position(entry.getOffset());
+			out = ByteBuffer.allocate(size);
+			layout.format(out, entry);
+			buffer.clear();
+			buffer.position(position0);
+			out.flip();
+		}
+		while (out.hasRemaining()) {
+			channel.write(out);
+		}
+	}
+}
@@ -17,12 +17,17 @@ package org.gflogger.ring;
 import java.util.concurrent.TimeUnit;
 
 /**
- * BlockingWaitStrategy
+ * BlockingWaitStrategy parks consumer on a monitor, publishers have to
+ * notify it.
+ *
+ * <p>
+ * Use it on shared boxes: the waiting consumer does not burn CPU at all, but
+ * it costs a context switch to wake up.
  */
 public class BlockingWaitStrategy implements WaitStrategy {
 
 	private final Object lock;
-	
+
 	private boolean signalled;
 	private volatile int waiters;
 
@@ -41,15 +46,17 @@ public class BlockingWaitStrategy implements WaitStrategy {
 	}
 
 	@Override
-	public long waitFor(final Sequence cursor, final long seqNum)
+	public boolean waitFor(final Awaitable entry, final Alertable alertable)
 	throws InterruptedException {
-		long availableSequence;
-		if ((availableSequence = cursor.get()) < seqNum) {
+		boolean published;
+		if (!(published = entry.isPublished())) {
 			synchronized (lock) {
 				signalled = false;
 				try {
 					++waiters;
-					while ((availableSequence = cursor.get()) < seqNum) {
+					while (!(published = entry.isPublished())) {
+						alertable.checkAlert();
+
 						lock.wait();
 					}
 				} finally {
@@ -57,28 +64,31 @@ public class BlockingWaitStrategy implements WaitStrategy {
 				}
 			}
 		}
-		return availableSequence;
+		return published;
 	}
 
 	@Override
-	public long waitFor(
-		final Sequence cursor,
-		final long seqNum,
+	public boolean waitFor(
+		final Awaitable entry,
+		final Alertable alertable,
 		final long timeout,
 		final TimeUnit unit
 	) throws InterruptedException {
-		long availableSequence;
-		if ((availableSequence = cursor.get()) < seqNum) {
-			final long timeoutMs = unit.toMillis(timeout);
+		boolean published;
+		if (!(published = entry.isPublished())) {
+			// Object.wait(0) means wait forever
+			final long timeoutMs = Math.max(1L, unit.toMillis(timeout));
 			final long startTime = System.currentTimeMillis() ;
 
 			synchronized (lock) {
 				signalled = false;
 				try {
 					++waiters;
-					while ((availableSequence = cursor.get()) < seqNum) {
+					while (!(published = entry.isPublished())) {
+						alertable.checkAlert();
+
 						lock.wait(timeoutMs);
-						
+
 						if (!signalled || (System.currentTimeMillis() - startTime) > timeoutMs) break;
 					}
 				} finally {
@@ -86,7 +96,7 @@ public class BlockingWaitStrategy implements WaitStrategy {
 				}
 			}
 		}
-		return availableSequence;
+		return published;
 	}
 
 }
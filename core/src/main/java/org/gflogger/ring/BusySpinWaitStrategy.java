@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.ring;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BusySpinWaitStrategy burns a core in a tight loop checking the entry.
+ *
+ * <p>
+ * The lowest wake up latency, use it only when the consumer thread is bound to
+ * an isolated core. Publishers do not signal anything at all.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class BusySpinWaitStrategy implements WaitStrategy {
+
+	@Override
+	public void signallAll() {
+		// consumer is never parked
+	}
+
+	@Override
+	public boolean waitFor(final Awaitable entry, final Alertable alertable)
+	throws InterruptedException {
+		while (!entry.isPublished()) {
+			alertable.checkAlert();
+		}
+		return true;
+	}
+
+	@Override
+	public boolean waitFor(
+		final Awaitable entry,
+		final Alertable alertable,
+		final long timeout,
+		final TimeUnit unit
+	) throws InterruptedException {
+		if (entry.isPublished()) return true;
+
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!entry.isPublished()) {
+			alertable.checkAlert();
+
+			if (System.nanoTime() - deadline > 0) return false;
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,500 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.ring;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import com.lmax.disruptor.util.Util;
+import sun.misc.Unsafe;
+import sun.nio.ch.DirectBuffer;
+
+import org.gflogger.helpers.LogLog;
+import org.gflogger.util.DirectBufferUtils;
+
+import static org.gflogger.ring.RecordRingBuffer.ALIGNMENT;
+import static org.gflogger.ring.RecordRingBuffer.COUNTERS_LENGTH;
+import static org.gflogger.ring.RecordRingBuffer.HEAD_COUNTER_OFFSET;
+import static org.gflogger.ring.RecordRingBuffer.LENGTH_OFFSET;
+
+/**
+ * MappedRingFile is a file which keeps the region of {@link RecordRingBuffer}
+ * mapped into memory, so the records which are not written by appenders yet
+ * survive a crash of the JVM (not of the OS).
+ *
+ * <p>
+ * File layout: header (magic, version, capacity, flags, length of names area,
+ * durable head, next name id), counters of a shared ring (see {@link #getCounters()}),
+ * names area (<code>int id + 1, int length, UTF-8 bytes</code> entries) and the ring
+ * region which starts at {@link #REGION_OFFSET}.
+ *
+ * <p>
+ * Processes sharing the file lock a byte of the header while they open it and
+ * each producer (and the consumer) holds a lock of its own byte (a lease) while
+ * it is alive, see {@link #leaseProducer(Runnable)} and {@link #leaseConsumer()}.
+ *
+ * <p>
+ * Records in <code>[head, tail)</code> are those which are not durable yet,
+ * each of them is committed by its non-zero length, so the recovery reads
+ * records from the durable head till the first uncommitted one.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class MappedRingFile {
+
+	public static final long MAGIC = 0x47464c52494e4731L; // GFLRING1
+	public static final int VERSION = 2;
+
+	static final int MAGIC_OFFSET			= 0;
+	static final int VERSION_OFFSET			= 8;
+	static final int CAPACITY_OFFSET		= 12;
+	static final int FLAGS_OFFSET			= 16;
+	static final int NAMES_LENGTH_OFFSET	= 20;
+	static final int HEAD_OFFSET			= 24;
+	static final int NAME_IDS_OFFSET		= 32;
+
+	// positions of advisory locks, they do not guard the data of the header
+	static final int LOCK_OFFSET			= 64;
+	static final int LEASES_OFFSET			= LOCK_OFFSET + 1;
+	static final int MAX_PRODUCERS			= 62;
+	// the consumer lease follows the producer ones
+	static final int CONSUMER_LEASE_OFFSET	= LEASES_OFFSET + MAX_PRODUCERS;
+
+	static final int COUNTERS_OFFSET		= 128;
+	static final int NAMES_OFFSET			= COUNTERS_OFFSET + COUNTERS_LENGTH;
+	public static final int REGION_OFFSET	= 1 << 16;
+
+	static final int MULTIBYTE_FLAG = 1;
+
+	private static final Unsafe UNSAFE = Util.getUnsafe();
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File file;
+	private final MappedByteBuffer buffer;
+	private final long address;
+	private final ByteBuffer region;
+	private final ByteBuffer counters;
+
+	// keeps the producer or consumer lease locked
+	private RandomAccessFile leaseFile;
+
+	private MappedRingFile(final File file, final MappedByteBuffer buffer) {
+		this.file = file;
+		this.buffer = buffer;
+		this.buffer.order(ByteOrder.nativeOrder());
+		this.address = ((DirectBuffer) buffer).address();
+		this.buffer.position(REGION_OFFSET);
+		this.region = buffer.slice().order(ByteOrder.nativeOrder());
+		this.buffer.limit(COUNTERS_OFFSET + COUNTERS_LENGTH).position(COUNTERS_OFFSET);
+		this.counters = buffer.slice().order(ByteOrder.nativeOrder());
+		this.buffer.clear();
+	}
+
+	/**
+	 * creates a new zeroed ring file, if the file exists and has records
+	 * which have not been written it is renamed to
+	 * <code>&lt;file&gt;.orphaned-&lt;millis&gt;</code> to be recovered
+	 * by {@link org.gflogger.record.RingRecovery}.
+	 *
+	 * @param capacity size of the ring region in bytes, has to be a power of 2
+	 */
+	public static MappedRingFile create(final File file, final int capacity, final boolean multibyte)
+			throws IOException {
+		if (file.length() > 0L) {
+			boolean orphaned = false;
+			try {
+				final MappedRingFile existing = open(file);
+				orphaned = existing.hasPendingRecords();
+				existing.close();
+			} catch (IOException e) {
+				LogLog.warn("unable to read existing ring file " + file + ": " + e.getMessage());
+			}
+			if (orphaned) {
+				final File orphan = new File(file.getPath() + ".orphaned-" + System.currentTimeMillis());
+				if (file.renameTo(orphan)) {
+					LogLog.warn("ring file " + file + " has records which have not been written, "
+						+ "it is renamed to " + orphan + " to be recovered");
+				} else {
+					LogLog.error("unable to rename orphaned ring file " + file + " to " + orphan);
+				}
+			}
+		}
+
+		final File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.exists()) dir.mkdirs();
+
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			// truncate then extend: the new file is zeroed
+			raf.setLength(0L);
+			raf.setLength((long) REGION_OFFSET + capacity);
+			final MappedRingFile ringFile =
+				new MappedRingFile(file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, REGION_OFFSET + capacity));
+			ringFile.buffer.putInt(VERSION_OFFSET, VERSION);
+			ringFile.buffer.putInt(CAPACITY_OFFSET, capacity);
+			ringFile.buffer.putInt(FLAGS_OFFSET, multibyte ? MULTIBYTE_FLAG : 0);
+			ringFile.buffer.putLong(MAGIC_OFFSET, MAGIC);
+			return ringFile;
+		} finally {
+			// mapping stays valid after the channel is closed
+			raf.close();
+		}
+	}
+
+	/**
+	 * opens the ring file if it exists and has the same geometry, otherwise
+	 * creates it as {@link #create(File, int, boolean)} does. The file is
+	 * locked meanwhile, so producer and consumer processes could start in any order.
+	 *
+	 * @throws IOException if the existing file has another geometry (or could not
+	 *			be read) and it is leased by a live producer or consumer:
+	 *			it is mapped by them and could not be recreated
+	 */
+	public static MappedRingFile openOrCreate(final File file, final int capacity, final boolean multibyte)
+			throws IOException {
+		final File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.exists()) dir.mkdirs();
+
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			synchronized (MappedRingFile.class) {
+				final FileLock lock = raf.getChannel().lock(LOCK_OFFSET, 1L, false);
+				try {
+					if (raf.length() > 0L) {
+						String mismatch;
+						try {
+							final MappedRingFile existing = open(file);
+							if (existing.getCapacity() == capacity && existing.isMultibyte() == multibyte) {
+								return existing;
+							}
+							mismatch = "has capacity " + existing.getCapacity()
+								+ (existing.isMultibyte() ? " (multibyte)" : "")
+								+ " rather than " + capacity + (multibyte ? " (multibyte)" : "");
+							existing.close();
+						} catch (IOException e) {
+							mismatch = "could not be read: " + e.getMessage();
+						}
+						if (isLeased(raf.getChannel())) {
+							throw new IOException("ring file " + file + " " + mismatch
+								+ ", it is in use by another process and could not be recreated");
+						}
+						LogLog.warn("ring file " + file + " " + mismatch + ", it is recreated");
+					}
+					return create(file, capacity, multibyte);
+				} finally {
+					lock.release();
+				}
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * opens an existing ring file
+	 */
+	public static MappedRingFile open(final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			final long length = raf.length();
+			if (length < REGION_OFFSET) {
+				throw new IOException(file + " is not a ring file: too short");
+			}
+			final MappedRingFile ringFile =
+				new MappedRingFile(file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, length));
+			if (ringFile.buffer.getLong(MAGIC_OFFSET) != MAGIC) {
+				ringFile.close();
+				throw new IOException(file + " is not a ring file: wrong magic");
+			}
+			final int capacity = ringFile.getCapacity();
+			if (ringFile.buffer.getInt(VERSION_OFFSET) != VERSION
+				|| capacity <= 0 || (capacity & (capacity - 1)) != 0
+				|| length < (long) REGION_OFFSET + capacity) {
+				ringFile.close();
+				throw new IOException(file + " is not a ring file: unsupported version or corrupted header");
+			}
+			return ringFile;
+		} finally {
+			raf.close();
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the ring region
+	 */
+	public ByteBuffer getRegion() {
+		return region;
+	}
+
+	public int getCapacity() {
+		return buffer.getInt(CAPACITY_OFFSET);
+	}
+
+	public boolean isMultibyte() {
+		return (buffer.getInt(FLAGS_OFFSET) & MULTIBYTE_FLAG) != 0;
+	}
+
+	/**
+	 * @return region of {@link RecordRingBuffer#COUNTERS_LENGTH} bytes for
+	 *			tail and head of a ring shared by processes
+	 */
+	public ByteBuffer getCounters() {
+		return counters;
+	}
+
+	/**
+	 * makes the released head of a shared ring the same as the durable one:
+	 * a consumer could die after the durable head is stored, but before
+	 * records are zeroed and released. Has to be called before the consumer starts.
+	 */
+	public void restoreReleasedHead() {
+		final long durable = getHead();
+		final long released = counters.getLong(HEAD_COUNTER_OFFSET);
+		final int capacity = getCapacity();
+		for (long position = released; position < durable; position += ALIGNMENT) {
+			region.putLong((int) (position & (capacity - 1)), 0L);
+		}
+		if (released < durable) {
+			UNSAFE.putOrderedLong(null, address + COUNTERS_OFFSET + HEAD_COUNTER_OFFSET, durable);
+		} else {
+			setHead(released);
+		}
+	}
+
+	/**
+	 * @return position (in bytes since the start) of the first record which is not durable
+	 */
+	public long getHead() {
+		return UNSAFE.getLongVolatile(null, address + HEAD_OFFSET);
+	}
+
+	/**
+	 * stores durable head, has to be called before records are released
+	 */
+	public void setHead(final long head) {
+		UNSAFE.putOrderedLong(null, address + HEAD_OFFSET, head);
+	}
+
+	/**
+	 * @return whether there is a committed record at the durable head
+	 */
+	public boolean hasPendingRecords() {
+		final int index = (int) (getHead() & (getCapacity() - 1));
+		return region.getInt(index + LENGTH_OFFSET) != 0;
+	}
+
+	/**
+	 * leases a producer slot of the shared file, the lease is held until
+	 * {@link #releaseLease()} or the exit of the process. The file should not
+	 * be opened once again by the same process meanwhile: closing of any channel
+	 * of the file releases locks of the process on some systems.
+	 *
+	 * @param recovery is run under the file lock if there are no other live producers,
+	 *			e.g. to skip records claimed by producers which have gone
+	 */
+	public void leaseProducer(final Runnable recovery) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		boolean leased = false;
+		try {
+			final FileChannel channel = raf.getChannel();
+			synchronized (MappedRingFile.class) {
+				final FileLock lock = channel.lock(LOCK_OFFSET, 1L, false);
+				try {
+					boolean alone = true;
+					for (int i = 0; i < MAX_PRODUCERS; i++) {
+						final FileLock slot = tryLock(channel, LEASES_OFFSET + i);
+						if (slot == null) {
+							alone = false;
+						} else if (leased) {
+							// nobody holds it
+							slot.release();
+						} else {
+							leased = true;
+						}
+					}
+					if (!leased) {
+						throw new IOException("ring file " + file + " has "
+							+ MAX_PRODUCERS + " live producers already");
+					}
+					if (alone) {
+						recovery.run();
+					}
+				} finally {
+					lock.release();
+				}
+			}
+		} finally {
+			if (leased) {
+				leaseFile = raf;
+			} else {
+				raf.close();
+			}
+		}
+	}
+
+	/**
+	 * leases the consumer of the shared file, the lease is held until
+	 * {@link #releaseLease()} or the exit of the process. There is only one consumer
+	 * of the file.
+	 */
+	public void leaseConsumer() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		boolean leased = false;
+		try {
+			final FileChannel channel = raf.getChannel();
+			synchronized (MappedRingFile.class) {
+				final FileLock lock = channel.lock(LOCK_OFFSET, 1L, false);
+				try {
+					leased = tryLock(channel, CONSUMER_LEASE_OFFSET) != null;
+					if (!leased) {
+						throw new IOException("ring file " + file + " has a live consumer already");
+					}
+				} finally {
+					lock.release();
+				}
+			}
+		} finally {
+			if (leased) {
+				leaseFile = raf;
+			} else {
+				raf.close();
+			}
+		}
+	}
+
+	/**
+	 * @return whether a producer or the consumer of the file is alive,
+	 *			has to be called under the file lock
+	 */
+	private static boolean isLeased(final FileChannel channel) throws IOException {
+		for (int i = 0; i <= MAX_PRODUCERS; i++) {
+			final FileLock slot = tryLock(channel, LEASES_OFFSET + i);
+			if (slot == null) return true;
+			slot.release();
+		}
+		return false;
+	}
+
+	private static FileLock tryLock(final FileChannel channel, final long position) throws IOException {
+		try {
+			return channel.tryLock(position, 1L, false);
+		} catch (OverlappingFileLockException e) {
+			// it is held by another producer of this process
+			return null;
+		}
+	}
+
+	/**
+	 * releases the producer or consumer lease if any
+	 */
+	public void releaseLease() {
+		if (leaseFile == null) return;
+		try {
+			leaseFile.close();
+		} catch (IOException e) {
+			LogLog.warn("unable to release lease of ring file " + file + ": " + e.getMessage());
+		}
+		leaseFile = null;
+	}
+
+	/**
+	 * @return id of a new name, it is unique among processes sharing the file
+	 */
+	public int nextNameId() {
+		return UNSAFE.getAndAddInt(null, address + NAME_IDS_OFFSET, 1);
+	}
+
+	/**
+	 * appends the name to the names area, the space of the entry is reserved
+	 * atomically, so names could be added by processes sharing the file
+	 *
+	 * @return <code>false</code> if there is no space left
+	 */
+	public boolean addName(final int id, final String name) {
+		final byte[] bytes = name.getBytes(UTF8);
+		final int entryLength = 8 + bytes.length;
+		int length;
+		do {
+			length = UNSAFE.getIntVolatile(null, address + NAMES_LENGTH_OFFSET);
+			if (NAMES_OFFSET + length + entryLength > REGION_OFFSET) return false;
+		} while (!UNSAFE.compareAndSwapInt(null, address + NAMES_LENGTH_OFFSET, length, length + entryLength));
+
+		final int offset = NAMES_OFFSET + length;
+		buffer.putInt(offset + 4, bytes.length);
+		for (int i = 0; i < bytes.length; i++) {
+			buffer.put(offset + 8 + i, bytes[i]);
+		}
+		// ordered write: the entry is committed by its id once the name is stored
+		UNSAFE.putOrderedInt(null, address + offset, id + 1);
+		return true;
+	}
+
+	/**
+	 * @return names indexed by ids, unknown ids are <code>null</code>
+	 */
+	public String[] readNames() {
+		final int length = UNSAFE.getIntVolatile(null, address + NAMES_LENGTH_OFFSET);
+		String[] names = new String[16];
+		int offset = NAMES_OFFSET;
+		final int end = Math.min(NAMES_OFFSET + length, REGION_OFFSET);
+		while (offset + 8 <= end) {
+			// entry which is not committed yet is read next time
+			final int id = UNSAFE.getIntVolatile(null, address + offset) - 1;
+			final int size = buffer.getInt(offset + 4);
+			if (id < 0 || size < 0 || offset + 8 + size > end) break;
+
+			final byte[] bytes = new byte[size];
+			for (int i = 0; i < size; i++) {
+				bytes[i] = buffer.get(offset + 8 + i);
+			}
+			if (id >= names.length) {
+				names = Arrays.copyOf(names, Math.max(id + 1, names.length << 1));
+			}
+			names[id] = new String(bytes, UTF8);
+			offset += 8 + size;
+		}
+		return names;
+	}
+
+	/**
+	 * unmaps the file, it is not safe if the region could be accessed afterwards
+	 */
+	public void close() {
+		DirectBufferUtils.releaseBuffer(buffer);
+	}
+
+	/**
+	 * deletes the file if all its records are written, the mapping itself
+	 * is left to GC as producers could still touch the region
+	 */
+	public void deleteIfDrained() {
+		if (!hasPendingRecords() && !file.delete()) {
+			LogLog.warn("unable to delete ring file " + file);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.ring;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PhasedBackoffWaitStrategy spins for <code>spinTimeout</code>, then yields
+ * till <code>yieldTimeout</code> and then falls back to the given strategy.
+ *
+ * <p>
+ * Bursts are picked up with the spinning latency while an idle consumer ends up
+ * in the fallback strategy (e.g. {@link BlockingWaitStrategy}).
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class PhasedBackoffWaitStrategy implements WaitStrategy {
+
+	private static final int SPIN_TRIES = 10000;
+
+	private final long spinTimeoutNanos;
+	private final long yieldTimeoutNanos;
+	private final WaitStrategy fallbackStrategy;
+
+	public PhasedBackoffWaitStrategy(
+		final long spinTimeout,
+		final long yieldTimeout,
+		final TimeUnit unit,
+		final WaitStrategy fallbackStrategy
+	) {
+		this.spinTimeoutNanos = unit.toNanos(spinTimeout);
+		this.yieldTimeoutNanos = spinTimeoutNanos + unit.toNanos(yieldTimeout);
+		this.fallbackStrategy = fallbackStrategy;
+	}
+
+	@Override
+	public void signallAll() {
+		fallbackStrategy.signallAll();
+	}
+
+	@Override
+	public boolean waitFor(final Awaitable entry, final Alertable alertable)
+	throws InterruptedException {
+		if (entry.isPublished()) return true;
+
+		if (backoff(entry, alertable, Long.MAX_VALUE)) return true;
+
+		return fallbackStrategy.waitFor(entry, alertable);
+	}
+
+	@Override
+	public boolean waitFor(
+		final Awaitable entry,
+		final Alertable alertable,
+		final long timeout,
+		final TimeUnit unit
+	) throws InterruptedException {
+		if (entry.isPublished()) return true;
+
+		final long timeoutNanos = unit.toNanos(timeout);
+		final long startTime = System.nanoTime();
+
+		if (backoff(entry, alertable, timeoutNanos)) return true;
+
+		final long remaining = timeoutNanos - (System.nanoTime() - startTime);
+		if (remaining <= 0) return entry.isPublished();
+
+		return fallbackStrategy.waitFor(entry, alertable, remaining, TimeUnit.NANOSECONDS);
+	}
+
+	private boolean backoff(
+		final Awaitable entry,
+		final Alertable alertable,
+		final long timeoutNanos
+	) {
+		final long startTime = System.nanoTime();
+		int counter = SPIN_TRIES;
+		while (!entry.isPublished()) {
+			alertable.checkAlert();
+
+			if (--counter == 0) {
+				final long elapsed = System.nanoTime() - startTime;
+				if (elapsed > timeoutNanos || elapsed > yieldTimeoutNanos) {
+					return false;
+				}
+				if (elapsed > spinTimeoutNanos) {
+					Thread.yield();
+				}
+				counter = SPIN_TRIES;
+			}
+		}
+		return true;
+	}
+
+}
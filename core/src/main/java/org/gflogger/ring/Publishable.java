@@ -1,8 +1,6 @@
 package org.gflogger.ring;
 
-public interface Publishable {
-
-	boolean isPublished();
+public interface Publishable extends Awaitable {
 
 	void setPublished(boolean published);
 }
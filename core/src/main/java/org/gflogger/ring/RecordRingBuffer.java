@@ -0,0 +1,366 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.ring;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.lmax.disruptor.util.Util;
+import sun.misc.Unsafe;
+import sun.nio.ch.DirectBuffer;
+
+import static org.gflogger.formatter.BufferFormatter.roundUpNextPower2;
+import static org.gflogger.ring.AlertException.ALERT_EXCEPTION;
+
+/**
+ * RecordRingBuffer is a multi producer / single consumer ring of
+ * variable length records over one contiguous off-heap region.
+ *
+ * <p>
+ * Each record starts with 8 bytes header: <code>int length</code> of the
+ * whole (aligned) record and <code>int type</code>. The length is negated
+ * while the record is claimed and it is written as is the last, i.e. not
+ * positive length means the record is not committed yet. A record never
+ * wraps: the tail of the region is filled with a padding record instead.
+ *
+ * <p>
+ * The consumer zeroes released records, so producers always claim zeroed memory.
+ *
+ * <p>
+ * The region could be provided externally (e.g. by {@link MappedRingFile}),
+ * in that case the ring runs in <i>deferred release</i> mode: records are
+ * consumed one by one, but they are zeroed and given back to producers only by
+ * {@link #releaseConsumed()} - once the consumer knows they are durable.
+ *
+ * <p>
+ * Tail and head could be placed into an external <code>counters</code>
+ * region as well, so producers and the consumer of a mapped region could
+ * live in different processes.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class RecordRingBuffer implements Alertable {
+
+	public static final int ALIGNMENT = 8;
+
+	public static final int LENGTH_OFFSET = 0;
+	public static final int TYPE_OFFSET = 4;
+	public static final int HEADER_LENGTH = 8;
+
+	public static final int RECORD_TYPE = 1;
+	public static final int PADDING_TYPE = 2;
+
+	// offsets in the counters region, tail and head are on different cache lines
+	public static final int TAIL_COUNTER_OFFSET = 0;
+	public static final int HEAD_COUNTER_OFFSET = 64;
+	public static final int COUNTERS_LENGTH = 128;
+
+	// on heap counters are padded from the both sides
+	private static final int COUNTERS_PADDING = 56;
+
+	private static final Unsafe UNSAFE = Util.getUnsafe();
+
+	private final ByteBuffer buffer;
+	private final long address;
+	private final int capacity;
+	// provides quick mod, mask is like 000111111
+	private final int mask;
+	private final int maxRecordLength;
+
+	// tail is claimed by producers, head is released by the consumer,
+	// both are either in a padded array or in the counters region
+	private final Object countersBase;
+	private final long tailOffset;
+	private final long headOffset;
+	private final PaddedAtomicLong headCache = new PaddedAtomicLong(0L);
+
+	// consumer's own position
+	private long consumed;
+
+	private final boolean deferredRelease;
+
+	private final WaitStrategy waitStrategy;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	private final Awaitable headRecord = new Awaitable() {
+		@Override
+		public boolean isPublished() {
+			return UNSAFE.getIntVolatile(null, address + (consumed & mask)) > 0;
+		}
+	};
+
+	/**
+	 * @param waitStrategy
+	 * @param capacity size of the region in bytes, could be rounded up to the next power of 2
+	 * @param maxRecordLength max length of a record (incl. header),
+	 *			capacity is at least twice as much
+	 */
+	public RecordRingBuffer(final WaitStrategy waitStrategy, final int capacity, final int maxRecordLength) {
+		this(waitStrategy,
+			// allocateDirect zeroes memory
+			ByteBuffer.allocateDirect(capacity(capacity, maxRecordLength)),
+			maxRecordLength, false, null);
+	}
+
+	/**
+	 * @param waitStrategy
+	 * @param region zeroed direct region, its capacity has to be a power of 2
+	 *			and at least twice as much as <code>maxRecordLength</code>
+	 * @param maxRecordLength max length of a record (incl. header)
+	 * @param deferredRelease whether records are released by {@link #releaseConsumed()} only
+	 * @param counters direct region of {@link #COUNTERS_LENGTH} bytes tail and head are kept in,
+	 *			<code>null</code> means they are on heap
+	 */
+	public RecordRingBuffer(final WaitStrategy waitStrategy, final ByteBuffer region,
+			final int maxRecordLength, final boolean deferredRelease, final ByteBuffer counters) {
+		this.maxRecordLength = align(maxRecordLength);
+		this.capacity = region.capacity();
+		if (capacity != capacity(capacity, maxRecordLength)) {
+			throw new IllegalArgumentException("region capacity " + capacity
+				+ " is not a power of 2 or less than twice max record length " + this.maxRecordLength);
+		}
+		this.mask = this.capacity - 1;
+		this.buffer = region.order(ByteOrder.nativeOrder());
+		this.address = ((DirectBuffer) buffer).address();
+		this.waitStrategy = waitStrategy;
+		this.deferredRelease = deferredRelease;
+		if (counters != null) {
+			if (!counters.isDirect() || counters.capacity() < COUNTERS_LENGTH) {
+				throw new IllegalArgumentException("direct counters region of "
+					+ COUNTERS_LENGTH + " bytes is expected");
+			}
+			final long countersAddress = ((DirectBuffer) counters).address();
+			this.countersBase = null;
+			this.tailOffset = countersAddress + TAIL_COUNTER_OFFSET;
+			this.headOffset = countersAddress + HEAD_COUNTER_OFFSET;
+		} else {
+			this.countersBase = new long[(COUNTERS_PADDING + COUNTERS_LENGTH) >> 3];
+			this.tailOffset = Unsafe.ARRAY_LONG_BASE_OFFSET + COUNTERS_PADDING + TAIL_COUNTER_OFFSET;
+			this.headOffset = Unsafe.ARRAY_LONG_BASE_OFFSET + COUNTERS_PADDING + HEAD_COUNTER_OFFSET;
+		}
+		// the consumer continues from the released head
+		this.consumed = head();
+		running.set(true);
+	}
+
+	public static int align(final int length) {
+		return (length + ALIGNMENT - 1) & -ALIGNMENT;
+	}
+
+	/**
+	 * @return actual size of the region for the requested capacity and max record length
+	 */
+	public static int capacity(final int capacity, final int maxRecordLength) {
+		final int c = Math.max(capacity, align(maxRecordLength) << 1);
+		return (c & (c - 1)) != 0 ? roundUpNextPower2(c) : c;
+	}
+
+	/**
+	 * claims a record of the given length (header excluded)
+	 *
+	 * @return index of the record in the region
+	 */
+	public int claim(final int length) {
+		return claim(length, -1L);
+	}
+
+	/**
+	 * claims a record of the given length (header excluded) if there is enough
+	 * space or it gets free within the timeout
+	 *
+	 * @param timeoutNanos negative value means to wait till the space is available
+	 * @return index of the record in the region or <code>-1</code> if the ring is still full
+	 */
+	public int tryClaim(final int length, final long timeoutNanos) {
+		return claim(length, Math.max(0L, timeoutNanos));
+	}
+
+	private int claim(final int length, final long timeoutNanos) {
+		final int required = align(length + HEADER_LENGTH);
+		if (required > maxRecordLength) {
+			throw new IllegalArgumentException("record length " + required
+				+ " exceeds max record length " + maxRecordLength);
+		}
+
+		long deadline = 0L;
+		long tail;
+		int index;
+		int padding;
+		do {
+			tail = UNSAFE.getLongVolatile(countersBase, tailOffset);
+			index = (int) (tail & mask);
+			final int toEnd = capacity - index;
+			padding = required > toEnd ? toEnd : 0;
+
+			final long wrapPoint = tail + padding + required - capacity;
+			if (wrapPoint > headCache.get()) {
+				long head;
+				while (wrapPoint > (head = head())) {
+					if (timeoutNanos >= 0L) {
+						final long now = System.nanoTime();
+						if (deadline == 0L) {
+							deadline = now + timeoutNanos;
+						}
+						if (now - deadline >= 0L) return -1;
+					}
+					Thread.yield();
+				}
+				headCache.lazySet(head);
+			}
+		} while (!UNSAFE.compareAndSwapLong(countersBase, tailOffset, tail, tail + padding + required));
+
+		if (padding != 0) {
+			UNSAFE.putInt(address + index + TYPE_OFFSET, PADDING_TYPE);
+			UNSAFE.putOrderedInt(null, address + index + LENGTH_OFFSET, padding);
+			index = 0;
+		}
+		UNSAFE.putInt(address + index + TYPE_OFFSET, RECORD_TYPE);
+		// claimed record could be skipped if its producer has gone
+		UNSAFE.putInt(address + index + LENGTH_OFFSET, -required);
+		return index;
+	}
+
+	/**
+	 * commits the record claimed by {@link #claim(int)}
+	 */
+	public void publish(final int index, final int length) {
+		UNSAFE.putOrderedInt(null, address + index + LENGTH_OFFSET, align(length + HEADER_LENGTH));
+		waitStrategy.signallAll();
+	}
+
+	/**
+	 * @return index of the next available record or <code>-1</code>,
+	 *			has to be called by the consumer only
+	 */
+	public int nextRecord() {
+		while (true) {
+			// all the region is consumed, but not released yet
+			if (deferredRelease && consumed - head() == capacity) return -1;
+
+			final int index = (int) (consumed & mask);
+			final int length = UNSAFE.getIntVolatile(null, address + index + LENGTH_OFFSET);
+			if (length <= 0) return -1;
+
+			if (UNSAFE.getInt(address + index + TYPE_OFFSET) != PADDING_TYPE) return index;
+
+			release(index, length);
+		}
+	}
+
+	/**
+	 * releases the record returned by {@link #nextRecord()}
+	 */
+	public void release(final int index) {
+		release(index, UNSAFE.getInt(address + index + LENGTH_OFFSET));
+	}
+
+	private void release(final int index, final int length) {
+		consumed += length;
+		if (deferredRelease) return;
+
+		UNSAFE.setMemory(address + index, length, (byte) 0);
+		// ordered write: zeroed memory is visible before the region is reused
+		UNSAFE.putOrderedLong(countersBase, headOffset, consumed);
+	}
+
+	/**
+	 * zeroes and gives back to producers all records consumed so far,
+	 * has to be called by the consumer only
+	 */
+	public void releaseConsumed() {
+		final long head = head();
+		final int length = (int) (consumed - head);
+		if (length == 0) return;
+
+		final int index = (int) (head & mask);
+		final int toEnd = capacity - index;
+		if (length > toEnd) {
+			UNSAFE.setMemory(address + index, toEnd, (byte) 0);
+			UNSAFE.setMemory(address, length - toEnd, (byte) 0);
+		} else {
+			UNSAFE.setMemory(address + index, length, (byte) 0);
+		}
+		UNSAFE.putOrderedLong(countersBase, headOffset, consumed);
+	}
+
+	private long head() {
+		return UNSAFE.getLongVolatile(countersBase, headOffset);
+	}
+
+	/**
+	 * turns records which have been claimed, but never committed (their
+	 * producers have gone) into padding, so the consumer could skip them.
+	 * Has to be called only if there are no live producers.
+	 */
+	public void skipAbandoned() {
+		final long tail = UNSAFE.getLongVolatile(countersBase, tailOffset);
+		long position = head();
+		while (position < tail) {
+			final int index = (int) (position & mask);
+			final int length = UNSAFE.getIntVolatile(null, address + index + LENGTH_OFFSET);
+			if (length == 0) break;
+
+			if (length < 0) {
+				UNSAFE.putInt(address + index + TYPE_OFFSET, PADDING_TYPE);
+				UNSAFE.putOrderedInt(null, address + index + LENGTH_OFFSET, -length);
+			}
+			position += Math.abs(length);
+		}
+	}
+
+	/**
+	 * @return position of the consumer (in bytes since the start)
+	 */
+	public long getConsumed() {
+		return consumed;
+	}
+
+	public boolean isDeferredRelease() {
+		return deferredRelease;
+	}
+
+	public boolean waitFor(final long timeout, final TimeUnit unit) throws InterruptedException {
+		return waitStrategy.waitFor(headRecord, this, timeout, unit);
+	}
+
+	@Override
+	public void checkAlert() throws AlertException {
+		if (!running.get()) throw ALERT_EXCEPTION;
+	}
+
+	/**
+	 * @return the region, use absolute methods or a duplicate of it
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	public long getAddress() {
+		return address;
+	}
+
+	public int size() {
+		return capacity;
+	}
+
+	public void stop() {
+		if (running.getAndSet(false)) {
+			waitStrategy.signallAll();
+		}
+	}
+}
@@ -17,14 +17,28 @@ package org.gflogger.ring;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.lmax.disruptor.util.Util;
+import sun.misc.Unsafe;
+
 import static org.gflogger.ring.AlertException.ALERT_EXCEPTION;
 
 /**
  * RingBuffer in-place implementation of disruptor.
  *
+ * <p>
+ * Besides the published flag of an entry, which the consumer waits on, each slot
+ * has a lap number in a packed <code>int</code> array (as disruptor's
+ * <code>MultiProducerSequencer</code> does), so the consumer finds the highest
+ * contiguous published sequence reading a few cache lines instead of
+ * the entries themselves.
+ *
+ * <p>
+ * Several entry processors consume the ring independently, an entry is
+ * reclaimed once the slowest of them has passed it.
+ *
  * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
  */
-public final class RingBuffer<T extends Publishable> {
+public final class RingBuffer<T extends Publishable> implements Alertable {
 
 	public static final long INITIAL_CURSOR_VALUE = -1L;
 
@@ -37,6 +51,14 @@ public final class RingBuffer<T extends Publishable> {
 
 	private final PaddedAtomicLong sequence = new PaddedAtomicLong(INITIAL_CURSOR_VALUE);
 
+	private static final Unsafe UNSAFE = Util.getUnsafe();
+	private static final long BASE = UNSAFE.arrayBaseOffset(int[].class);
+	private static final long SCALE = UNSAFE.arrayIndexScale(int[].class);
+
+	// lap of the last published sequence of a slot, sequence >>> indexShift
+	private final int[] available;
+	private final int indexShift;
+
 	private static class MutableLongThreadLocal extends ThreadLocal<MutableLong> {
 		@Override
 		protected MutableLong initialValue() {
@@ -48,15 +70,31 @@ public final class RingBuffer<T extends Publishable> {
 
 	private final EntryProcessor[] entryProcessors;
 
+	private final WaitStrategy waitStrategy;
+
 	private final AtomicBoolean running = new AtomicBoolean();
 
 	public RingBuffer(final T[] entries, final EntryProcessor ... entryProcessors) {
+		this(new BlockingWaitStrategy(), entries, entryProcessors);
+	}
+
+	public RingBuffer(
+		final WaitStrategy waitStrategy,
+		final T[] entries,
+		final EntryProcessor ... entryProcessors
+	) {
 		// quick check is count = 2^k ?
 		if ((entries.length & entries.length - 1) != 0) {
 			throw new IllegalArgumentException("number of entries should be power of 2");
 		}
 		this.entries = entries;
 		this.mask = entries.length - 1;
+		this.indexShift = Integer.numberOfTrailingZeros(entries.length);
+		this.available = new int[entries.length];
+		for (int i = 0; i < available.length; i++) {
+			available[i] = -1;
+		}
+		this.waitStrategy = waitStrategy;
 
 		this.entryProcessors = entryProcessors;
 		for (int i = 0; i < entryProcessors.length; i++) {
@@ -84,6 +122,54 @@ public final class RingBuffer<T extends Publishable> {
 		return nextSeqNum;
 	}
 
+	/**
+	 * claims a contiguous range of <code>n</code> entries at once
+	 *
+	 * @return the highest claimed sequence, range is <code>[seq - n + 1, seq]</code>
+	 */
+	public long next(final int n) {
+		if (n < 1 || n > entries.length) {
+			throw new IllegalArgumentException("n should be in range [1, " + entries.length + "]");
+		}
+		final long hiSeqNum = sequence.addAndGet(n);
+		claimSequence(hiSeqNum);
+		return hiSeqNum;
+	}
+
+	/**
+	 * claims the next entry if it is free or gets free within the timeout,
+	 * never claims an entry it can't get
+	 *
+	 * @return claimed sequence or {@link #INITIAL_CURSOR_VALUE} if the ring is still full
+	 */
+	public long tryNext(final long timeoutNanos) {
+		final MutableLong minSeq = minSequence.get();
+		long deadline = 0L;
+		while (true) {
+			final long current = sequence.get();
+			final long nextSeqNum = current + 1;
+			final long wrapPoint = nextSeqNum - entries.length;
+			if (wrapPoint > minSeq.get()) {
+				final long minSeqNum = getMinSeqNum();
+				minSeq.set(minSeqNum);
+				if (wrapPoint > minSeqNum) {
+					if (timeoutNanos <= 0L) return INITIAL_CURSOR_VALUE;
+					final long now = System.nanoTime();
+					if (deadline == 0L) {
+						deadline = now + timeoutNanos;
+					} else if (now - deadline >= 0L) {
+						return INITIAL_CURSOR_VALUE;
+					}
+					Thread.yield();
+					continue;
+				}
+			}
+			if (sequence.compareAndSet(current, nextSeqNum)) {
+				return nextSeqNum;
+			}
+		}
+	}
+
 	private void claimSequence(final long seqNum) {
 		final long wrapPoint = seqNum - entries.length;
 		final MutableLong minSeq = minSequence.get();
@@ -97,78 +183,81 @@ public final class RingBuffer<T extends Publishable> {
 	}
 
 	public void publish(final long sequence) {
-		entries[(int) (sequence & mask)].setPublished(true);
-		signallAll();
+		setAvailable(sequence);
+		waitStrategy.signallAll();
 	}
 
-	public long waitFor(final long seqNum) throws InterruptedException {
-		final int idx = (int) (seqNum & mask);
-		boolean published = entries[idx].isPublished();
-		long availableSequence = published ? seqNum : seqNum - 1;
-		if (!published) {
+	/**
+	 * publishes range of entries <code>[lo, hi]</code> with a single signal
+	 */
+	public void publish(final long lo, final long hi) {
+		for (long i = lo; i <= hi; i++) {
+			setAvailable(i);
+		}
+		waitStrategy.signallAll();
+	}
 
-			synchronized (lock) {
-				signalled = false;
-				try {
-					++waiters;
-					while (!(published = entries[idx].isPublished())) {
-						if (!running.get()) throw ALERT_EXCEPTION;
+	private void setAvailable(final long sequence) {
+		final int index = (int) (sequence & mask);
+		entries[index].setPublished(true);
+		// entry is visible as published before its lap is
+		UNSAFE.putOrderedInt(available, BASE + index * SCALE, (int) (sequence >>> indexShift));
+	}
 
-						lock.wait();
+	/**
+	 * @return whether the entry of the given sequence has been published,
+	 *			it does not rely on published flag of the entry
+	 */
+	public boolean isPublished(final long sequence) {
+		final int index = (int) (sequence & mask);
+		return UNSAFE.getIntVolatile(available, BASE + index * SCALE) == (int) (sequence >>> indexShift);
+	}
 
-						if (!signalled) break;
-					}
-				} finally {
-					--waiters;
-				}
-			}
-		}
-		if (published) {
-			availableSequence = seqNum;
-			for (long i = seqNum, e = seqNum + entries.length; i < e; i++) {
-				if (!entries[(int) (i & mask)].isPublished()) {
-					availableSequence = i - 1;
-					break;
-				}
-			}
-		}
-		return availableSequence;
+	/**
+	 * @return the highest claimed sequence
+	 */
+	public long getCursor() {
+		return sequence.get();
+	}
+
+	public long waitFor(final long seqNum) throws InterruptedException {
+		final boolean published = waitStrategy.waitFor(get(seqNum), this);
+		return published ? availableSequence(seqNum) : seqNum - 1;
 	}
 
 	public long waitFor(final long seqNum, final long timeout, final TimeUnit unit) throws InterruptedException {
-		final int idx = (int) (seqNum & mask);
-		boolean published = entries[idx].isPublished();
-		long availableSequence = published ? seqNum : seqNum - 1;
-		if (!published) {
-			final long timeoutMs = unit.toMillis(timeout);
-			final long startTime = System.currentTimeMillis() ;
-
-			synchronized (lock) {
-				signalled = false;
-				try {
-					++waiters;
-					while (!(published = entries[idx].isPublished())) {
-						if (!running.get()) throw ALERT_EXCEPTION;
-
-						lock.wait(timeoutMs);
-
-						if (!signalled || (System.currentTimeMillis() - startTime) > timeoutMs) break;
-					}
-				} finally {
-					--waiters;
-				}
-			}
-		}
-		if (published) {
-			availableSequence = seqNum;
-			for (long i = seqNum, e = seqNum + entries.length; i < e; i++) {
-				if (!entries[(int) (i & mask)].isPublished()) {
-					availableSequence = i - 1;
-					break;
-				}
+		final boolean published = waitStrategy.waitFor(get(seqNum), this, timeout, unit);
+		return published ? availableSequence(seqNum) : seqNum - 1;
+	}
+
+	/**
+	 * waits on the given awaitable instead of the entry itself, i.e. consumers which
+	 * share entries (and do not reset their published flags) wait on
+	 * {@link #isPublished(long)} of <code>seqNum</code>
+	 */
+	public long waitFor(final Awaitable awaitable, final long seqNum, final long timeout, final TimeUnit unit)
+			throws InterruptedException {
+		final boolean published = waitStrategy.waitFor(awaitable, this, timeout, unit);
+		return published ? availableSequence(seqNum) : seqNum - 1;
+	}
+
+	/**
+	 * @return the highest contiguous published sequence starting from the published <code>seqNum</code>
+	 */
+	private long availableSequence(final long seqNum) {
+		// nothing could be published beyond the claimed cursor
+		final long hi = Math.min(sequence.get(), seqNum + entries.length - 1);
+		for (long i = seqNum + 1; i <= hi; i++) {
+			if (!isPublished(i)) {
+				return i - 1;
 			}
 		}
-		return availableSequence;
+		return Math.max(hi, seqNum);
+	}
+
+	@Override
+	public void checkAlert() throws AlertException {
+		if (!running.get()) throw ALERT_EXCEPTION;
 	}
 
 	public T get(final long index) {
@@ -181,22 +270,7 @@ public final class RingBuffer<T extends Publishable> {
 
 	public void stop() {
 		if (running.getAndSet(false)) {
-			signallAll();
-		}
-	}
-
-	private final Object lock  = new Object();
-
-	private boolean signalled;
-	private volatile int waiters;
-
-
-	private void signallAll() {
-		if (waiters != 0) {
-			synchronized (lock) {
-				signalled = true;
-				lock.notifyAll();
-			}
+			waitStrategy.signallAll();
 		}
 	}
 }
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.ring;
+
+/**
+ * Single producer / single consumer ring: the producer side never touches
+ * a shared counter with CAS, it only publishes its own cursor.
+ *
+ * <p>
+ * Methods {@link #next()} and {@link #publish(long)} have to be called by the
+ * owner (producer) thread only, {@link #getConsumed()} / {@link #setConsumed(long)}
+ * by the consumer thread only.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class SingleProducerRingBuffer<T> {
+
+	private final T[] entries;
+
+	// provides quick mod, mask is like 000111111
+	private final int mask;
+
+	// published by the producer
+	private final PaddedAtomicLong cursor = new PaddedAtomicLong(RingBuffer.INITIAL_CURSOR_VALUE);
+
+	// released by the consumer
+	private final PaddedAtomicLong consumed = new PaddedAtomicLong(RingBuffer.INITIAL_CURSOR_VALUE);
+
+	// producer's own state, never read by the consumer
+	private long claimed = RingBuffer.INITIAL_CURSOR_VALUE;
+	private long cachedConsumed = RingBuffer.INITIAL_CURSOR_VALUE;
+
+	public SingleProducerRingBuffer(final T[] entries) {
+		// quick check is count = 2^k ?
+		if ((entries.length & entries.length - 1) != 0) {
+			throw new IllegalArgumentException("number of entries should be power of 2");
+		}
+		this.entries = entries;
+		this.mask = entries.length - 1;
+	}
+
+	public long next() {
+		return next(1);
+	}
+
+	/**
+	 * claims a contiguous range of <code>n</code> entries at once,
+	 * the whole range is published with {@link #publish(long)} of the highest sequence
+	 *
+	 * @return the highest claimed sequence, range is <code>[seq - n + 1, seq]</code>
+	 */
+	public long next(final int n) {
+		if (n < 1 || n > entries.length) {
+			throw new IllegalArgumentException("n should be in range [1, " + entries.length + "]");
+		}
+		final long nextSeqNum = claimed += n;
+		final long wrapPoint = nextSeqNum - entries.length;
+		if (wrapPoint > cachedConsumed) {
+			long minSeqNum;
+			while (wrapPoint > (minSeqNum = consumed.get())) {
+				Thread.yield();
+			}
+			cachedConsumed = minSeqNum;
+		}
+		return nextSeqNum;
+	}
+
+	/**
+	 * claims the next entry if it is free or gets free within the timeout
+	 *
+	 * @return claimed sequence or {@link RingBuffer#INITIAL_CURSOR_VALUE} if the ring is still full
+	 */
+	public long tryNext(final long timeoutNanos) {
+		final long nextSeqNum = claimed + 1;
+		final long wrapPoint = nextSeqNum - entries.length;
+		if (wrapPoint > cachedConsumed) {
+			long deadline = 0L;
+			long minSeqNum;
+			while (wrapPoint > (minSeqNum = consumed.get())) {
+				if (timeoutNanos <= 0L) return RingBuffer.INITIAL_CURSOR_VALUE;
+				final long now = System.nanoTime();
+				if (deadline == 0L) {
+					deadline = now + timeoutNanos;
+				} else if (now - deadline >= 0L) {
+					return RingBuffer.INITIAL_CURSOR_VALUE;
+				}
+				Thread.yield();
+			}
+			cachedConsumed = minSeqNum;
+		}
+		return claimed = nextSeqNum;
+	}
+
+	public void publish(final long sequence) {
+		// volatile write: it has to be ordered with the following check of waiters
+		cursor.set(sequence);
+	}
+
+	public long getCursor() {
+		return cursor.get();
+	}
+
+	public long getConsumed() {
+		return consumed.get();
+	}
+
+	public void setConsumed(final long sequence) {
+		consumed.lazySet(sequence);
+	}
+
+	public boolean isDrained() {
+		return consumed.get() == cursor.get();
+	}
+
+	public T get(final long index) {
+		return entries[(int) (index & mask)];
+	}
+
+	public int size() {
+		return entries.length;
+	}
+}
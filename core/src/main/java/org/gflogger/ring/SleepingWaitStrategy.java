@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.ring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SleepingWaitStrategy spins, then yields and finally parks the consumer for
+ * a short period with {@link LockSupport#parkNanos(long)}.
+ *
+ * <p>
+ * Idle consumer costs almost nothing while publishers never touch any monitor,
+ * the price is the wake up latency up to the park period.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class SleepingWaitStrategy implements WaitStrategy {
+
+	public static final long DEFAULT_SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+
+	private final long sleepNanos;
+
+	public SleepingWaitStrategy() {
+		this(DEFAULT_SLEEP_NANOS);
+	}
+
+	/**
+	 * @param sleepNanos park period (in nanos)
+	 */
+	public SleepingWaitStrategy(final long sleepNanos) {
+		this.sleepNanos = sleepNanos;
+	}
+
+	@Override
+	public void signallAll() {
+		// consumer wakes up by itself
+	}
+
+	@Override
+	public boolean waitFor(final Awaitable entry, final Alertable alertable)
+	throws InterruptedException {
+		int counter = SPIN_TRIES + YIELD_TRIES;
+		while (!entry.isPublished()) {
+			alertable.checkAlert();
+			counter = backoff(counter);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean waitFor(
+		final Awaitable entry,
+		final Alertable alertable,
+		final long timeout,
+		final TimeUnit unit
+	) throws InterruptedException {
+		if (entry.isPublished()) return true;
+
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int counter = SPIN_TRIES + YIELD_TRIES;
+		while (!entry.isPublished()) {
+			alertable.checkAlert();
+
+			if (counter <= YIELD_TRIES && System.nanoTime() - deadline > 0) return false;
+
+			counter = backoff(counter);
+		}
+		return true;
+	}
+
+	private int backoff(int counter) throws InterruptedException {
+		if (counter > YIELD_TRIES) {
+			counter--;
+		} else if (counter > 0) {
+			counter--;
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(sleepNanos);
+			if (Thread.interrupted()) throw new InterruptedException();
+		}
+		return counter;
+	}
+
+}
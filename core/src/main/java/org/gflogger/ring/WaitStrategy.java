@@ -17,35 +17,37 @@ package org.gflogger.ring;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Strategy employed for making {@link EventProcessor}s wait on a cursor {@link Sequence}.
+ * Strategy employed for making {@link EntryProcessor}s wait on an entry to be published.
  */
 public interface WaitStrategy {
 
 	/**
-	 * Signal those {@link EventProcessor}s waiting that the cursor has advanced.
+	 * Signal those {@link EntryProcessor}s waiting that an entry has been published.
 	 */
 	void signallAll();
 
 	/**
-	 * Wait for the given sequence to be available
-	 * 
-	 * @param cursor
-	 * @param seqNum
-	 * @return
+	 * Wait for the given entry to be published
+	 *
+	 * @param entry
+	 * @param alertable
+	 * @return <code>true</code> if entry is published
 	 * @throws InterruptedException
+	 * @throws AlertException if alertable has been alerted
 	 */
-	long waitFor(Sequence cursor, long seqNum) throws InterruptedException;
+	boolean waitFor(Awaitable entry, Alertable alertable) throws InterruptedException;
 
 	/**
-	 * Wait for the given sequence to be available with a timeout specified.
-	 * 
-	 * @param cursor
-	 * @param seqNum
+	 * Wait for the given entry to be published with a timeout specified.
+	 *
+	 * @param entry
+	 * @param alertable
 	 * @param timeout
 	 * @param unit
-	 * @return
+	 * @return <code>true</code> if entry is published, <code>false</code> if timeout is expired
 	 * @throws InterruptedException
+	 * @throws AlertException if alertable has been alerted
 	 */
-	long waitFor(Sequence cursor, long seqNum, long timeout, TimeUnit unit) throws InterruptedException;
+	boolean waitFor(Awaitable entry, Alertable alertable, long timeout, TimeUnit unit) throws InterruptedException;
 
 }
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.ring;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YieldingWaitStrategy spins for a while and then gives up the core with
+ * {@link Thread#yield()} on every iteration.
+ *
+ * <p>
+ * A good compromise between latency and CPU usage when there are more cores
+ * than busy threads. Publishers do not signal anything at all.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class YieldingWaitStrategy implements WaitStrategy {
+
+	private final int spinTries;
+
+	public YieldingWaitStrategy() {
+		this(RingBuffer.SPIN_TRIES);
+	}
+
+	public YieldingWaitStrategy(final int spinTries) {
+		this.spinTries = spinTries;
+	}
+
+	@Override
+	public void signallAll() {
+		// consumer is never parked
+	}
+
+	@Override
+	public boolean waitFor(final Awaitable entry, final Alertable alertable)
+	throws InterruptedException {
+		int counter = spinTries;
+		while (!entry.isPublished()) {
+			alertable.checkAlert();
+
+			if (counter > 0) {
+				counter--;
+			} else {
+				Thread.yield();
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean waitFor(
+		final Awaitable entry,
+		final Alertable alertable,
+		final long timeout,
+		final TimeUnit unit
+	) throws InterruptedException {
+		if (entry.isPublished()) return true;
+
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		int counter = spinTries;
+		while (!entry.isPublished()) {
+			alertable.checkAlert();
+
+			if (counter > 0) {
+				counter--;
+			} else {
+				if (System.nanoTime() - deadline > 0) return false;
+				Thread.yield();
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gflogger.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * NameRegistry interns names (categories, threads) to int ids, so they
+ * could be stored in off-heap records.
+ *
+ * <p>
+ * Lookup of already registered name is garbage-free.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public final class NameRegistry {
+
+	public static final int NULL_ID = -1;
+
+	/**
+	 * Listener is notified about new names before their ids are returned
+	 */
+	public interface Listener {
+		void registered(int id, String name);
+	}
+
+	/**
+	 * Allocator provides ids of new names, e.g. ids shared by processes
+	 */
+	public interface Allocator {
+		int allocate(String name);
+	}
+
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+
+	private final Allocator allocator;
+	private final Listener listener;
+
+	private volatile String[] names = new String[16];
+	private int size;
+
+	public NameRegistry() {
+		this(null);
+	}
+
+	public NameRegistry(final Listener listener) {
+		this(null, listener);
+	}
+
+	/**
+	 * @param allocator ids of new names, <code>null</code> means sequential ones
+	 * @param listener
+	 */
+	public NameRegistry(final Allocator allocator, final Listener listener) {
+		this.allocator = allocator;
+		this.listener = listener;
+	}
+
+	public int idOf(final String name) {
+		if (name == null) return NULL_ID;
+
+		final Integer id = ids.get(name);
+		return id != null ? id.intValue() : register(name);
+	}
+
+	/**
+	 * @return the name or <code>null</code> if the id is unknown
+	 */
+	public String nameOf(final int id) {
+		final String[] names = this.names;
+		return id >= 0 && id < names.length ? names[id] : null;
+	}
+
+	/**
+	 * registers names with the given ids (their indices), e.g. names which have been
+	 * stored by another registry, the listener is not notified about them
+	 */
+	public synchronized void load(final String[] loaded) {
+		String[] names = this.names;
+		if (loaded.length > names.length) {
+			names = Arrays.copyOf(names, loaded.length);
+		}
+		for (int id = 0; id < loaded.length; id++) {
+			if (loaded[id] != null && names[id] == null) {
+				names[id] = loaded[id];
+				size = Math.max(size, id + 1);
+			}
+		}
+		// volatile write publishes names before ids are seen
+		this.names = names;
+		for (int id = 0; id < loaded.length; id++) {
+			if (loaded[id] != null && !ids.containsKey(loaded[id])) {
+				ids.put(loaded[id], id);
+			}
+		}
+	}
+
+	private synchronized int register(final String name) {
+		final Integer registered = ids.get(name);
+		if (registered != null) return registered.intValue();
+
+		final int id = allocator != null ? allocator.allocate(name) : size;
+		size = Math.max(size, id + 1);
+		String[] names = this.names;
+		if (id >= names.length) {
+			names = Arrays.copyOf(names, Math.max(id + 1, names.length << 1));
+		}
+		names[id] = name;
+		if (listener != null) {
+			listener.registered(id, name);
+		}
+		// volatile write publishes the name before the id is seen
+		this.names = names;
+		ids.put(name, id);
+		return id;
+	}
+
+}
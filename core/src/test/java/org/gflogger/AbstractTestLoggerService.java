@@ -99,6 +99,321 @@ public abstract class AbstractTestLoggerService {
 		assertEquals("commited", buffer.toString());
 	}
 
+	@Test
+	public void testBatch() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int maxMessageSize = 32;
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m ");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(maxMessageSize, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		// more entries than claimed
+		log.beginBatch(3);
+		for (int i = 0; i < 5; i++) {
+			log.info().append(i).commit();
+		}
+		log.endBatch();
+
+		log.info().append("single").commit();
+
+		// less entries than claimed
+		log.beginBatch(3);
+		log.info().append('a').commit();
+		log.endBatch();
+
+		GFLogFactory.stop();
+
+		assertEquals("0 1 2 3 4 single a ", buffer.toString());
+	}
+
+	@Test
+	public void testBatchIsEndedOnClose() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int maxMessageSize = 32;
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m ");
+		factory.setMultibyte(false);
+		factory.setImmediateFlush(true);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(maxMessageSize, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		try (Batch batch = log.batch(3)) {
+			log.info().append('a').commit();
+			throw new IllegalStateException();
+		} catch (IllegalStateException e) {
+			// the batch has been ended anyway
+		}
+
+		// entries of other threads are not held back
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				log.info().append('b').commit();
+			}
+		});
+		thread.start();
+		thread.join();
+
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (buffer.length() < 4 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1L);
+		}
+		final String output = buffer.toString();
+
+		GFLogFactory.stop();
+
+		assertEquals("a b ", output);
+	}
+
+	@Test
+	public void testTryLogDropsOnOverflow() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final StringBuffer buffer = new StringBuffer();
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m\n");
+		factory.setMultibyte(false);
+		factory.setImmediateFlush(true);
+		factory.setOutputStream(new GatedAppendable(buffer, latch));
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		// consumer is stuck on the first entry, the ring gets full
+		final int count = 1000;
+		for (int i = 0; i < count; i++) {
+			log.tryLog(LogLevel.INFO).append(i).commit();
+		}
+		latch.countDown();
+
+		GFLogFactory.stop();
+
+		final long dropped = ((AbstractLoggerServiceImpl) loggerService).getDroppedCount();
+		assertTrue("some entries have to be dropped", dropped > 0);
+
+		long delivered = 0;
+		long reported = 0;
+		int expected = 0;
+		for (final String line : buffer.toString().split("\n")) {
+			if (line.endsWith(" messages dropped")) {
+				reported += Long.parseLong(line.substring(0, line.indexOf(' ')));
+			} else {
+				// the order of survived entries is preserved
+				final int i = Integer.parseInt(line);
+				assertTrue(i >= expected);
+				expected = i + 1;
+				delivered++;
+			}
+		}
+		assertEquals(dropped, reported);
+		assertEquals(count, delivered + dropped);
+	}
+
+	@Test
+	public void testDropBelowLevelOnOverflow() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CountDownLatch latch = new CountDownLatch(1);
+		final StringBuffer buffer = new StringBuffer();
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%p %m\n");
+		factory.setMultibyte(false);
+		factory.setImmediateFlush(true);
+		factory.setOutputStream(new GatedAppendable(buffer, latch));
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+		((AbstractLoggerServiceImpl) loggerService).setOverflowPolicy(OverflowPolicy.DROP_BELOW_LEVEL);
+		((AbstractLoggerServiceImpl) loggerService).setOverflowLevel(LogLevel.WARN);
+
+		GFLogFactory.init(loggerService);
+
+		// releases the consumer while the producer waits for a free entry
+		final Thread releaser = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200L);
+				} catch (InterruptedException e) {
+					// ignore
+				}
+				latch.countDown();
+			}
+		});
+		releaser.start();
+
+		final int count = 100;
+		for (int i = 0; i < count; i++) {
+			log.info().append(i).commit();
+			log.warn().append(i).commit();
+		}
+		releaser.join();
+
+		GFLogFactory.stop();
+
+		int warns = 0;
+		int infos = 0;
+		for (final String line : buffer.toString().split("\n")) {
+			if (line.startsWith("WARN") && !line.endsWith(" messages dropped")) warns++;
+			if (line.startsWith("INFO")) infos++;
+		}
+		assertEquals(count, warns);
+		assertEquals(count, infos + ((AbstractLoggerServiceImpl) loggerService).getDroppedCount());
+		assertEquals(count - infos, ((AbstractLoggerServiceImpl) loggerService).getDroppedCount(LogLevel.INFO));
+		assertEquals(0, ((AbstractLoggerServiceImpl) loggerService).getDroppedCount(LogLevel.WARN));
+	}
+
+	private static void awaitContains(final StringBuffer buffer, final String text) throws Exception {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (buffer.indexOf(text) < 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1L);
+		}
+		assertTrue(buffer.toString(), buffer.indexOf(text) >= 0);
+	}
+
+	@Test
+	public void testFlushOnMaxAge() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final StringBuffer buffer = new StringBuffer();
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m\n");
+		factory.setMultibyte(false);
+		factory.setBufferSize(1 << 16);
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+		final AbstractLoggerServiceImpl service = (AbstractLoggerServiceImpl) loggerService;
+		service.setFlushMaxAge(5L, TimeUnit.MILLISECONDS);
+
+		GFLogFactory.init(loggerService);
+
+		// a trickle of messages is written within max age
+		for (int i = 0; i < 3; i++) {
+			log.info().append("trickle-").append(i).commit();
+			awaitContains(buffer, "trickle-" + i + "\n");
+		}
+
+		GFLogFactory.stop();
+
+		final FlushStatistics statistics = service.getFlushStatistics();
+		assertTrue(statistics.toString(), statistics.getFlushCount() >= 3);
+		assertTrue(statistics.toString(), statistics.getMaxWait() >= 0L);
+	}
+
+	@Test
+	public void testFlushAndSync() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final StringBuffer buffer = new StringBuffer();
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m\n");
+		factory.setMultibyte(false);
+		factory.setBufferSize(1 << 16);
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		for (int i = 0; i < 3; i++) {
+			log.info().append("synced-").append(i).commit();
+			log.flushAndSync();
+			// the entry is written on return, there is no need to wait for it
+			assertTrue(buffer.toString(), buffer.indexOf("synced-" + i + "\n") >= 0);
+		}
+
+		GFLogFactory.stop();
+	}
+
+	@Test
+	public void testFlushOnLevel() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final StringBuffer buffer = new StringBuffer();
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%p %m\n");
+		factory.setMultibyte(false);
+		factory.setBufferSize(1 << 16);
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+		((AbstractLoggerServiceImpl) loggerService).setFlushLevel(LogLevel.ERROR);
+
+		GFLogFactory.init(loggerService);
+
+		log.info().append("before").commit();
+		log.error().append("failure").commit();
+
+		// the error is flushed along with everything buffered before it
+		awaitContains(buffer, "INFO before\nERROR failure\n");
+
+		GFLogFactory.stop();
+	}
+
+	/**
+	 * appends to the buffer once the latch is released
+	 */
+	private static class GatedAppendable implements Appendable {
+
+		private final StringBuffer buffer;
+		private final CountDownLatch latch;
+
+		GatedAppendable(StringBuffer buffer, CountDownLatch latch) {
+			this.buffer = buffer;
+			this.latch = latch;
+		}
+
+		private void await() throws IOException {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public Appendable append(CharSequence csq) throws IOException {
+			await();
+			buffer.append(csq);
+			return this;
+		}
+
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) throws IOException {
+			await();
+			buffer.append(csq, start, end);
+			return this;
+		}
+
+		@Override
+		public Appendable append(char c) throws IOException {
+			await();
+			buffer.append(c);
+			return this;
+		}
+	}
+
 	@Test
 	public void testStartAndStop() throws Exception {
 		final AtomicInteger startCalled = new AtomicInteger();
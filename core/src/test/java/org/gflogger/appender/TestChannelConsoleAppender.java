@@ -0,0 +1,57 @@
+package org.gflogger.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TestChannelConsoleAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestChannelConsoleAppender extends AbstractFlushingAppenderHelper<ChannelConsoleAppender> {
+
+	private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+	@Override
+	protected ChannelConsoleAppender createAppender() {
+		return createAppender(false);
+	}
+
+	private ChannelConsoleAppender createAppender(final boolean multibyte) {
+		final ChannelConsoleAppenderFactory appenderFactory = new ChannelConsoleAppenderFactory();
+		appenderFactory.setChannel(Channels.newChannel(stream));
+		appenderFactory.setLayoutPattern(LAYOUT_PATTERN);
+		appenderFactory.setBufferSize(BUFFER_SIZE);
+		appenderFactory.setMultibyte(multibyte);
+		final ChannelConsoleAppender appender = appenderFactory.createAppender(null);
+		appender.start();
+		return appender;
+	}
+
+	@Override
+	protected void assertOutput(final String expected) throws Exception {
+		assertEquals(expected, stream.toString("UTF-8"));
+	}
+
+	@Test
+	public void testMultibyte() throws Exception {
+		final ChannelConsoleAppender appender = createAppender(true);
+
+		final String message = "привет;";
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length() << 1, true, new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.getCharBuffer().put(message);
+		appender.process(entry);
+		assertOutput("");
+
+		appender.stop();
+		assertOutput(message);
+	}
+}
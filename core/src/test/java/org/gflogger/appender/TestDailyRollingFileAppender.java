@@ -0,0 +1,152 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestDailyRollingFileAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestDailyRollingFileAppender {
+
+	private static final String DATE_PATTERN = "'.'yyyy-MM-dd-HH-mm";
+
+	private File folder;
+	private String fileName;
+
+	@Before
+	public void setUp() throws Exception {
+		folder = Files.createTempDirectory("gflogger-daily").toFile();
+		fileName = new File(folder, "app.log").getPath();
+	}
+
+	@After
+	public void tearDown() {
+		final File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	private DailyRollingFileAppender createAppender() {
+		final DailyRollingFileAppenderFactory factory = new DailyRollingFileAppenderFactory();
+		factory.setFileName(fileName);
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(64);
+		factory.setDatePattern(DATE_PATTERN);
+		final DailyRollingFileAppender appender = factory.createAppender(null);
+		appender.start();
+		return appender;
+	}
+
+	private static LogEntryItemImpl createEntry(final String message, final long timestamp) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.setTimestamp(timestamp);
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private static String content(final String name) throws Exception {
+		return new String(Files.readAllBytes(new File(name).toPath()), "ascii");
+	}
+
+	private void awaitOpenedAhead() throws Exception {
+		final Path next = new File(fileName + DailyRollingFileAppender.NEXT_SUFFIX).toPath();
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (!Files.exists(next) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1L);
+		}
+		assertTrue(Files.exists(next));
+	}
+
+	@Test
+	public void testRollOverToFileOpenedAhead() throws Exception {
+		final DailyRollingFileAppender appender = createAppender();
+
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < 3; i++) {
+			appender.process(createEntry("minute-" + i + ";", now + i * 60000L));
+			awaitOpenedAhead();
+		}
+		appender.stop();
+
+		final SimpleDateFormat format = new SimpleDateFormat(DATE_PATTERN);
+		for (int i = 0; i < 2; i++) {
+			assertEquals("minute-" + i + ";", content(fileName + format.format(new Date(now + i * 60000L))));
+		}
+		assertEquals("minute-2;", content(fileName));
+		// the file opened ahead is deleted on stop
+		assertEquals(3, folder.listFiles().length);
+	}
+
+	@Test
+	public void testFirstRollOverToFileOpenedAhead() throws Exception {
+		final DailyRollingFileAppender appender = createAppender();
+		// the file is opened ahead before any entry
+		awaitOpenedAhead();
+
+		final long now = System.currentTimeMillis();
+		appender.process(createEntry("first;", now));
+		appender.process(createEntry("next;", now + 60000L));
+		appender.stop();
+
+		final SimpleDateFormat format = new SimpleDateFormat(DATE_PATTERN);
+		assertEquals("first;", content(fileName + format.format(new Date(now))));
+		assertEquals("next;", content(fileName));
+		assertEquals(2, folder.listFiles().length);
+	}
+
+	@Test
+	public void testBackToBackRollOvers() throws Exception {
+		final DailyRollingFileAppender appender = createAppender();
+
+		// the next rollover does not wait for the file to be opened ahead
+		final long now = System.currentTimeMillis();
+		final int count = 20;
+		for (int i = 0; i < count; i++) {
+			appender.process(createEntry("minute-" + i + ";", now + i * 60000L));
+		}
+		appender.stop();
+
+		final SimpleDateFormat format = new SimpleDateFormat(DATE_PATTERN);
+		for (int i = 0; i < count - 1; i++) {
+			assertEquals("minute-" + i + ";", content(fileName + format.format(new Date(now + i * 60000L))));
+		}
+		assertEquals("minute-" + (count - 1) + ";", content(fileName));
+		assertEquals(count, folder.listFiles().length);
+	}
+
+	@Test
+	public void testRollOverSkippedPeriods() throws Exception {
+		final DailyRollingFileAppender appender = createAppender();
+
+		final long now = System.currentTimeMillis();
+		appender.process(createEntry("first;", now));
+		awaitOpenedAhead();
+		// the file opened ahead has been prepared for the next minute
+		appender.process(createEntry("later;", now + 5 * 60000L));
+		appender.stop();
+
+		final SimpleDateFormat format = new SimpleDateFormat(DATE_PATTERN);
+		assertEquals("first;", content(fileName + format.format(new Date(now))));
+		assertEquals("later;", content(fileName));
+		assertEquals(2, folder.listFiles().length);
+	}
+}
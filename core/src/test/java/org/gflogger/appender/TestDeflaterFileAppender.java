@@ -0,0 +1,134 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestDeflaterFileAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestDeflaterFileAppender {
+
+	private static final int BUFFER_SIZE = 256;
+
+	private File tempFile;
+
+	@Before
+	public void setUp() throws Exception {
+		tempFile = File.createTempFile("temp-file-name", ".gfz");
+	}
+
+	@After
+	public void tearDown() {
+		tempFile.delete();
+	}
+
+	private static LogEntryItemImpl createEntry(final String message) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private String write(final boolean doubleBuffered) throws Exception {
+		final DeflaterFileAppenderFactory factory = new DeflaterFileAppenderFactory();
+		factory.setFileName(tempFile.getAbsolutePath());
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(BUFFER_SIZE);
+		factory.setAppend(false);
+		factory.setDoubleBuffered(doubleBuffered);
+		final DeflaterFileAppender appender = factory.createAppender(null);
+		appender.start();
+
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			final String message = "the same message " + i + "\n";
+			appender.process(createEntry(message));
+			expected.append(message);
+		}
+		appender.stop();
+		return expected.toString();
+	}
+
+	private static String readAll(final DeflaterFileReader reader) throws Exception {
+		final StringBuilder builder = new StringBuilder();
+		byte[] block;
+		while ((block = reader.next()) != null) {
+			builder.append(new String(block, "ascii"));
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void testBlocks() throws Exception {
+		final String expected = write(false);
+
+		assertTrue(tempFile.length() < expected.length());
+		try (DeflaterFileReader reader = new DeflaterFileReader(tempFile)) {
+			assertEquals(expected, readAll(reader));
+		}
+	}
+
+	@Test
+	public void testDoubleBuffered() throws Exception {
+		final String expected = write(true);
+
+		try (DeflaterFileReader reader = new DeflaterFileReader(tempFile)) {
+			assertEquals(expected, readAll(reader));
+		}
+	}
+
+	@Test
+	public void testAppendTruncatesIncompleteBlock() throws Exception {
+		final String expected = write(false);
+
+		// a block is written partially before a crash
+		final byte[] bytes = Files.readAllBytes(tempFile.toPath());
+		final long length = tempFile.length();
+		Files.write(tempFile.toPath(), Arrays.copyOf(bytes, 30), StandardOpenOption.APPEND);
+
+		final DeflaterFileAppenderFactory factory = new DeflaterFileAppenderFactory();
+		factory.setFileName(tempFile.getAbsolutePath());
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(BUFFER_SIZE);
+		final DeflaterFileAppender appender = factory.createAppender(null);
+		appender.start();
+		assertEquals(length, tempFile.length());
+		appender.process(createEntry("appended\n"));
+		appender.stop();
+
+		try (DeflaterFileReader reader = new DeflaterFileReader(tempFile)) {
+			assertEquals(expected + "appended\n", readAll(reader));
+		}
+	}
+
+	@Test
+	public void testSkipBlocks() throws Exception {
+		final String expected = write(false);
+
+		final String first;
+		final long offset;
+		try (DeflaterFileReader reader = new DeflaterFileReader(tempFile)) {
+			first = new String(reader.next(), "ascii");
+			offset = reader.position();
+		}
+
+		try (DeflaterFileReader reader = new DeflaterFileReader(tempFile)) {
+			assertEquals(1, reader.skip(1));
+			assertEquals(offset, reader.position());
+			assertEquals(expected.substring(first.length()), readAll(reader));
+		}
+	}
+}
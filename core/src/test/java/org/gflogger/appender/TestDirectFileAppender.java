@@ -0,0 +1,98 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TestDirectFileAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestDirectFileAppender {
+
+	private static final int BUFFER_SIZE = 64;
+	private static final int BLOCK_SIZE = 512;
+
+	private File folder;
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		// the working folder is more likely to support direct I/O than tmpfs
+		folder = Files.createTempDirectory(new File("target").getAbsoluteFile().toPath(), "gflogger-direct").toFile();
+		file = new File(folder, "app.log");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+		folder.delete();
+	}
+
+	private DirectFileAppender createAppender(final boolean append, final boolean doubleBuffered) {
+		final DirectFileAppenderFactory factory = new DirectFileAppenderFactory();
+		factory.setFileName(file.getAbsolutePath());
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(BUFFER_SIZE);
+		factory.setAppend(append);
+		factory.setDoubleBuffered(doubleBuffered);
+		factory.setBlockSize(BLOCK_SIZE);
+		final DirectFileAppender appender = factory.createAppender(null);
+		appender.start();
+		return appender;
+	}
+
+	private static LogEntryItemImpl createEntry(final String message) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private static String write(final DirectFileAppender appender, final int count) throws Exception {
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			final String message = "the same message " + i + "\n";
+			appender.process(createEntry(message));
+			expected.append(message);
+		}
+		appender.stop();
+		return expected.toString();
+	}
+
+	private String content() throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), "ascii");
+	}
+
+	@Test
+	public void testPartialBlocksAreTrimmed() throws Exception {
+		// spans a few blocks and ends with a partial one
+		final String expected = write(createAppender(false, false), 100);
+
+		assertEquals(expected, content());
+	}
+
+	@Test
+	public void testDoubleBuffered() throws Exception {
+		final String expected = write(createAppender(false, true), 100);
+
+		assertEquals(expected, content());
+	}
+
+	@Test
+	public void testAppend() throws Exception {
+		final String first = write(createAppender(false, false), 30);
+		final String second = write(createAppender(true, false), 30);
+
+		assertEquals(first + second, content());
+	}
+}
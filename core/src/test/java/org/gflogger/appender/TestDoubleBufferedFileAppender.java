@@ -0,0 +1,52 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.After;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TestDoubleBufferedFileAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestDoubleBufferedFileAppender extends AbstractFlushingAppenderHelper<FileAppender> {
+
+	private File tempFile;
+
+	@Override
+	protected FileAppender createAppender() throws Exception {
+		FileAppenderFactory appenderFactory = new FileAppenderFactory();
+		tempFile = File.createTempFile( "temp-file-name", ".tmp" );
+		appenderFactory.setFileName( tempFile.getAbsolutePath() );
+		appenderFactory.setLayoutPattern( LAYOUT_PATTERN );
+		appenderFactory.setBufferSize( BUFFER_SIZE );
+		appenderFactory.setDoubleBuffered( true );
+		final FileAppender appender = appenderFactory.createAppender( null );
+		appender.start();
+
+		return appender;
+	}
+
+
+	@After
+	public void tearDown() {
+		appender.stop();
+		tempFile.delete();
+	}
+
+
+	protected void assertOutput( String expected ) throws Exception {
+		// a stored buffer is written by the writer thread
+		String actual = null;
+		for ( int i = 0; i < 500; i++ ) {
+			actual = new String( Files.readAllBytes( Paths.get( tempFile.getAbsolutePath() ) ) );
+			if ( expected.equals( actual ) ) break;
+			Thread.sleep( 10L );
+		}
+		assertEquals( expected, actual );
+	}
+}
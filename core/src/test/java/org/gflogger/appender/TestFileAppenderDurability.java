@@ -0,0 +1,106 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestFileAppenderDurability
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestFileAppenderDurability {
+
+	private File tempFile;
+
+	@Before
+	public void setUp() throws Exception {
+		tempFile = File.createTempFile("temp-file-name", ".tmp");
+	}
+
+	@After
+	public void tearDown() {
+		tempFile.delete();
+	}
+
+	private FileAppender createAppender(final Durability durability) {
+		final FileAppenderFactory factory = new FileAppenderFactory();
+		factory.setFileName(tempFile.getAbsolutePath());
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(1 << 10);
+		factory.setAppend(false);
+		factory.setDurability(durability);
+		factory.setSyncInterval(1L);
+		final FileAppender appender = factory.createAppender(null);
+		appender.start();
+		return appender;
+	}
+
+	private static LogEntryItemImpl createEntry(final LogLevel level, final String message) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(level);
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private String content() throws Exception {
+		return new String(Files.readAllBytes(tempFile.toPath()), "ascii");
+	}
+
+	private static Thread findThread(final String name) {
+		for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().equals(name)) return thread;
+		}
+		return null;
+	}
+
+	@Test
+	public void testSyncOnError() throws Exception {
+		final FileAppender appender = createAppender(Durability.ERROR);
+
+		appender.process(createEntry(LogLevel.INFO, "info;"));
+		assertEquals("", content());
+
+		appender.process(createEntry(LogLevel.ERROR, "error;"));
+		assertEquals("info;error;", content());
+
+		appender.stop();
+	}
+
+	@Test
+	public void testGroupCommit() throws Exception {
+		final FileAppender appender = createAppender(Durability.GROUP_COMMIT);
+
+		appender.process(createEntry(LogLevel.INFO, "first;"));
+		appender.process(createEntry(LogLevel.ERROR, "second;"));
+		assertEquals("", content());
+
+		appender.flush();
+		assertEquals("first;second;", content());
+
+		appender.stop();
+	}
+
+	@Test
+	public void testPeriodicSync() throws Exception {
+		final FileAppender appender = createAppender(Durability.PERIODIC);
+		final String name = "gflogger-sync-" + appender.getName();
+
+		final Thread syncer = findThread(name);
+		assertNotNull(syncer);
+
+		appender.process(createEntry(LogLevel.INFO, "periodic;"));
+		appender.stop();
+
+		assertFalse(syncer.isAlive());
+		assertEquals("periodic;", content());
+	}
+}
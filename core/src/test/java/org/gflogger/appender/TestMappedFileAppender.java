@@ -0,0 +1,101 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TestMappedFileAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestMappedFileAppender {
+
+	private static final int BUFFER_SIZE = 16;
+
+	private File tempFile;
+
+	@Before
+	public void setUp() throws Exception {
+		tempFile = File.createTempFile("temp-file-name", ".tmp");
+	}
+
+	@After
+	public void tearDown() {
+		tempFile.delete();
+	}
+
+	private MappedFileAppender createAppender(final boolean append) {
+		final MappedFileAppenderFactory appenderFactory = new MappedFileAppenderFactory();
+		appenderFactory.setFileName(tempFile.getAbsolutePath());
+		appenderFactory.setLayoutPattern("%m");
+		appenderFactory.setBufferSize(BUFFER_SIZE);
+		appenderFactory.setAppend(append);
+		final MappedFileAppender appender = appenderFactory.createAppender(null);
+		appender.start();
+		return appender;
+	}
+
+	private static LogEntryItemImpl createEntry(final String message) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private String content() throws Exception {
+		return new String(Files.readAllBytes(tempFile.toPath()), "ascii");
+	}
+
+	@Test
+	public void testMapsNextRegionAndTruncatesOnStop() throws Exception {
+		final MappedFileAppender appender = createAppender(false);
+
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			final String message = "message-" + i + ";";
+			appender.process(createEntry(message));
+			expected.append(message);
+		}
+
+		// visible without flush, though the file is extended by the region
+		assertEquals(expected.toString(), content().substring(0, expected.length()));
+
+		appender.stop();
+
+		assertEquals(expected.toString(), content());
+	}
+
+	@Test
+	public void testAppend() throws Exception {
+		Files.write(tempFile.toPath(), "existing;".getBytes("ascii"));
+
+		final MappedFileAppender appender = createAppender(true);
+		appender.process(createEntry("appended;"));
+		appender.stop();
+
+		assertEquals("existing;appended;", content());
+	}
+
+	@Test
+	public void testAppendsAfterWrittenLength() throws Exception {
+		// a file whose last region has not been truncated
+		final byte[] bytes = new byte[4 * BUFFER_SIZE];
+		System.arraycopy("existing;".getBytes("ascii"), 0, bytes, 0, 9);
+		Files.write(tempFile.toPath(), bytes);
+
+		final MappedFileAppender appender = createAppender(true);
+		appender.process(createEntry("appended;"));
+		appender.stop();
+
+		assertEquals("existing;appended;", content());
+	}
+}
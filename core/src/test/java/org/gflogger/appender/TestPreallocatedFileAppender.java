@@ -0,0 +1,130 @@
+package org.gflogger.appender;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TestPreallocatedFileAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestPreallocatedFileAppender {
+
+	private static final int PREALLOCATION_SIZE = 64;
+
+	private File tempFile;
+
+	@Before
+	public void setUp() throws Exception {
+		tempFile = File.createTempFile("temp-file-name", ".tmp");
+	}
+
+	@After
+	public void tearDown() {
+		tempFile.delete();
+	}
+
+	private FileAppender createAppender(final boolean append, final boolean doubleBuffered) {
+		final FileAppenderFactory factory = new FileAppenderFactory();
+		factory.setFileName(tempFile.getAbsolutePath());
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(16);
+		factory.setAppend(append);
+		factory.setDoubleBuffered(doubleBuffered);
+		factory.setPreallocationSize(PREALLOCATION_SIZE);
+		final FileAppender appender = factory.createAppender(null);
+		appender.start();
+		return appender;
+	}
+
+	private static LogEntryItemImpl createEntry(final String message) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private String content() throws Exception {
+		return new String(Files.readAllBytes(tempFile.toPath()), "ascii");
+	}
+
+	private void testPreallocatesAndTrims(final boolean doubleBuffered) throws Exception {
+		final FileAppender appender = createAppender(false, doubleBuffered);
+
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			final String message = "message-" + i + ";";
+			appender.process(createEntry(message));
+			expected.append(message);
+		}
+		appender.flush();
+		appender.sync();
+
+		// the file is extended by chunks
+		assertEquals(2 * PREALLOCATION_SIZE, tempFile.length());
+		assertEquals(expected.toString(), content().substring(0, expected.length()));
+
+		appender.stop();
+
+		assertEquals(expected.toString(), content());
+	}
+
+	@Test
+	public void testPreallocatesAndTrims() throws Exception {
+		testPreallocatesAndTrims(false);
+	}
+
+	@Test
+	public void testPreallocatesAndTrimsDoubleBuffered() throws Exception {
+		testPreallocatesAndTrims(true);
+	}
+
+	@Test
+	public void testAppendsAfterWrittenLength() throws Exception {
+		// a preallocated file which has not been trimmed
+		final byte[] bytes = new byte[PREALLOCATION_SIZE];
+		System.arraycopy("existing;".getBytes("ascii"), 0, bytes, 0, 9);
+		Files.write(tempFile.toPath(), bytes);
+
+		final FileAppender appender = createAppender(true, false);
+		appender.process(createEntry("appended;"));
+		appender.stop();
+
+		assertEquals("existing;appended;", content());
+	}
+
+	@Test
+	public void testAppendsAfterWrittenLengthInUTF16() throws Exception {
+		// every char ends with a zero byte in UTF-16LE
+		final byte[] bytes = new byte[PREALLOCATION_SIZE];
+		System.arraycopy("existing;".getBytes("UTF-16LE"), 0, bytes, 0, 18);
+		Files.write(tempFile.toPath(), bytes);
+
+		final FileAppenderFactory factory = new FileAppenderFactory();
+		factory.setFileName(tempFile.getAbsolutePath());
+		factory.setLayoutPattern("%m");
+		factory.setMultibyte(true);
+		factory.setCodepage("UTF-16LE");
+		factory.setPreallocationSize(PREALLOCATION_SIZE);
+		final FileAppender appender = factory.createAppender(null);
+		appender.start();
+
+		final String message = "appended;";
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length() << 1, true, new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.getCharBuffer().put(message);
+		appender.process(entry);
+		appender.stop();
+
+		assertEquals("existing;appended;", new String(Files.readAllBytes(tempFile.toPath()), "UTF-16LE"));
+	}
+}
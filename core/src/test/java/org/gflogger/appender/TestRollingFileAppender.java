@@ -0,0 +1,197 @@
+package org.gflogger.appender;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestRollingFileAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestRollingFileAppender {
+
+	private File folder;
+	private String fileName;
+
+	@Before
+	public void setUp() throws Exception {
+		folder = Files.createTempDirectory("gflogger-rolling").toFile();
+		fileName = new File(folder, "app.log").getPath();
+	}
+
+	@After
+	public void tearDown() {
+		final File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+
+	private RollingFileAppenderFactory createFactory() {
+		final RollingFileAppenderFactory factory = new RollingFileAppenderFactory();
+		factory.setFileName(fileName);
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(16);
+		return factory;
+	}
+
+	private static LogEntryItemImpl createEntry(final String message, final long timestamp) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.setTimestamp(timestamp);
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private static String content(final File file) throws Exception {
+		if (!file.getName().endsWith(".gz")) {
+			return new String(Files.readAllBytes(file.toPath()), "ascii");
+		}
+		try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[256];
+			int n;
+			while ((n = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, n);
+			}
+			return new String(out.toByteArray(), "ascii");
+		}
+	}
+
+	@Test
+	public void testRollOverBySize() throws Exception {
+		final RollingFileAppenderFactory factory = createFactory();
+		factory.setMaxFileSize(20);
+		final RollingFileAppender appender = factory.createAppender(null);
+		appender.start();
+
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < 10; i++) {
+			appender.process(createEntry("message-" + i + ";", now));
+		}
+		appender.stop();
+
+		// two messages per file, there are no files opened ahead left
+		assertEquals(5, folder.listFiles().length);
+		for (int i = 0; i < 5; i++) {
+			assertEquals("message-" + (2 * i) + ";message-" + (2 * i + 1) + ";",
+				content(new File(fileName + "." + i)));
+		}
+	}
+
+	@Test
+	public void testRestartContinuesLastFileAfterGap() throws Exception {
+		// backups in between have been deleted
+		Files.write(new File(fileName + ".0").toPath(), "old-0;".getBytes("ascii"));
+		Files.write(new File(fileName + ".3").toPath(), "old-3;".getBytes("ascii"));
+
+		final RollingFileAppenderFactory factory = createFactory();
+		factory.setMaxFileSize(20);
+		final RollingFileAppender appender = factory.createAppender(null);
+		appender.start();
+		appender.process(createEntry("new;", System.currentTimeMillis()));
+		appender.stop();
+
+		assertEquals("old-0;", content(new File(fileName + ".0")));
+		assertEquals("old-3;new;", content(new File(fileName + ".3")));
+		assertFalse(new File(fileName + ".1").exists());
+		assertEquals(2, folder.listFiles().length);
+	}
+
+	@Test
+	public void testCompressAndDeleteBackups() throws Exception {
+		final RollingFileAppenderFactory factory = createFactory();
+		factory.setMaxFileSize(20);
+		factory.setMaxBackups(2);
+		factory.setCompress(true);
+		final RollingFileAppender appender = factory.createAppender(null);
+		appender.start();
+
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < 10; i++) {
+			appender.process(createEntry("message-" + i + ";", now));
+		}
+		appender.stop();
+
+		final File[] files = folder.listFiles();
+		assertEquals(3, files.length);
+		for (File file : files) {
+			if (file.getName().equals("app.log.4")) {
+				assertEquals("message-8;message-9;", content(file));
+			} else {
+				assertTrue(file.getName(), file.getName().endsWith(".gz"));
+				assertTrue(content(file).startsWith("message-"));
+			}
+		}
+	}
+
+	@Test
+	public void testDeletesOnlyBackupsOfAppender() throws Exception {
+		// files which share the prefix of the file name
+		final String[] others = {"app.log", "app.log.bak", "app.log.1.old", "app.log-audit.2", "app.log.x.gz"};
+		for (String other : others) {
+			Files.write(new File(folder, other).toPath(), "other;".getBytes("ascii"));
+			new File(folder, other).setLastModified(System.currentTimeMillis() - 3600000L);
+		}
+
+		final RollingFileAppenderFactory factory = createFactory();
+		factory.setMaxFileSize(20);
+		factory.setMaxBackups(1);
+		final RollingFileAppender appender = factory.createAppender(null);
+		appender.start();
+
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < 10; i++) {
+			appender.process(createEntry("message-" + i + ";", now));
+		}
+		appender.stop();
+
+		for (String other : others) {
+			assertTrue(other, new File(folder, other).exists());
+		}
+		// the backup and the last file
+		assertEquals(others.length + 2, folder.listFiles().length);
+		assertEquals("message-6;message-7;", content(new File(fileName + ".3")));
+		assertEquals("message-8;message-9;", content(new File(fileName + ".4")));
+	}
+
+	@Test
+	public void testRollOverByTime() throws Exception {
+		final RollingFileAppenderFactory factory = createFactory();
+		factory.setDatePattern("'.'yyyy-MM-dd-HH-mm");
+		final RollingFileAppender appender = factory.createAppender(null);
+		appender.start();
+
+		final long now = System.currentTimeMillis();
+		for (int i = 0; i < 3; i++) {
+			appender.process(createEntry("minute-" + i + ";", now + i * 60000L));
+		}
+		appender.stop();
+
+		final SimpleDateFormat format = new SimpleDateFormat("'.'yyyy-MM-dd-HH-mm");
+		for (int i = 0; i < 3; i++) {
+			final File file = new File(fileName + format.format(new Date(now + i * 60000L)));
+			assertEquals("minute-" + i + ";", content(file));
+		}
+		// there is no file opened ahead for the next minute left
+		assertEquals(3, folder.listFiles().length);
+	}
+}
@@ -0,0 +1,221 @@
+package org.gflogger.appender;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestSocketAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestSocketAppender {
+
+	private static final int BUFFER_SIZE = 64;
+
+	private File tempFile;
+	private FileAppender fileAppender;
+	private SocketCollector collector;
+	private Thread collectorThread;
+
+	@Before
+	public void setUp() throws Exception {
+		tempFile = File.createTempFile("temp-file-name", ".tmp");
+		final FileAppenderFactory<FileAppender> factory = new FileAppenderFactory<FileAppender>();
+		factory.setFileName(tempFile.getAbsolutePath());
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(BUFFER_SIZE << 1);
+		factory.setAppend(false);
+		fileAppender = factory.createAppender(null);
+		fileAppender.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (collector != null) {
+			collector.close();
+			collectorThread.join();
+		}
+		fileAppender.stop();
+		tempFile.delete();
+	}
+
+	private void startCollector(final int port) throws Exception {
+		collector = new SocketCollector(new InetSocketAddress("localhost", port), fileAppender, BUFFER_SIZE);
+		collectorThread = new Thread(collector, "collector");
+		collectorThread.start();
+	}
+
+	private static SocketAppender createAppender(final int port, final int spillSize) {
+		return createAppender("localhost", port, spillSize);
+	}
+
+	private static SocketAppender createAppender(final String host, final int port, final int spillSize) {
+		return createAppender(host, port, spillSize, false);
+	}
+
+	private static SocketAppender createAppender(final String host, final int port, final int spillSize,
+		final boolean multibyte) {
+		final SocketAppenderFactory factory = new SocketAppenderFactory();
+		factory.setMultibyte(multibyte);
+		factory.setHost(host);
+		factory.setPort(port);
+		factory.setLayoutPattern("%m");
+		factory.setBufferSize(BUFFER_SIZE);
+		factory.setSpillSize(spillSize);
+		factory.setReconnectDelay(10L);
+		factory.setMaxReconnectDelay(50L);
+		final SocketAppender appender = factory.createAppender(null);
+		appender.start();
+		return appender;
+	}
+
+	private static int freePort() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static LogEntryItemImpl createEntry(final String message) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(LogLevel.INFO);
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private static String write(final SocketAppender appender, final int count) throws Exception {
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			final String message = "message-" + i + ";";
+			appender.process(createEntry(message));
+			expected.append(message);
+		}
+		appender.flush();
+		return expected.toString();
+	}
+
+	private String awaitContent(final SocketAppender appender, final int length) throws Exception {
+		final long deadline = System.currentTimeMillis() + 10000L;
+		String content;
+		while ((content = new String(Files.readAllBytes(tempFile.toPath()), "ascii")).length() < length
+			&& System.currentTimeMillis() < deadline) {
+			// the appender reconnects and sends on flushes
+			appender.flush();
+			Thread.sleep(5L);
+		}
+		return content;
+	}
+
+	@Test
+	public void testShipsBatches() throws Exception {
+		startCollector(0);
+		final SocketAppender appender = createAppender(collector.getPort(), 1 << 16);
+
+		final String expected = write(appender, 100);
+		appender.stop();
+
+		assertEquals(expected, awaitContent(appender, expected.length()));
+	}
+
+	@Test
+	public void testSpillsWhileDisconnected() throws Exception {
+		final int port = freePort();
+		final SocketAppender appender = createAppender(port, 1 << 16);
+
+		final String expected = write(appender, 100);
+		assertFalse(appender.isConnected());
+
+		startCollector(port);
+		assertEquals(expected, awaitContent(appender, expected.length()));
+		assertTrue(appender.isConnected());
+		assertEquals(0, appender.getDroppedBatches());
+		appender.stop();
+	}
+
+	@Test
+	public void testDropsBatchesWhenSpillIsFull() throws Exception {
+		final int port = freePort();
+		// only two batches fit
+		final SocketAppender appender = createAppender(port, 2 * (BUFFER_SIZE + 4));
+
+		final String expected = write(appender, 100);
+		assertTrue(appender.getDroppedBatches() > 0);
+
+		startCollector(port);
+		final String content = awaitContent(appender, 1);
+		appender.stop();
+
+		assertTrue(content, content.length() > 0 && content.length() <= 2 * BUFFER_SIZE);
+		assertTrue(content, expected.startsWith(content));
+	}
+
+	@Test
+	public void testSplitsMultibyteBufferIntoBatches() throws Exception {
+		startCollector(0);
+		// encoded buffer is twice as large as the max batch size of the collector
+		final SocketAppender appender = createAppender("localhost", collector.getPort(), 1 << 16, true);
+
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			final String message = "message-" + i + ";";
+			final LogEntryItemImpl entry =
+				new LogEntryItemImpl(message.length() << 1, true, new StringFormattingStrategy());
+			entry.setLogLevel(LogLevel.INFO);
+			entry.getCharBuffer().put(message);
+			appender.process(entry);
+			expected.append(message);
+		}
+		appender.flush();
+
+		assertEquals(expected.toString(), awaitContent(appender, expected.length()));
+		assertTrue(appender.isConnected());
+		appender.stop();
+	}
+
+	@Test
+	public void testCollectorSkipsOversizedBatches() throws Exception {
+		startCollector(0);
+		try (Socket socket = new Socket("localhost", collector.getPort())) {
+			final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(BUFFER_SIZE + 1);
+			out.write(new byte[BUFFER_SIZE + 1]);
+			out.writeInt(4);
+			out.write("next".getBytes("ascii"));
+			out.flush();
+
+			// the collector flushes the file appender itself
+			final long deadline = System.currentTimeMillis() + 10000L;
+			while (tempFile.length() < 4 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(5L);
+			}
+		}
+		assertEquals("next", new String(Files.readAllBytes(tempFile.toPath()), "ascii"));
+	}
+
+	@Test
+	public void testKeepsBatchesWhileHostIsUnresolved() throws Exception {
+		final SocketAppender appender = createAppender("unresolvable.invalid", freePort(), 1 << 16);
+
+		write(appender, 10);
+		// reconnect attempts after the backoff resolve the host again
+		Thread.sleep(20L);
+		write(appender, 10);
+
+		assertFalse(appender.isConnected());
+		assertEquals(0, appender.getDroppedBatches());
+		appender.setLingerTimeout(0L);
+		appender.stop();
+	}
+}
@@ -0,0 +1,124 @@
+package org.gflogger.appender;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.time.Instant;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestSyslogAppender
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestSyslogAppender {
+
+	private DatagramChannel receiver;
+	private final ByteBuffer received = ByteBuffer.allocate(1 << 16);
+
+	@Before
+	public void setUp() throws Exception {
+		receiver = DatagramChannel.open();
+		receiver.bind(new InetSocketAddress("localhost", 0));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		receiver.close();
+	}
+
+	private SyslogAppender createAppender(final int facility, final int maxDatagramSize) throws Exception {
+		final SyslogAppenderFactory factory = new SyslogAppenderFactory();
+		factory.setPort(((InetSocketAddress) receiver.getLocalAddress()).getPort());
+		factory.setFacility(facility);
+		factory.setAppName("app");
+		factory.setMaxDatagramSize(maxDatagramSize);
+		factory.setBufferSize(256);
+		final SyslogAppender appender = factory.createAppender(null);
+		appender.start();
+		return appender;
+	}
+
+	private static LogEntryItemImpl createEntry(final LogLevel level, final String timestamp,
+		final String message) throws Exception {
+		final LogEntryItemImpl entry = new LogEntryItemImpl(message.length(), new StringFormattingStrategy());
+		entry.setLogLevel(level);
+		entry.setTimestamp(Instant.parse(timestamp).toEpochMilli());
+		entry.getBuffer().put(message.getBytes("ascii"));
+		return entry;
+	}
+
+	private String receive() throws Exception {
+		received.clear();
+		receiver.receive(received);
+		received.flip();
+		final byte[] bytes = new byte[received.remaining()];
+		received.get(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	@Test
+	public void testHeader() throws Exception {
+		final SyslogAppender appender = createAppender(1, 2048);
+		appender.process(createEntry(LogLevel.INFO, "2014-11-29T01:52:03.045Z", "order is filled"));
+		appender.process(createEntry(LogLevel.ERROR, "2014-11-29T01:53:00.000Z", "order is rejected"));
+		appender.stop();
+
+		// <PRI>VERSION TIMESTAMP HOSTNAME APP-NAME PROCID MSGID STRUCTURED-DATA MSG
+		final String[] info = receive().split(" ", 8);
+		assertEquals("<14>1", info[0]);
+		assertEquals("2014-11-29T01:52:03.045Z", info[1]);
+		assertFalse(info[2].isEmpty());
+		assertEquals("app", info[3]);
+		assertTrue(info[4], info[4].matches("[0-9]+|-"));
+		assertEquals("-", info[5]);
+		assertEquals("-", info[6]);
+		assertEquals("order is filled", info[7]);
+
+		final String[] error = receive().split(" ", 8);
+		assertEquals("<11>1", error[0]);
+		assertEquals("2014-11-29T01:53:00.000Z", error[1]);
+		assertEquals("order is rejected", error[7]);
+	}
+
+	@Test
+	public void testTimestamps() throws Exception {
+		final String[] timestamps = {
+			"1969-12-31T23:59:59.999Z",
+			"1970-01-01T00:00:00.000Z",
+			"2000-02-29T12:00:01.010Z",
+			"2014-12-31T23:59:59.999Z",
+			"2015-01-01T00:00:00.001Z",
+			"2100-03-01T07:08:09.100Z"
+		};
+		final SyslogAppender appender = createAppender(16, 2048);
+		for (String timestamp : timestamps) {
+			appender.process(createEntry(LogLevel.DEBUG, timestamp, "m"));
+		}
+		appender.stop();
+
+		for (String timestamp : timestamps) {
+			final String[] message = receive().split(" ", 8);
+			assertEquals("<135>1", message[0]);
+			assertEquals(timestamp, message[1]);
+		}
+	}
+
+	@Test
+	public void testTruncatesToMaxDatagramSize() throws Exception {
+		final SyslogAppender appender = createAppender(1, 64);
+		appender.process(createEntry(LogLevel.WARN, "2014-11-29T01:52:03.045Z",
+			"a long message which does not fit the max datagram size at all"));
+		appender.stop();
+
+		assertEquals(64, receive().getBytes("UTF-8").length);
+	}
+}
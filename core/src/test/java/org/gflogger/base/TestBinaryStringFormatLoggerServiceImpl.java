@@ -0,0 +1,22 @@
+package org.gflogger.base;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.ring.BlockingWaitStrategy;
+
+/**
+ * TestBinaryStringFormatLoggerServiceImpl
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestBinaryStringFormatLoggerServiceImpl extends TestStringFormatLoggerServiceImpl {
+
+	@Override
+	protected LoggerService createLoggerService(int maxMessageSize,
+			ObjectFormatterFactory objectFormatterFactory,
+			GFLoggerBuilder[] loggers,
+			AppenderFactory... factories) {
+		return new LoggerServiceImpl(4, maxMessageSize, new BlockingWaitStrategy(), false, true,
+			objectFormatterFactory, loggers, factories);
+	}
+}
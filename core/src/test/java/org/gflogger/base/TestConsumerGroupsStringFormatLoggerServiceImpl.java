@@ -0,0 +1,109 @@
+package org.gflogger.base;
+
+import org.gflogger.*;
+import org.gflogger.appender.AbstractAppenderFactory;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.appender.ConsoleAppenderFactory;
+import org.gflogger.ring.BlockingWaitStrategy;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestConsumerGroupsStringFormatLoggerServiceImpl
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestConsumerGroupsStringFormatLoggerServiceImpl extends TestStringFormatLoggerServiceImpl {
+
+	@Override
+	protected LoggerService createLoggerService(int maxMessageSize,
+			ObjectFormatterFactory objectFormatterFactory,
+			GFLoggerBuilder[] loggers,
+			AppenderFactory... factories) {
+		// each appender is handled by its own consumer and one more idle consumer shares the ring
+		final ConsoleAppenderFactory idle = new ConsoleAppenderFactory();
+		idle.setConsumerGroup("idle");
+		idle.setOutputStream(new StringBuilder());
+		for (int i = 0; i < factories.length; i++) {
+			if (factories[i] instanceof AbstractAppenderFactory) {
+				final AbstractAppenderFactory factory = (AbstractAppenderFactory) factories[i];
+				factory.setConsumerGroup("group" + i);
+				idle.setMultibyte(factory.isMultibyte());
+			}
+		}
+		final AppenderFactory[] all = Arrays.copyOf(factories, factories.length + 1);
+		all[factories.length] = idle;
+		return new LoggerServiceImpl(4, maxMessageSize, new BlockingWaitStrategy(),
+			objectFormatterFactory, loggers, all);
+	}
+
+	@Test
+	public void testSlowConsumerDoesNotStallOthers() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final CountDownLatch released = new CountDownLatch(1);
+		final ConsoleAppenderFactory slow = new ConsoleAppenderFactory();
+		slow.setConsumerGroup("slow");
+		slow.setLayoutPattern("%m ");
+		slow.setMultibyte(false);
+		slow.setImmediateFlush(true);
+		final StringBuffer slowBuffer = new StringBuffer();
+		slow.setOutputStream(new Appendable() {
+			@Override
+			public Appendable append(CharSequence csq) throws IOException {
+				try {
+					released.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return slowBuffer.append(csq);
+			}
+
+			@Override
+			public Appendable append(CharSequence csq, int start, int end) throws IOException {
+				return append(csq.subSequence(start, end));
+			}
+
+			@Override
+			public Appendable append(char c) throws IOException {
+				return append(String.valueOf(c));
+			}
+		});
+
+		final ConsoleAppenderFactory fast = new ConsoleAppenderFactory();
+		fast.setLayoutPattern("%m ");
+		fast.setMultibyte(false);
+		fast.setImmediateFlush(true);
+		final StringBuffer fastBuffer = new StringBuffer();
+		fast.setOutputStream(fastBuffer);
+
+		final LoggerServiceImpl loggerService = new LoggerServiceImpl(8, 32, new BlockingWaitStrategy(),
+			null, new GFLoggerBuilder[]{new GFLoggerBuilder(LogLevel.INFO, "com.db", slow, fast)}, slow, fast);
+
+		GFLogFactory.init(loggerService);
+
+		for (int i = 0; i < 4; i++) {
+			log.info().append(i).commit();
+		}
+
+		for (int i = 0; i < 500 && !"0 1 2 3 ".equals(fastBuffer.toString()); i++) {
+			Thread.sleep(10L);
+		}
+
+		assertEquals("0 1 2 3 ", fastBuffer.toString());
+		assertEquals(0L, loggerService.getLag(null));
+		assertTrue(loggerService.getLag("slow") > 0L);
+		assertEquals(-1L, loggerService.getLag("unknown"));
+
+		released.countDown();
+		GFLogFactory.stop();
+
+		assertEquals("0 1 2 3 ", slowBuffer.toString());
+	}
+}
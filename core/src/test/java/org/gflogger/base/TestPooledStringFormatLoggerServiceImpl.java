@@ -0,0 +1,92 @@
+package org.gflogger.base;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.appender.ConsoleAppenderFactory;
+import org.gflogger.ring.BlockingWaitStrategy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestPooledStringFormatLoggerServiceImpl
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestPooledStringFormatLoggerServiceImpl extends TestStringFormatLoggerServiceImpl {
+
+	@Override
+	protected LoggerService createLoggerService(int maxMessageSize,
+			ObjectFormatterFactory objectFormatterFactory,
+			GFLoggerBuilder[] loggers,
+			AppenderFactory... factories) {
+		final LoggerServiceImpl service = new LoggerServiceImpl(4, maxMessageSize,
+			new BlockingWaitStrategy(), objectFormatterFactory, loggers, factories);
+		service.setEntryPoolSize(2);
+		return service;
+	}
+
+	@Test
+	public void testUncommitedEntriesDoNotExhaustPool() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m");
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		// the pool has 2 entries only
+		for (int i = 0; i < 5; i++) {
+			log.info().append(i);
+		}
+		log.info().append("commited").commit();
+
+		GFLogFactory.stop();
+
+		assertEquals("01234commited", buffer.toString());
+	}
+
+	@Test
+	public void testPooledEntryTakesThreadName() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%t %m\n");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		final GFLogEntry first = log.info();
+		first.append("main").commit();
+
+		// the same entry is leased by the other thread
+		final GFLogEntry[] leased = new GFLogEntry[1];
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				leased[0] = log.info();
+				leased[0].append("other").commit();
+			}
+		}, "other-thread");
+		thread.start();
+		thread.join();
+
+		log.info().append("main").commit();
+
+		GFLogFactory.stop();
+
+		assertSame(first, leased[0]);
+		final String main = Thread.currentThread().getName();
+		assertEquals(main + " main\nother-thread other\n" + main + " main\n", buffer.toString());
+	}
+}
@@ -0,0 +1,79 @@
+package org.gflogger.base;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.appender.ConsoleAppenderFactory;
+import org.gflogger.ring.BlockingWaitStrategy;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * TestZeroCopyStringFormatLoggerServiceImpl
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestZeroCopyStringFormatLoggerServiceImpl extends TestStringFormatLoggerServiceImpl {
+
+	@Override
+	protected LoggerService createLoggerService(int maxMessageSize,
+			ObjectFormatterFactory objectFormatterFactory,
+			GFLoggerBuilder[] loggers,
+			AppenderFactory... factories) {
+		return new LoggerServiceImpl(4, maxMessageSize, new BlockingWaitStrategy(), true,
+			objectFormatterFactory, loggers, factories);
+	}
+
+	@Test
+	public void testSlotOfLiveThreadIsCommittedOnItsNextEntry() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final StringBuffer buffer = new StringBuffer();
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m\n");
+		factory.setMultibyte(false);
+		factory.setImmediateFlush(true);
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+				createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		// a live thread claims a slot and does not commit it for a while
+		final CountDownLatch claimed = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Thread holder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				log.info().append("slow");
+				claimed.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					// ignore
+				}
+				log.info().append("next").commit();
+			}
+		});
+		holder.start();
+		claimed.await();
+
+		log.info().append("a").commit();
+		log.info().append("b").commit();
+
+		// the slot is not taken away from its owner however long it takes
+		Thread.sleep(200L);
+		final String held = buffer.toString();
+
+		release.countDown();
+		holder.join();
+
+		GFLogFactory.stop();
+
+		assertEquals("", held);
+		assertEquals("slow\na\nb\nnext\n", buffer.toString());
+	}
+}
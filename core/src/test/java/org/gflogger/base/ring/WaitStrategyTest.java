@@ -0,0 +1,102 @@
+package org.gflogger.base.ring;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.ring.*;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * WaitStrategyTest
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class WaitStrategyTest {
+
+	private static class Entry implements Publishable {
+		private volatile boolean published;
+
+		@Override
+		public boolean isPublished() {
+			return published;
+		}
+
+		@Override
+		public void setPublished(boolean published) {
+			this.published = published;
+		}
+	}
+
+	private static class Switch implements Alertable {
+		private volatile boolean alerted;
+
+		@Override
+		public void checkAlert() throws AlertException {
+			if (alerted) throw AlertException.ALERT_EXCEPTION;
+		}
+	}
+
+	@Test
+	public void testWaitForTimeout() throws Exception {
+		for (final WaitStrategyType type : WaitStrategyType.values()) {
+			final WaitStrategy strategy = type.create();
+			final long start = System.currentTimeMillis();
+			assertFalse(type.name(), strategy.waitFor(new Entry(), new Switch(), 50, TimeUnit.MILLISECONDS));
+			assertTrue(type.name(), System.currentTimeMillis() - start >= 45);
+		}
+	}
+
+	@Test
+	public void testWaitForPublished() throws Exception {
+		for (final WaitStrategyType type : WaitStrategyType.values()) {
+			final WaitStrategy strategy = type.create();
+			final Entry entry = new Entry();
+			final Thread publisher = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						// ignore
+					}
+					entry.setPublished(true);
+					strategy.signallAll();
+				}
+			});
+			publisher.start();
+			assertTrue(type.name(), strategy.waitFor(entry, new Switch()));
+			publisher.join();
+		}
+	}
+
+	@Test
+	public void testAlert() throws Exception {
+		for (final WaitStrategyType type : WaitStrategyType.values()) {
+			final WaitStrategy strategy = type.create();
+			final Switch alertable = new Switch();
+			final Thread stopper = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						// ignore
+					}
+					alertable.alerted = true;
+					strategy.signallAll();
+				}
+			});
+			stopper.start();
+			try {
+				strategy.waitFor(new Entry(), alertable, 5, TimeUnit.SECONDS);
+				fail(type.name());
+			} catch (AlertException e) {
+				// expected
+			}
+			stopper.join();
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package org.gflogger.disruptor;
+
+import com.lmax.disruptor.dsl.ProducerType;
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+
+
+/**
+ * TestDSingleProducerStringFormatLoggerServiceImpl
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestDSingleProducerStringFormatLoggerServiceImpl extends TestStringFormatLoggerServiceImpl {
+
+	@Override
+	protected LoggerService createLoggerService(int maxMessageSize,
+		ObjectFormatterFactory objectFormatterFactory,
+		GFLoggerBuilder[] loggers,
+		AppenderFactory... factories) {
+		return new LoggerServiceImpl(4, maxMessageSize, WaitStrategyType.YIELDING.create(),
+			ProducerType.SINGLE, objectFormatterFactory, loggers, factories);
+	}
+
+}
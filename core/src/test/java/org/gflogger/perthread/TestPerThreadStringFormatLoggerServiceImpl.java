@@ -0,0 +1,130 @@
+package org.gflogger.perthread;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.appender.ConsoleAppenderFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+
+/**
+ * TestPerThreadStringFormatLoggerServiceImpl
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestPerThreadStringFormatLoggerServiceImpl extends TestStringFormatLoggerServiceImpl {
+
+	@Override
+	protected LoggerService createLoggerService(int maxMessageSize,
+			ObjectFormatterFactory objectFormatterFactory,
+			GFLoggerBuilder[] loggers,
+			AppenderFactory... factories) {
+		return new LoggerServiceImpl(4, maxMessageSize, objectFormatterFactory, loggers, factories);
+	}
+
+	@Test
+	public void testSeveralProducers() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final int threads = 4;
+		final int count = 1000;
+
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m\n");
+		factory.setMultibyte(false);
+		final StringBuffer buffer = new StringBuffer();
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService =
+			createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		final CountDownLatch latch = new CountDownLatch(threads);
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < count; i++) {
+						log.info().append(id).append(' ').append(i).commit();
+					}
+					latch.countDown();
+				}
+			}, "producer-" + t).start();
+		}
+		latch.await();
+
+		GFLogFactory.stop();
+
+		final int[] expected = new int[threads];
+		final String[] lines = buffer.toString().split("\n");
+		assertEquals(threads * count, lines.length);
+		for (final String line : lines) {
+			final String[] parts = line.split(" ");
+			final int id = Integer.parseInt(parts[0]);
+			// order of each producer has to be preserved
+			assertEquals(expected[id]++, Integer.parseInt(parts[1]));
+		}
+	}
+
+	@Test
+	public void testReleasesRingsOfDeadThreadsUnderLoad() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m\n");
+		factory.setMultibyte(false);
+		factory.setOutputStream(new StringBuffer());
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerServiceImpl loggerService = (LoggerServiceImpl)
+			createLoggerService(32, new GFLoggerBuilder("com.db", factory), factory);
+
+		GFLogFactory.init(loggerService);
+
+		// the consumer never runs out of time waiting for entries
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final CountDownLatch started = new CountDownLatch(1);
+		final Thread producer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; running.get(); i++) {
+					log.info().append(i).commit();
+					started.countDown();
+					try {
+						Thread.sleep(1L);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		}, "producer");
+		producer.start();
+		started.await();
+
+		final Thread shortLiving = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				log.info().append("short living").commit();
+			}
+		}, "short-living");
+		shortLiving.start();
+		shortLiving.join();
+
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while (loggerService.getRings().length > 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10L);
+		}
+		final int rings = loggerService.getRings().length;
+
+		running.set(false);
+		producer.join();
+		GFLogFactory.stop();
+
+		assertEquals(1, rings);
+	}
+}
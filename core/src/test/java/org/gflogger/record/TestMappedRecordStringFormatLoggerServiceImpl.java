@@ -0,0 +1,132 @@
+package org.gflogger.record;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.appender.ConsoleAppenderFactory;
+import org.gflogger.ring.BlockingWaitStrategy;
+import org.gflogger.ring.MappedRingFile;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestMappedRecordStringFormatLoggerServiceImpl
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestMappedRecordStringFormatLoggerServiceImpl extends TestStringFormatLoggerServiceImpl {
+
+	@Override
+	protected LoggerService createLoggerService(int maxMessageSize,
+			ObjectFormatterFactory objectFormatterFactory,
+			GFLoggerBuilder[] loggers,
+			AppenderFactory... factories) {
+		final File ringFile;
+		try {
+			ringFile = File.createTempFile("gflogger-ring", ".tmp");
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		ringFile.deleteOnExit();
+		// small ring makes records wrap around often
+		return new LoggerServiceImpl(512, maxMessageSize, new BlockingWaitStrategy(), ringFile,
+			objectFormatterFactory, loggers, factories);
+	}
+
+	@Test
+	public void testRecoverOrphanedRecords() throws Exception {
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+
+		final File dir = Files.createTempDirectory("gflogger-ring").toFile();
+		final File ringFile = new File(dir, "ring");
+		final File crashedFile = new File(dir, "crashed");
+		final File logFile = new File(dir, "log");
+
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final StringBuilder builder = new StringBuilder();
+		final Appendable buffer = new Appendable() {
+			@Override
+			public Appendable append(CharSequence csq) throws IOException {
+				return append(csq, 0, csq.length());
+			}
+
+			@Override
+			public Appendable append(CharSequence csq, int start, int end) throws IOException {
+				// consumer is stuck as if the JVM died
+				entered.countDown();
+				try {
+					proceed.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				builder.append(csq, start, end);
+				return this;
+			}
+
+			@Override
+			public Appendable append(char c) throws IOException {
+				return append(String.valueOf(c));
+			}
+		};
+
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%m");
+		factory.setMultibyte(false);
+		factory.setImmediateFlush(true);
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		final LoggerService loggerService = new LoggerServiceImpl(512, 32, new BlockingWaitStrategy(), ringFile,
+			null, new GFLoggerBuilder[]{new GFLoggerBuilder("com.db", factory)}, factory);
+
+		GFLogFactory.init(loggerService);
+
+		try {
+			log.info().append("first").commit();
+			assertTrue(entered.await(5, TimeUnit.SECONDS));
+			log.info().append("second").commit();
+			log.warn().append("third").commit();
+
+			Files.copy(ringFile.toPath(), crashedFile.toPath());
+		} finally {
+			proceed.countDown();
+			GFLogFactory.stop();
+		}
+		assertFalse("drained ring file is deleted", ringFile.exists());
+
+		// the next start finds records which have not been written
+		MappedRingFile.create(crashedFile, 512, false).close();
+		final File[] orphans = dir.listFiles();
+		File orphan = null;
+		for (File file : orphans) {
+			if (file.getName().startsWith("crashed.orphaned-")) orphan = file;
+		}
+		assertNotNull("orphaned ring file is kept", orphan);
+
+		final int recovered = RingRecovery.recover(orphan, logFile, new PatternLayout("%p [%t] %m%n"), "UTF-8");
+		assertEquals(3, recovered);
+
+		final String thread = Thread.currentThread().getName();
+		assertEquals(
+			"INFO [" + thread + "] first" + Layout.LINE_SEP +
+			"INFO [" + thread + "] second" + Layout.LINE_SEP +
+			"WARN [" + thread + "] third" + Layout.LINE_SEP,
+			new String(Files.readAllBytes(logFile.toPath()), Charset.forName("UTF-8")));
+
+		assertEquals("file could not be recovered twice", 0,
+			RingRecovery.recover(orphan, logFile, new PatternLayout("%m%n"), "UTF-8"));
+
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+}
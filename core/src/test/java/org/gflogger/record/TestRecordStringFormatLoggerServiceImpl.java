@@ -0,0 +1,23 @@
+package org.gflogger.record;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+
+
+/**
+ * TestRecordStringFormatLoggerServiceImpl
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestRecordStringFormatLoggerServiceImpl extends TestStringFormatLoggerServiceImpl {
+
+	@Override
+	protected LoggerService createLoggerService(int maxMessageSize,
+			ObjectFormatterFactory objectFormatterFactory,
+			GFLoggerBuilder[] loggers,
+			AppenderFactory... factories) {
+		// small ring makes records wrap around often
+		return new LoggerServiceImpl(512, maxMessageSize, objectFormatterFactory, loggers, factories);
+	}
+
+}
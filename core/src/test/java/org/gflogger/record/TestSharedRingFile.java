@@ -0,0 +1,223 @@
+package org.gflogger.record;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.gflogger.*;
+import org.gflogger.appender.ConsoleAppenderFactory;
+import org.gflogger.ring.MappedRingFile;
+import org.gflogger.ring.RecordRingBuffer;
+import org.gflogger.ring.SleepingWaitStrategy;
+import org.gflogger.util.NameRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TestSharedRingFile
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+public class TestSharedRingFile {
+
+	private File dir;
+	private File ringFile;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = Files.createTempDirectory("gflogger-shared").toFile();
+		ringFile = new File(dir, "app.ring");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+	private LoggerService createService(RingFileMode mode, StringBuffer buffer) {
+		final ConsoleAppenderFactory factory = new ConsoleAppenderFactory();
+		factory.setLayoutPattern("%p [%t] %c{1} %m%n");
+		factory.setMultibyte(false);
+		factory.setImmediateFlush(true);
+		factory.setOutputStream(buffer);
+		factory.setLogLevel(LogLevel.INFO);
+		return new LoggerServiceImpl(1 << 12, 64, new SleepingWaitStrategy(), ringFile, mode,
+			null, new GFLoggerBuilder[]{new GFLoggerBuilder("com.db", factory)}, factory);
+	}
+
+	/**
+	 * @return index of a record claimed in the ring file and never committed
+	 */
+	private int claimRecord() throws Exception {
+		final MappedRingFile file = MappedRingFile.open(ringFile);
+		final RecordRingBuffer ring = new RecordRingBuffer(new SleepingWaitStrategy(), file.getRegion(),
+			LoggerServiceImpl.MESSAGE_OFFSET + 64, true, file.getCounters());
+		return ring.claim(16);
+	}
+
+	private int recordLength(int index) throws Exception {
+		return MappedRingFile.open(ringFile).getRegion().getInt(index + RecordRingBuffer.LENGTH_OFFSET);
+	}
+
+	private static void await(StringBuffer buffer, String expected) throws InterruptedException {
+		for (int i = 0; i < 500 && buffer.length() < expected.length(); i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, buffer.toString());
+	}
+
+	@Test
+	public void testConsumerWritesRecordsOfProducer() throws Exception {
+		final StringBuffer consumed = new StringBuffer();
+		final LoggerService consumer = createService(RingFileMode.CONSUMER, consumed);
+
+		final StringBuffer produced = new StringBuffer();
+		GFLogFactory.init(createService(RingFileMode.PRODUCER, produced));
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+		try {
+			for (int i = 0; i < 100; i++) {
+				log.info().append("message #").append(i).commit();
+			}
+		} finally {
+			GFLogFactory.stop();
+		}
+
+		final String thread = Thread.currentThread().getName();
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			expected.append("INFO [").append(thread).append("] Logger message #").append(i).append(Layout.LINE_SEP);
+		}
+		try {
+			await(consumed, expected.toString());
+		} finally {
+			consumer.stop();
+		}
+		assertEquals("producer does not write anything", "", produced.toString());
+		assertTrue("shared ring file is kept", ringFile.exists());
+	}
+
+	@Test
+	public void testConsumerStartsAfterProducer() throws Exception {
+		GFLogFactory.init(createService(RingFileMode.PRODUCER, new StringBuffer()));
+		final GFLog log = GFLogFactory.getLog("com.db.fxpricing.Logger");
+		try {
+			log.info().append("before").commit();
+
+			final StringBuffer consumed = new StringBuffer();
+			final LoggerService consumer = createService(RingFileMode.CONSUMER, consumed);
+			try {
+				log.warn().append("after").commit();
+
+				final String thread = Thread.currentThread().getName();
+				await(consumed,
+					"INFO [" + thread + "] Logger before" + Layout.LINE_SEP +
+					"WARN [" + thread + "] Logger after" + Layout.LINE_SEP);
+			} finally {
+				consumer.stop();
+			}
+		} finally {
+			GFLogFactory.stop();
+		}
+	}
+
+	@Test
+	public void testSecondProducerKeepsClaimsOfLiveProducer() throws Exception {
+		final LoggerService first = createService(RingFileMode.PRODUCER, new StringBuffer());
+		try {
+			// the first producer is in the middle of a record
+			final int index = claimRecord();
+
+			final LoggerService second = createService(RingFileMode.PRODUCER, new StringBuffer());
+			second.stop();
+
+			assertTrue("claim of a live producer is kept", recordLength(index) < 0);
+		} finally {
+			first.stop();
+		}
+	}
+
+	@Test
+	public void testProducerSkipsClaimsOfGoneProducers() throws Exception {
+		createService(RingFileMode.PRODUCER, new StringBuffer()).stop();
+		final int index = claimRecord();
+
+		final LoggerService producer = createService(RingFileMode.PRODUCER, new StringBuffer());
+		producer.stop();
+
+		assertTrue("claim of a gone producer is skipped", recordLength(index) > 0);
+	}
+
+	@Test
+	public void testRingFileInUseIsNotRecreated() throws Exception {
+		for (RingFileMode mode : new RingFileMode[]{RingFileMode.PRODUCER, RingFileMode.CONSUMER}) {
+			final LoggerService service = createService(mode, new StringBuffer());
+			try {
+				final long length = ringFile.length();
+				final int capacity = MappedRingFile.open(ringFile).getCapacity();
+				try {
+					MappedRingFile.openOrCreate(ringFile, capacity << 1, false);
+					fail("ring file in use by " + mode + " is recreated");
+				} catch (IOException e) {
+					assertTrue(e.getMessage(), e.getMessage().contains("in use"));
+				}
+				assertEquals(length, ringFile.length());
+				assertEquals(capacity, MappedRingFile.open(ringFile).getCapacity());
+			} finally {
+				service.stop();
+			}
+		}
+
+		final int capacity = MappedRingFile.open(ringFile).getCapacity();
+		assertEquals(capacity << 1, MappedRingFile.openOrCreate(ringFile, capacity << 1, false).getCapacity());
+	}
+
+	@Test
+	public void testSecondConsumerFails() throws Exception {
+		final LoggerService consumer = createService(RingFileMode.CONSUMER, new StringBuffer());
+		try {
+			createService(RingFileMode.CONSUMER, new StringBuffer());
+			fail("second consumer is started");
+		} catch (IllegalStateException e) {
+			// expected
+		} finally {
+			consumer.stop();
+		}
+	}
+
+	@Test
+	public void testProducersShareNameIds() throws Exception {
+		createService(RingFileMode.PRODUCER, new StringBuffer()).stop();
+
+		// registries of two producer processes
+		final NameRegistry[] registries = new NameRegistry[2];
+		for (int i = 0; i < registries.length; i++) {
+			final MappedRingFile file = MappedRingFile.open(ringFile);
+			registries[i] = new NameRegistry(new NameRegistry.Allocator() {
+				@Override
+				public int allocate(String name) {
+					return file.nextNameId();
+				}
+			}, new NameRegistry.Listener() {
+				@Override
+				public void registered(int id, String name) {
+					assertTrue(file.addName(id, name));
+				}
+			});
+		}
+
+		final int a = registries[0].idOf("com.db.a");
+		final int b = registries[1].idOf("com.db.b");
+		assertNotEquals(a, b);
+
+		final String[] names = MappedRingFile.open(ringFile).readNames();
+		assertEquals("com.db.a", names[a]);
+		assertEquals("com.db.b", names[b]);
+	}
+
+}
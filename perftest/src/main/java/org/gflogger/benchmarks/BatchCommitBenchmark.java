@@ -0,0 +1,100 @@
+package org.gflogger.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.base.LoggerServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+
+/**
+ * Benchmark of single vs batched commits of a burst of lines into
+ * {@link org.gflogger.ring.RingBuffer}: a batch claims a contiguous range once and
+ * publishes it with a single signal. The same dummy appender as in
+ * {@link GFLoggerBenchmark} is used, so no real IO is involved.
+ *
+ * Producer threads are set with <code>-t</code> option, {@link #main(String[])}
+ * runs 1, 2, 4, 8 and 16 threads.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+@BenchmarkMode( { Mode.AverageTime } )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@State( Scope.Benchmark )
+public class BatchCommitBenchmark {
+
+	public static final int COUNT = getIntProperty( "gflogger.service.count", 1 << 12 );
+
+	public static final int MAX_MESSAGE_SIZE = getIntProperty( "gflogger.service.maxMessageSize", 1 << 7 );
+
+	@Param( { "10", "50" } )
+	public int burst;
+
+	public LoggerService gfloggerService;
+	public GFLog gflog;
+
+	@Setup
+	public void setup() throws Exception {
+		final AppenderFactory[] factories = new GFLoggerBenchmark().createAppenderFactories();
+		final GFLoggerBuilder[] loggers = {
+				new GFLoggerBuilder(
+						LogLevel.INFO,
+						"com.db",
+						factories
+				)
+		};
+
+		gfloggerService = new LoggerServiceImpl(
+				COUNT,
+				MAX_MESSAGE_SIZE,
+				loggers,
+				factories
+		);
+
+		GFLogFactory.init( gfloggerService );
+
+		this.gflog = GFLogFactory.getLog( "com.db.fxpricing.Logger" );
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		GFLogFactory.stop();
+	}
+
+	@Benchmark
+	public void singleCommits() {
+		for( int i = 0; i < burst; i++ ) {
+			gflog.info().append( "level " ).append( i ).append( ' ' ).append( 1.5d ).commit();
+		}
+	}
+
+	@Benchmark
+	public void batchedCommits() {
+		gflog.beginBatch( burst );
+		for( int i = 0; i < burst; i++ ) {
+			gflog.info().append( "level " ).append( i ).append( ' ' ).append( 1.5d ).commit();
+		}
+		gflog.endBatch();
+	}
+
+	public static void main( String[] args ) throws Throwable {
+		for( final int threads : new int[] { 1, 2, 4, 8, 16 } ) {
+			final Options opts = new OptionsBuilder()
+					.include( BatchCommitBenchmark.class.getSimpleName() )
+					.threads( threads )
+					.warmupIterations( 10 )
+					.measurementIterations( 10 )
+					.jvmArgs( "-server" )
+					.forks( 1 )
+					.build();
+
+			new Runner( opts ).run();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package org.gflogger.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.appender.DirectFileAppender;
+import org.gflogger.appender.DirectFileAppenderFactory;
+import org.gflogger.appender.FileAppender;
+import org.gflogger.appender.FileAppenderFactory;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark of the write latency of a file appender: {@link #appendAndFlush()} appends
+ * a typical log line and flushes it to the file, i.e. every op is a small write.
+ * The sample mode reports percentiles (p99, p99.9) of the op time, the plain file
+ * is written through the page cache and the direct one bypasses it.
+ *
+ * Direct I/O is not supported by tmpfs, so the file is written to the working folder.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+@BenchmarkMode( { Mode.SampleTime } )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Thread )
+public class FileAppenderLatencyBenchmark {
+
+	private static final String MESSAGE =
+		"2014-11-29 01:52:00.123 DEBUG [main] org.gflogger.benchmarks - order 123456 is filled at 1.23456 by 1000000";
+
+	@Param( { "plain", "direct" } )
+	public String appender;
+
+	private File file;
+	private FileAppender fileAppender;
+	private LogEntryItemImpl entry;
+
+	@Setup
+	public void setup() throws IOException {
+		file = File.createTempFile( "gflogger-benchmark", ".log", new File( "." ).getAbsoluteFile() );
+		final FileAppenderFactory<? extends FileAppender> factory = "direct".equals( appender )
+			? new DirectFileAppenderFactory() : new FileAppenderFactory<FileAppender>();
+		factory.setFileName( file.getAbsolutePath() );
+		factory.setLayoutPattern( "%m%n" );
+		factory.setBufferSize( 1 << 16 );
+		factory.setAppend( false );
+		fileAppender = factory.createAppender( null );
+		fileAppender.start();
+
+		if ( fileAppender instanceof DirectFileAppender && !( ( DirectFileAppender ) fileAppender ).isDirect() ) {
+			System.out.println( "\ndirect I/O is not supported, " + file + " is written through the page cache" );
+		}
+
+		entry = new LogEntryItemImpl( MESSAGE.length(), new StringFormattingStrategy() );
+		entry.setLogLevel( LogLevel.INFO );
+		entry.getBuffer().put( MESSAGE.getBytes( "ascii" ) );
+	}
+
+	@TearDown
+	public void tearDown() {
+		fileAppender.stop();
+		file.delete();
+	}
+
+	@Benchmark
+	public void appendAndFlush() {
+		fileAppender.process( entry );
+		fileAppender.flush( true );
+	}
+
+	public static void main( String[] args ) throws Throwable {
+		final Options opts = new OptionsBuilder()
+				.include( FileAppenderLatencyBenchmark.class.getSimpleName() )
+				.warmupIterations( 5 )
+				.measurementIterations( 10 )
+				.jvmArgs( "-server" )
+				.forks( 1 )
+				.build();
+
+		new Runner( opts ).run();
+	}
+}
@@ -0,0 +1,107 @@
+package org.gflogger.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.LogEntryItemImpl;
+import org.gflogger.LogLevel;
+import org.gflogger.appender.DeflaterFileAppenderFactory;
+import org.gflogger.appender.FileAppender;
+import org.gflogger.appender.FileAppenderFactory;
+import org.gflogger.formatting.StringFormattingStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark of the consumer side of a file appender: {@link #append()} formats a typical
+ * log line into the appender the same way {@link org.gflogger.base.EntryHandler} does,
+ * full buffers are written to the file.
+ *
+ * The <code>bytes</code> counter is a number of log bytes (before compression) appended
+ * per second, reported in ops/s. The ratio of log bytes to bytes of the file is printed
+ * at the end of a trial, i.e. <code>bytes</code> divided by the ratio is a number
+ * of bytes written to the disk per second.
+ *
+ * The plain file grows by gigabytes per second, it is written to the temporary folder.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+@BenchmarkMode( { Mode.Throughput } )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@State( Scope.Thread )
+public class FileAppenderThroughputBenchmark {
+
+	private static final String MESSAGE =
+		"2014-11-29 01:52:00.123 DEBUG [main] org.gflogger.benchmarks - order 123456 is filled at 1.23456 by 1000000";
+
+	@Param( { "plain", "deflater" } )
+	public String appender;
+
+	@Param( { "false", "true" } )
+	public boolean doubleBuffered;
+
+	private File file;
+	private FileAppender fileAppender;
+	private LogEntryItemImpl entry;
+	private long total;
+
+	@Setup
+	public void setup() throws IOException {
+		file = File.createTempFile( "gflogger-benchmark", ".log" );
+		final FileAppenderFactory<? extends FileAppender> factory = "deflater".equals( appender )
+			? new DeflaterFileAppenderFactory() : new FileAppenderFactory<FileAppender>();
+		factory.setFileName( file.getAbsolutePath() );
+		factory.setLayoutPattern( "%m%n" );
+		factory.setBufferSize( 1 << 20 );
+		factory.setAppend( false );
+		factory.setDoubleBuffered( doubleBuffered );
+		fileAppender = factory.createAppender( null );
+		fileAppender.start();
+
+		entry = new LogEntryItemImpl( MESSAGE.length(), new StringFormattingStrategy() );
+		entry.setLogLevel( LogLevel.INFO );
+		entry.getBuffer().put( MESSAGE.getBytes( "ascii" ) );
+	}
+
+	@TearDown
+	public void tearDown() {
+		fileAppender.stop();
+		System.out.println( "\n" + appender + ": " + total + " log bytes, " + file.length()
+			+ " file bytes, ratio " + ( ( double ) total / Math.max( 1L, file.length() ) ) );
+		file.delete();
+	}
+
+	@AuxCounters
+	@State( Scope.Thread )
+	public static class Counters {
+		public long bytes;
+
+		@Setup( Level.Iteration )
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Benchmark
+	public void append( final Counters counters ) {
+		fileAppender.process( entry );
+		counters.bytes += MESSAGE.length() + 1;
+		total += MESSAGE.length() + 1;
+	}
+
+	public static void main( String[] args ) throws Throwable {
+		final Options opts = new OptionsBuilder()
+				.include( FileAppenderThroughputBenchmark.class.getSimpleName() )
+				.warmupIterations( 5 )
+				.measurementIterations( 10 )
+				.jvmArgs( "-server" )
+				.forks( 1 )
+				.build();
+
+		new Runner( opts ).run();
+	}
+}
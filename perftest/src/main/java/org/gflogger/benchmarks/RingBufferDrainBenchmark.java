@@ -0,0 +1,124 @@
+package org.gflogger.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.ring.BusySpinWaitStrategy;
+import org.gflogger.ring.EntryProcessor;
+import org.gflogger.ring.Publishable;
+import org.gflogger.ring.RingBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark of the consumer side of {@link RingBuffer}: the whole ring is
+ * published in advance and a single {@link #drain()} consumes it the same way
+ * {@link org.gflogger.base.EntryHandler} does - it waits for the next entry,
+ * asks the ring for the highest available sequence and releases entries up to it.
+ *
+ * {@link #scan()} measures only the lookup of the highest available sequence
+ * in the full ring, the part of the drain which does not touch entries.
+ *
+ * The score is the time of a drain (scan) of the full ring, i.e. divide it by
+ * <code>ringSize</code> to get the cost of an entry.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+@BenchmarkMode( { Mode.AverageTime } )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Thread )
+public class RingBufferDrainBenchmark implements EntryProcessor {
+
+	@Param( { "1024", "65536", "1048576" } )
+	public int ringSize;
+
+	public RingBuffer<Entry> ringBuffer;
+
+	public long cursor = RingBuffer.INITIAL_CURSOR_VALUE;
+
+	@Setup
+	public void setup() {
+		final Entry[] entries = new Entry[ringSize];
+		for( int i = 0; i < entries.length; i++ ) {
+			entries[i] = new Entry();
+		}
+		ringBuffer = new RingBuffer<Entry>( new BusySpinWaitStrategy(), entries, this );
+	}
+
+	@Setup( Level.Invocation )
+	public void fill() {
+		// scan leaves the ring full
+		if( ringBuffer.getCursor() != cursor ) return;
+		final long hi = ringBuffer.next( ringSize );
+		ringBuffer.publish( hi - ringSize + 1, hi );
+	}
+
+	@TearDown
+	public void tearDown() {
+		ringBuffer.stop();
+	}
+
+	@Benchmark
+	public long drain() throws InterruptedException {
+		final long hi = ringBuffer.getCursor();
+		long idx = cursor;
+		while( idx < hi ) {
+			final long maxIndex = ringBuffer.waitFor( idx + 1 );
+			while( maxIndex > idx ) {
+				idx++;
+				ringBuffer.get( idx ).setPublished( false );
+			}
+		}
+		cursor = idx;
+		return idx;
+	}
+
+	@Benchmark
+	public long scan() throws InterruptedException {
+		return ringBuffer.waitFor( cursor + 1 );
+	}
+
+	@Override
+	public long getSequence() {
+		return cursor;
+	}
+
+	@Override
+	public void run() {
+	}
+
+	/**
+	 * entry is padded to the size of {@link org.gflogger.LogEntryItemImpl}
+	 * (about 130 bytes), so published flags are apart as they are in the service
+	 */
+	public static final class Entry implements Publishable {
+
+		private volatile boolean published;
+
+		protected long p1, p2, p3, p4, p5, p6, p7, p8, p9, p10, p11, p12, p13, p14;
+
+		@Override
+		public boolean isPublished() {
+			return published;
+		}
+
+		@Override
+		public void setPublished( final boolean published ) {
+			this.published = published;
+		}
+	}
+
+	public static void main( String[] args ) throws Throwable {
+		final Options opts = new OptionsBuilder()
+				.include( RingBufferDrainBenchmark.class.getSimpleName() )
+				.warmupIterations( 10 )
+				.measurementIterations( 10 )
+				.jvmArgs( "-server" )
+				.forks( 1 )
+				.build();
+
+		new Runner( opts ).run();
+	}
+}
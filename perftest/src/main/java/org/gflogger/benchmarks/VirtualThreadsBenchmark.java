@@ -0,0 +1,135 @@
+package org.gflogger.benchmarks;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.gflogger.*;
+import org.gflogger.appender.AppenderFactory;
+import org.gflogger.base.LoggerServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static org.gflogger.helpers.OptionConverter.getIntProperty;
+
+/**
+ * Benchmark of a burst of short-living threads which log a single line each:
+ * a thread local entry per thread vs entries leased from a pool
+ * ({@link AbstractLoggerServiceImpl#setEntryPoolSize(int)}).
+ *
+ * Threads are virtual ones if JVM supports them (java 21+), platform ones otherwise.
+ * The score is the time to start, log from and join all <code>threads</code>,
+ * the peak of direct memory used is printed at the end of each iteration.
+ *
+ * @author Vladimir Dolzhenko, vladimir.dolzhenko@gmail.com
+ */
+@BenchmarkMode( { Mode.AverageTime } )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Benchmark )
+public class VirtualThreadsBenchmark {
+
+	public static final int COUNT = getIntProperty( "gflogger.service.count", 1 << 12 );
+
+	public static final int MAX_MESSAGE_SIZE = getIntProperty( "gflogger.service.maxMessageSize", 1 << 12 );
+
+	@Param( { "10000", "100000" } )
+	public int threads;
+
+	// 0 means thread local entries
+	@Param( { "0", "256" } )
+	public int entryPoolSize;
+
+	public LoggerService gfloggerService;
+	public GFLog gflog;
+
+	private Method startVirtualThread;
+	private BufferPoolMXBean directPool;
+	private long peakDirectMemory;
+
+	@Setup
+	public void setup() throws Exception {
+		final AppenderFactory[] factories = new GFLoggerBenchmark().createAppenderFactories();
+		final GFLoggerBuilder[] loggers = {
+				new GFLoggerBuilder(
+						LogLevel.INFO,
+						"com.db",
+						factories
+				)
+		};
+
+		final LoggerServiceImpl service = new LoggerServiceImpl(
+				COUNT,
+				MAX_MESSAGE_SIZE,
+				loggers,
+				factories
+		);
+		service.setEntryPoolSize( entryPoolSize );
+		gfloggerService = service;
+
+		GFLogFactory.init( gfloggerService );
+
+		this.gflog = GFLogFactory.getLog( "com.db.fxpricing.Logger" );
+
+		try {
+			startVirtualThread = Thread.class.getMethod( "startVirtualThread", Runnable.class );
+		} catch( NoSuchMethodException e ) {
+			System.out.println( "virtual threads are not supported, platform threads are used" );
+		}
+
+		for( final BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans( BufferPoolMXBean.class ) ) {
+			if( "direct".equals( pool.getName() ) ) {
+				directPool = pool;
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		GFLogFactory.stop();
+	}
+
+	@TearDown( Level.Iteration )
+	public void printDirectMemory() {
+		System.out.println( " peak direct memory used: " + ( peakDirectMemory >> 20 ) + " MB" );
+		peakDirectMemory = 0;
+	}
+
+	@Benchmark
+	public void logFromThreads() throws Exception {
+		final Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				gflog.info().append( "line from " ).append( Thread.currentThread().getId() ).commit();
+			}
+		};
+		final Thread[] started = new Thread[threads];
+		for( int i = 0; i < threads; i++ ) {
+			if( startVirtualThread != null ) {
+				started[i] = (Thread) startVirtualThread.invoke( null, task );
+			} else {
+				started[i] = new Thread( task );
+				started[i].start();
+			}
+		}
+		for( int i = 0; i < threads; i++ ) {
+			started[i].join();
+		}
+		peakDirectMemory = Math.max( peakDirectMemory, directPool.getMemoryUsed() );
+	}
+
+	public static void main( String[] args ) throws Throwable {
+		final Options opts = new OptionsBuilder()
+				.include( VirtualThreadsBenchmark.class.getSimpleName() )
+				.warmupIterations( 5 )
+				.measurementIterations( 10 )
+				.jvmArgs( "-server" )
+				.forks( 1 )
+				.build();
+
+		new Runner( opts ).run();
+	}
+}